@@ -0,0 +1,65 @@
+package org.ros2.java.di.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ros2.java.di.Clock;
+
+import builtin_interfaces.msg.Time;
+
+/**
+ * Measures reading the system clock. Note that timeNow and fillTime use the
+ * builtin_interfaces Time message, whose class loads the native type support,
+ * so they need the ROS 2 libraries on the library path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ClockBenchmark {
+
+	private Clock clock = new Clock();
+	private Time time;
+
+	@Setup
+	public void setup() {
+		time = new Time();
+	}
+
+	@Benchmark
+	public double now() {
+		return clock.now();
+	}
+
+	@Benchmark
+	public long wallNanos() {
+		return clock.wallNanos();
+	}
+
+	@Benchmark
+	public long monotonicNanos() {
+		return clock.monotonicNanos();
+	}
+
+	@Benchmark
+	public Object timeNow() {
+		return clock.timeNow();
+	}
+
+	@Benchmark
+	public Object fillTime() {
+		return clock.fillTime(time);
+	}
+
+}
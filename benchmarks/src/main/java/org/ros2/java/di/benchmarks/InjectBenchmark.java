@@ -0,0 +1,93 @@
+package org.ros2.java.di.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ros2.java.di.RosJavaDi;
+import org.ros2.java.di.annotations.Init;
+import org.ros2.java.di.annotations.Inject;
+import org.ros2.java.di.annotations.InstanceName;
+import org.ros2.java.di.annotations.Parameter;
+import org.ros2.java.di.annotations.Publish;
+import org.ros2.java.di.annotations.Subscribe;
+import org.ros2.java.di.transport.LoopbackBus;
+import org.ros2.java.di.transport.LoopbackTransport;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.publisher.Publisher;
+
+/**
+ * Measures creating node graphs of increasing size on the loopback transport,
+ * with and without starting the node, which injects the dependencies, reads
+ * the parameters and subscribes to the topics.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InjectBenchmark {
+
+	public static class Sample implements MessageDefinition {
+	}
+
+	public static class Shared {
+
+		@Parameter("gain")
+		public double gain = 1.0;
+	}
+
+	public static class Component {
+
+		@Inject
+		public Shared shared;
+
+		@InstanceName
+		public String name;
+
+		@Parameter("rate")
+		public int rate = 10;
+
+		@Publish("out")
+		public Publisher<Sample> out;
+
+		@Subscribe(value = "in", queueLength = 0)
+		public void onMessage(Sample message) {
+		}
+
+		@Init
+		public void init() {
+		}
+	}
+
+	@Param({ "1", "10", "100" })
+	public int components;
+
+	@Benchmark
+	public RosJavaDi create() throws Exception {
+		RosJavaDi rosJavaDi = new RosJavaDi("benchmark", new String[0],
+				new LoopbackTransport(new LoopbackBus(), "benchmark", 16));
+		for (int i = 0; i < components; i++) {
+			rosJavaDi.create(Component.class, "component" + i);
+		}
+		return rosJavaDi;
+	}
+
+	@Benchmark
+	public RosJavaDi createAndStart() throws Exception {
+		RosJavaDi rosJavaDi = create();
+		rosJavaDi.start();
+		rosJavaDi.shutdown();
+		return rosJavaDi;
+	}
+
+}
@@ -0,0 +1,155 @@
+package org.ros2.java.di.benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ros2.java.di.internal.Invokers;
+import org.ros2.java.di.internal.MessageInvoker;
+import org.ros2.java.di.internal.MethodInvoker;
+
+/**
+ * Compares reflective {@link Method#invoke} with the invokers used to dispatch
+ * subscriber messages, repeater ticks and initializers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InvokerBenchmark {
+
+	public static class Handler {
+
+		public long sum;
+
+		public void onMessage(Sample message) {
+			sum += message.value;
+		}
+
+		public boolean tick() {
+			sum++;
+			return true;
+		}
+
+		public void repeat() {
+			sum++;
+		}
+
+		@SuppressWarnings("unused")
+		private void privateRepeat() {
+			sum++;
+		}
+
+		@SuppressWarnings("unused")
+		private void onPrivateMessage(Sample message) {
+			sum += message.value;
+		}
+	}
+
+	public static class Sample {
+
+		public long value = 1;
+	}
+
+	private Handler handler = new Handler();
+	private Sample message = new Sample();
+
+	private Method messageMethod;
+	private Method privateMessageMethod;
+	private Method tickMethod;
+	private Method repeatMethod;
+	private Method privateRepeatMethod;
+
+	private MessageInvoker messageInvoker;
+	private MessageInvoker privateMessageInvoker;
+	private MethodInvoker tickInvoker;
+	private MethodInvoker repeatInvoker;
+	private MethodInvoker privateRepeatInvoker;
+
+	@Setup
+	public void setup() throws Exception {
+		messageMethod = Handler.class.getMethod("onMessage", Sample.class);
+		privateMessageMethod = Handler.class.getDeclaredMethod("onPrivateMessage", Sample.class);
+		privateMessageMethod.setAccessible(true);
+		tickMethod = Handler.class.getMethod("tick");
+		repeatMethod = Handler.class.getMethod("repeat");
+		privateRepeatMethod = Handler.class.getDeclaredMethod("privateRepeat");
+		privateRepeatMethod.setAccessible(true);
+
+		messageInvoker = Invokers.messageInvoker(handler, messageMethod);
+		privateMessageInvoker = Invokers.messageInvoker(handler, privateMessageMethod);
+		tickInvoker = Invokers.methodInvoker(handler, tickMethod);
+		repeatInvoker = Invokers.methodInvoker(handler, repeatMethod);
+		privateRepeatInvoker = Invokers.methodInvoker(handler, privateRepeatMethod);
+	}
+
+	@Benchmark
+	public long messageReflective() throws Exception {
+		messageMethod.invoke(handler, message);
+		return handler.sum;
+	}
+
+	@Benchmark
+	public long messageInvoker() throws Throwable {
+		messageInvoker.invoke(message);
+		return handler.sum;
+	}
+
+	@Benchmark
+	public long privateMessageReflective() throws Exception {
+		privateMessageMethod.invoke(handler, message);
+		return handler.sum;
+	}
+
+	@Benchmark
+	public long privateMessageInvoker() throws Throwable {
+		privateMessageInvoker.invoke(message);
+		return handler.sum;
+	}
+
+	@Benchmark
+	public Object tickReflective() throws Exception {
+		return tickMethod.invoke(handler);
+	}
+
+	@Benchmark
+	public Object tickInvoker() throws Throwable {
+		return tickInvoker.invoke();
+	}
+
+	@Benchmark
+	public long repeatReflective() throws Exception {
+		repeatMethod.invoke(handler);
+		return handler.sum;
+	}
+
+	@Benchmark
+	public long repeatInvoker() throws Throwable {
+		repeatInvoker.invoke();
+		return handler.sum;
+	}
+
+	@Benchmark
+	public long privateRepeatReflective() throws Exception {
+		privateRepeatMethod.invoke(handler);
+		return handler.sum;
+	}
+
+	@Benchmark
+	public long privateRepeatInvoker() throws Throwable {
+		privateRepeatInvoker.invoke();
+		return handler.sum;
+	}
+
+}
@@ -0,0 +1,96 @@
+package org.ros2.java.di.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ros2.java.di.LogCallSite;
+import org.ros2.java.di.LogSeldom;
+import org.ros2.java.di.RosJavaDi;
+
+/**
+ * Measures RosJavaDiLog calls that are disabled, enabled and written to a
+ * handler discarding the records, and seldom calls that are mostly dropped.
+ * With asynchronous logging the producer can outrun the consumer, in which
+ * case the enabled path measures dropping into a full buffer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LogBenchmark {
+
+	private static final LogCallSite CALL_SITE = new LogCallSite();
+
+	@Param({ "false", "true" })
+	public boolean async;
+
+	private LogSeldom enabledLog;
+	private LogSeldom disabledLog;
+
+	@Setup
+	public void setup() {
+		Logger enabled = Logger.getLogger("benchmark.enabled");
+		enabled.setUseParentHandlers(false);
+		enabled.addHandler(new Handler() {
+			@Override
+			public void publish(LogRecord record) {
+			}
+
+			@Override
+			public void flush() {
+			}
+
+			@Override
+			public void close() {
+			}
+		});
+		enabled.setLevel(Level.ALL);
+		Logger.getLogger("benchmark.disabled").setLevel(Level.OFF);
+		enabledLog = RosJavaDi.getLog("benchmark.enabled");
+		disabledLog = RosJavaDi.getLog("benchmark.disabled");
+		RosJavaDi.setAsyncLogging(async);
+	}
+
+	@TearDown
+	public void tearDown() {
+		RosJavaDi.setAsyncLogging(false);
+	}
+
+	@Benchmark
+	public void disabled() {
+		disabledLog.info("message");
+	}
+
+	@Benchmark
+	public void enabled() {
+		enabledLog.info("message");
+	}
+
+	@Benchmark
+	public void seldom() {
+		enabledLog.errorSeldom("message");
+	}
+
+	@Benchmark
+	public void seldomCallSite() {
+		enabledLog.errorSeldom(CALL_SITE, "message");
+	}
+
+}
@@ -0,0 +1,137 @@
+package org.ros2.java.di.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ros2.java.di.RosJavaDi;
+import org.ros2.java.di.annotations.IntraProcess;
+import org.ros2.java.di.annotations.Publish;
+import org.ros2.java.di.annotations.Subscribe;
+import org.ros2.java.di.transport.LoopbackBus;
+import org.ros2.java.di.transport.LoopbackTransport;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.publisher.Publisher;
+
+/**
+ * Measures publishing through a started node on the loopback transport, with
+ * the subscriber called on the executor thread or queued for its worker,
+ * queued and called with batches of messages, or called directly by an
+ * intra-process publisher. The
+ * publisher can outrun delivery, the tear down prints how many messages were
+ * delivered.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoopbackBenchmark {
+
+	public static class Sample implements MessageDefinition {
+	}
+
+	public static class Talker {
+
+		@Publish("chatter")
+		public Publisher<Sample> publisher;
+	}
+
+	public static class IntraProcessTalker {
+
+		@Publish(value = "chatter", intraProcess = IntraProcess.SHARED)
+		public Publisher<Sample> publisher;
+	}
+
+	public static class InlineListener {
+
+		public volatile long count;
+
+		@Subscribe(value = "/chatter", queueLength = 0)
+		public void onMessage(Sample message) {
+			count++;
+		}
+	}
+
+	public static class QueuedListener {
+
+		public volatile long count;
+
+		@Subscribe(value = "/chatter", queueLength = 1024)
+		public void onMessage(Sample message) {
+			count++;
+		}
+	}
+
+	public static class BatchedListener {
+
+		public volatile long count;
+
+		@Subscribe(value = "/chatter", queueLength = 1024, batchSize = 64)
+		public void onMessages(List<Sample> messages) {
+			count += messages.size();
+		}
+	}
+
+	@Param({ "inline", "queued", "batched", "intra" })
+	public String mode;
+
+	private RosJavaDi rosJavaDi;
+	private Publisher<Sample> publisher;
+	private InlineListener inlineListener;
+	private QueuedListener queuedListener;
+	private BatchedListener batchedListener;
+	private Sample message = new Sample();
+
+	@Setup
+	public void setup() throws Exception {
+		rosJavaDi = new RosJavaDi("benchmark", new String[0],
+				new LoopbackTransport(new LoopbackBus(), "benchmark", 1024));
+		if (mode.equals("intra")) {
+			publisher = rosJavaDi.create(IntraProcessTalker.class).publisher;
+		} else {
+			publisher = rosJavaDi.create(Talker.class).publisher;
+		}
+		if (mode.equals("queued")) {
+			queuedListener = rosJavaDi.create(QueuedListener.class);
+		} else if (mode.equals("batched")) {
+			batchedListener = rosJavaDi.create(BatchedListener.class);
+		} else {
+			inlineListener = rosJavaDi.create(InlineListener.class);
+		}
+		rosJavaDi.start();
+	}
+
+	@TearDown
+	public void tearDown() {
+		rosJavaDi.shutdown();
+		long delivered;
+		if (queuedListener != null) {
+			delivered = queuedListener.count;
+		} else if (batchedListener != null) {
+			delivered = batchedListener.count;
+		} else {
+			delivered = inlineListener.count;
+		}
+		System.out.println("Delivered " + delivered + " messages, dropped "
+				+ ((LoopbackTransport) rosJavaDi.getTransport()).getDroppedMessages() + " in transport");
+	}
+
+	@Benchmark
+	public void publish() {
+		publisher.publish(message);
+	}
+
+}
@@ -0,0 +1,73 @@
+package org.ros2.java.di.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ros2.java.di.internal.ParameterConversions;
+import org.ros2.java.di.internal.ParameterConverter;
+import org.ros2.rcljava.parameters.ParameterVariant;
+
+/**
+ * Measures converting values received from the parameter server to the types
+ * of annotated fields with the converters chosen for them. Repeated YAML
+ * values hit the parse cache, see {@link #yamlToNewList()} for a miss.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParameterBenchmark {
+
+	private ParameterConverter intConverter = ParameterConversions.converterFor(int.class);
+	private ParameterConverter stringConverter = ParameterConversions.converterFor(String.class);
+	private ParameterConverter doubleConverter = ParameterConversions.converterFor(double.class);
+	private ParameterConverter listConverter = ParameterConversions.converterFor(List.class);
+	private ParameterConverter arrayConverter = ParameterConversions.converterFor(double[].class);
+	private int counter;
+	private ParameterVariant integerValue = new ParameterVariant("integer", 42L);
+	private ParameterVariant doubleValue = new ParameterVariant("double", 1.5);
+	private ParameterVariant stringNumber = new ParameterVariant("string", "1.5");
+	private ParameterVariant yamlList = new ParameterVariant("list", "[1, 2, 3, 4]");
+
+	@Benchmark
+	public Object integerToInt() {
+		return intConverter.fromVariant(integerValue);
+	}
+
+	@Benchmark
+	public Object doubleToString() {
+		return stringConverter.fromVariant(doubleValue);
+	}
+
+	@Benchmark
+	public Object stringToDouble() {
+		return doubleConverter.fromVariant(stringNumber);
+	}
+
+	@Benchmark
+	public Object yamlToList() {
+		return listConverter.fromVariant(yamlList);
+	}
+
+	@Benchmark
+	public Object yamlToArray() {
+		return arrayConverter.fromVariant(yamlList);
+	}
+
+	@Benchmark
+	public Object yamlToNewList() {
+		return listConverter.fromVariant(new ParameterVariant("list", "[1, 2, " + (counter++ & 1023) + "]"));
+	}
+
+}
@@ -0,0 +1,88 @@
+package org.ros2.java.di.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.ros2.java.di.internal.ParameterFile;
+import org.ros2.java.di.internal.ParameterStore;
+
+/**
+ * Measures how one node of a large fleet starts from a shared parameter file,
+ * reading ten of its parameters, by parsing the YAML or by mapping the binary
+ * cache written on the first start.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParameterFileBenchmark {
+
+	private static final int PARAMETERS_PER_NODE = 100;
+
+	@Param({ "10", "1000" })
+	public int nodes;
+
+	private Path directory;
+	private String file;
+	private String cache;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("parameters");
+		Path path = directory.resolve("fleet.yaml");
+		try (Writer writer = Files.newBufferedWriter(path)) {
+			for (int node = 0; node < nodes; node++) {
+				writer.write("node" + node + ":\n  ros__parameters:\n");
+				for (int i = 0; i < PARAMETERS_PER_NODE; i++) {
+					writer.write("    parameter" + i + ": " + (node * i * 0.5) + "\n");
+				}
+			}
+		}
+		file = path.toString();
+		cache = directory.resolve("fleet.cache").toString();
+		ParameterFile.load(file, cache, "node0");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(directory.resolve("fleet.yaml"));
+		Files.deleteIfExists(directory.resolve("fleet.cache"));
+		Files.deleteIfExists(directory);
+	}
+
+	@Benchmark
+	public void parseYaml(Blackhole blackhole) throws IOException {
+		read(ParameterFile.load(file, null, "node" + (nodes / 2)), blackhole);
+	}
+
+	@Benchmark
+	public void mapCache(Blackhole blackhole) throws IOException {
+		read(ParameterFile.load(file, cache, "node" + (nodes / 2)), blackhole);
+	}
+
+	private void read(ParameterStore store, Blackhole blackhole) {
+		for (int i = 0; i < 10; i++) {
+			blackhole.consume(store.get("/parameter" + i));
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+package org.ros2.java.di.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ros2.java.di.PooledPublisher;
+import org.ros2.java.di.transport.LoopbackBus;
+import org.ros2.java.di.transport.LoopbackTransport;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.publisher.Publisher;
+
+/**
+ * Compares allocating a message per publish with borrowing it from a
+ * {@link PooledPublisher}. The topic has no subscribers, so the loopback
+ * publisher returns at once and the pool may recycle messages as it would on
+ * a serializing transport. Run with <code>-prof gc</code> to see the
+ * allocation rate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PooledPublisherBenchmark {
+
+	public static class Scan implements MessageDefinition {
+
+		public float[] ranges = new float[720];
+		public long stamp;
+	}
+
+	private Publisher<Scan> publisher;
+	private PooledPublisher<Scan> pooled;
+
+	@Setup
+	public void setup() {
+		LoopbackTransport transport = new LoopbackTransport(new LoopbackBus(), "benchmark", 16);
+		publisher = transport.createPublisher(Scan.class, "scan");
+		pooled = new PooledPublisher<>(publisher, Scan.class, 4, true);
+	}
+
+	@Benchmark
+	public void allocate() {
+		Scan scan = new Scan();
+		scan.stamp = System.nanoTime();
+		publisher.publish(scan);
+	}
+
+	@Benchmark
+	public void borrow() {
+		Scan scan = pooled.borrow();
+		scan.stamp = System.nanoTime();
+		pooled.publish(scan);
+	}
+
+}
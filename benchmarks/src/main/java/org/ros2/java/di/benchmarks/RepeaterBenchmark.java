@@ -0,0 +1,67 @@
+package org.ros2.java.di.benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ros2.java.di.annotations.CallbackGroupType;
+import org.ros2.java.di.annotations.Repeat;
+import org.ros2.java.di.internal.CallbackGroupLock;
+import org.ros2.java.di.internal.Invokers;
+import org.ros2.java.di.internal.Repeater;
+
+/**
+ * Measures the framework overhead of one repeater tick around the annotated
+ * method, without the time spent waiting in the scheduler.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RepeaterBenchmark {
+
+	public static class Handler {
+
+		public long count;
+
+		@Repeat(interval = 10)
+		public void tick() {
+			count++;
+		}
+	}
+
+	private Repeater repeater;
+	private Repeater groupRepeater;
+
+	@Setup
+	public void setup() throws Exception {
+		Handler handler = new Handler();
+		Method method = Handler.class.getMethod("tick");
+		Repeat repeat = method.getAnnotation(Repeat.class);
+		repeater = new Repeater(handler, "tick", "tick", repeat, Invokers.methodInvoker(handler, method), null);
+		groupRepeater = new Repeater(handler, "tick", "tick", repeat, Invokers.methodInvoker(handler, method),
+				new CallbackGroupLock("group", CallbackGroupType.MUTUALLY_EXCLUSIVE));
+	}
+
+	@Benchmark
+	public long tick() {
+		return repeater.run();
+	}
+
+	@Benchmark
+	public long tickMutuallyExclusive() {
+		return groupRepeater.run();
+	}
+
+}
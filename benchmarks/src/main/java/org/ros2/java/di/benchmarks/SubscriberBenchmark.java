@@ -0,0 +1,91 @@
+package org.ros2.java.di.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ros2.java.di.RosJavaDi;
+import org.ros2.java.di.annotations.CallbackGroupType;
+import org.ros2.java.di.annotations.OverflowPolicy;
+import org.ros2.java.di.internal.CallbackGroupLock;
+import org.ros2.java.di.internal.Invokers;
+import org.ros2.java.di.internal.MessageQueue;
+import org.ros2.java.di.internal.RosJavaSubscriber;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+
+/**
+ * Measures dispatching a received message to the subscriber method on the
+ * executor thread, with and without a mutually exclusive callback group, and
+ * the queue used by subscribers with a worker thread. Runs without a node,
+ * the message is a proxy so no message type support is loaded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SubscriberBenchmark {
+
+	public static class Handler {
+
+		public long count;
+
+		public void onMessage(MessageDefinition message) {
+			count++;
+		}
+	}
+
+	private Handler handler = new Handler();
+	private MessageDefinition message;
+	private RosJavaSubscriber<MessageDefinition> inlineSubscriber;
+	private RosJavaSubscriber<MessageDefinition> groupSubscriber;
+	private MessageQueue<Object> queue = new MessageQueue<>(16);
+
+	@Setup
+	public void setup() throws Exception {
+		message = (MessageDefinition) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { MessageDefinition.class }, new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						return null;
+					}
+				});
+		Method method = Handler.class.getMethod("onMessage", MessageDefinition.class);
+		inlineSubscriber = new RosJavaSubscriber<>(null, "inline", Invokers.messageInvoker(handler, method), "topic",
+				MessageDefinition.class, 0, OverflowPolicy.DROP_OLDEST, false, 0, null, RosJavaDi.getLog());
+		groupSubscriber = new RosJavaSubscriber<>(null, "group", Invokers.messageInvoker(handler, method), "topic",
+				MessageDefinition.class, 0, OverflowPolicy.DROP_OLDEST, false, 0,
+				new CallbackGroupLock("group", CallbackGroupType.MUTUALLY_EXCLUSIVE), RosJavaDi.getLog());
+	}
+
+	@Benchmark
+	public long inline() {
+		inlineSubscriber.handleMessage(message);
+		return handler.count;
+	}
+
+	@Benchmark
+	public long inlineMutuallyExclusive() {
+		groupSubscriber.handleMessage(message);
+		return handler.count;
+	}
+
+	@Benchmark
+	public Object queueOfferPoll() {
+		queue.offer(message);
+		return queue.poll();
+	}
+
+}
@@ -0,0 +1,523 @@
+package org.ros2.java.di.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic.Kind;
+
+/**
+ * Generates an injector for every class using RosJavaDi annotations, so that
+ * RosJavaDi can wire the class without scanning it with reflection.
+ * <p>
+ * The injector is generated in the package of the class and is named after
+ * its binary name, keeping the <code>$</code> of nested classes so that
+ * <code>Foo.Bar</code> and <code>Foo_Bar</code> get different injectors, with
+ * the <code>_RosJavaDiInjector</code> suffix, which is where
+ * <code>org.ros2.java.di.internal.Injectors</code> looks for it. Fields and
+ * methods visible from the package are accessed directly, private ones
+ * through reflection resolved once per class. Classes that cannot be handled
+ * are skipped and RosJavaDi falls back to reflection for them.
+ */
+@SupportedAnnotationTypes({ InjectorProcessor.INJECT, InjectorProcessor.PARAMETER, InjectorProcessor.PUBLISH,
+		InjectorProcessor.SUBSCRIBE, InjectorProcessor.REPEAT, InjectorProcessor.INIT,
+		InjectorProcessor.INSTANCE_NAME, InjectorProcessor.SYSTEM_CLOCK, InjectorProcessor.ROS_CLOCK,
+		InjectorProcessor.ATOMIC_PARAMETERS, InjectorProcessor.ON_PARAMETER_CHANGE })
+public class InjectorProcessor extends AbstractProcessor {
+
+	static final String INJECT = "org.ros2.java.di.annotations.Inject";
+	static final String PARAMETER = "org.ros2.java.di.annotations.Parameter";
+	static final String PUBLISH = "org.ros2.java.di.annotations.Publish";
+	static final String SUBSCRIBE = "org.ros2.java.di.annotations.Subscribe";
+	static final String REPEAT = "org.ros2.java.di.annotations.Repeat";
+	static final String INIT = "org.ros2.java.di.annotations.Init";
+	static final String INSTANCE_NAME = "org.ros2.java.di.annotations.InstanceName";
+	static final String SYSTEM_CLOCK = "org.ros2.java.di.annotations.SystemClock";
+	static final String ROS_CLOCK = "org.ros2.java.di.annotations.RosClock";
+	static final String CALLBACK_GROUP = "org.ros2.java.di.annotations.CallbackGroup";
+	static final String ATOMIC_PARAMETERS = "org.ros2.java.di.annotations.AtomicParameters";
+	static final String ON_PARAMETER_CHANGE = "org.ros2.java.di.annotations.OnParameterChange";
+	static final String PARAMETER_SNAPSHOT = "org.ros2.java.di.ParameterSnapshot";
+	static final String POOLED_PUBLISHER = "org.ros2.java.di.PooledPublisher";
+
+	/**
+	 * Must be the same as <code>Injectors.INJECTOR_SUFFIX</code>.
+	 */
+	private static final String INJECTOR_SUFFIX = "_RosJavaDiInjector";
+
+	private static final String INTERNAL = "org.ros2.java.di.internal.";
+
+	private Set<String> generated = new HashSet<>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		Set<TypeElement> components = new LinkedHashSet<>();
+		for (TypeElement annotation : annotations) {
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				Element enclosing = element.getEnclosingElement();
+				if (enclosing != null && enclosing.getKind() == ElementKind.CLASS) {
+					components.add((TypeElement) enclosing);
+				}
+			}
+		}
+		for (TypeElement component : components) {
+			if (generated.add(component.getQualifiedName().toString())) {
+				generate(component);
+			}
+		}
+		return false;
+	}
+
+	private void generate(TypeElement component) {
+		String reason = unsupportedReason(component);
+		if (reason != null) {
+			processingEnv.getMessager().printMessage(Kind.NOTE,
+					"No injector generated for " + component.getQualifiedName() + ", " + reason
+							+ ", RosJavaDi will use reflection",
+					component);
+			return;
+		}
+		try {
+			Generator generator = new Generator(component);
+			if (!generator.collect()) {
+				return;
+			}
+			String name = generator.packageName.isEmpty() ? generator.simpleName
+					: generator.packageName + "." + generator.simpleName;
+			try (Writer writer = processingEnv.getFiler().createSourceFile(name, component).openWriter()) {
+				writer.write(generator.source());
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Kind.ERROR,
+					"Cannot write injector for " + component.getQualifiedName() + ": " + e, component);
+		}
+	}
+
+	private String unsupportedReason(TypeElement component) {
+		for (Element e = component; e instanceof TypeElement; e = e.getEnclosingElement()) {
+			TypeElement type = (TypeElement) e;
+			if (type.getModifiers().contains(Modifier.PRIVATE)) {
+				return "the class is private";
+			}
+			if (type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+				return "the class is local or anonymous";
+			}
+		}
+		return null;
+	}
+
+	private AnnotationMirror annotation(Element element, String name) {
+		for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+			TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+			if (type.getQualifiedName().contentEquals(name)) {
+				return mirror;
+			}
+		}
+		return null;
+	}
+
+	private String erasure(TypeMirror type) {
+		return processingEnv.getTypeUtils().erasure(type).toString();
+	}
+
+	private String boxed(TypeMirror type) {
+		if (type.getKind().isPrimitive()) {
+			return processingEnv.getTypeUtils().boxedClass(processingEnv.getTypeUtils().getPrimitiveType(type.getKind()))
+					.getQualifiedName().toString();
+		}
+		return erasure(type);
+	}
+
+	private void error(String message, Element element) {
+		processingEnv.getMessager().printMessage(Kind.ERROR, message, element);
+	}
+
+	/**
+	 * Builds the source of one injector.
+	 */
+	private class Generator {
+
+		final TypeElement component;
+		final String packageName;
+		final String simpleName;
+		final String type;
+
+		final List<String> constants = new ArrayList<>();
+		final Map<Element, String> memberConstants = new HashMap<>();
+		int annotationConstants;
+		String componentCallbackGroup;
+		final List<String> inject = new ArrayList<>();
+		final List<String> injectDependencies = new ArrayList<>();
+
+		Generator(TypeElement component) {
+			this.component = component;
+			PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(component);
+			this.packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+			String binaryName = processingEnv.getElementUtils().getBinaryName(component).toString();
+			if (!packageName.isEmpty()) {
+				binaryName = binaryName.substring(packageName.length() + 1);
+			}
+			this.simpleName = binaryName + INJECTOR_SUFFIX;
+			this.type = erasure(component.asType());
+		}
+
+		/**
+		 * Collects statements for annotated members. Returns false if an error
+		 * was reported.
+		 */
+		boolean collect() {
+			boolean ok = true;
+			for (Element member : component.getEnclosedElements()) {
+				if (member.getKind() == ElementKind.FIELD) {
+					ok &= collectField((VariableElement) member);
+				} else if (member.getKind() == ElementKind.METHOD) {
+					ok &= collectMethod((ExecutableElement) member);
+				}
+			}
+			return ok;
+		}
+
+		boolean collectField(VariableElement field) {
+			String name = field.getSimpleName().toString();
+			if (annotation(field, SYSTEM_CLOCK) != null) {
+				inject.add(assign(field, "context.getSystemClock()"));
+			}
+			if (annotation(field, ROS_CLOCK) != null) {
+				inject.add(assign(field, "context.getRosClock()"));
+			}
+			if (annotation(field, INSTANCE_NAME) != null) {
+				inject.add(assign(field, "instanceName"));
+			}
+			if (annotation(field, ATOMIC_PARAMETERS) != null) {
+				if (!erasure(field.asType()).equals("org.ros2.java.di.Parameters")) {
+					error("Field " + name + " annotated with @AtomicParameters must be of type Parameters", field);
+					return false;
+				}
+				inject.add(assign(field, "context.getParameters(object)"));
+			}
+			AnnotationMirror parameter = annotation(field, PARAMETER);
+			if (parameter != null) {
+				inject.add("context.addParameter(" + constant(parameter) + ", instanceName, object, "
+						+ erasure(field.asType()) + ".class, " + literal(name) + ", " + accessor(field) + ");");
+			}
+			AnnotationMirror publish = annotation(field, PUBLISH);
+			if (publish != null) {
+				TypeMirror fieldType = field.asType();
+				if (fieldType.getKind() != TypeKind.DECLARED
+						|| ((DeclaredType) fieldType).getTypeArguments().size() != 1) {
+					error("Publisher field " + name + " must declare the message type", field);
+					return false;
+				}
+				TypeMirror topicType = ((DeclaredType) fieldType).getTypeArguments().get(0);
+				String factory = erasure(fieldType).equals(POOLED_PUBLISHER) ? "createPooledPublisher"
+						: "createPublisher";
+				inject.add(assign(field, "context." + factory + "(" + constant(publish) + ", " + erasure(topicType)
+						+ ".class, instanceName)"));
+			}
+			AnnotationMirror dependency = annotation(field, INJECT);
+			if (dependency != null) {
+				injectDependencies.add(assign(field, "(" + erasure(field.asType()) + ") context.getInstance("
+						+ constant(dependency) + ", " + erasure(field.asType()) + ".class, instanceName)"));
+			}
+			return true;
+		}
+
+		boolean collectMethod(ExecutableElement method) {
+			String name = method.getSimpleName().toString();
+			String description = literal(type + "." + name + "(" + parameterTypes(method, ", ", "") + ")");
+			AnnotationMirror init = annotation(method, INIT);
+			if (init != null) {
+				if (!method.getParameters().isEmpty()) {
+					error("Initializer " + name + " cannot have parameters", method);
+					return false;
+				}
+				inject.add("context.addInitializer(" + constant(init) + ", object, " + description + ", "
+						+ methodInvoker(method) + ");");
+			}
+			AnnotationMirror onParameterChange = annotation(method, ON_PARAMETER_CHANGE);
+			if (onParameterChange != null) {
+				if (!parameterTypes(method, ",", "").equals(PARAMETER_SNAPSHOT + "," + PARAMETER_SNAPSHOT)) {
+					error("Parameter change listener " + name + " must take previous and current ParameterSnapshot",
+							method);
+					return false;
+				}
+				inject.add("context.addParameterChangeListener(" + constant(onParameterChange) + ", object, "
+						+ description + ", " + parameterChangeInvoker(method) + ");");
+			}
+			AnnotationMirror repeat = annotation(method, REPEAT);
+			if (repeat != null) {
+				if (!method.getParameters().isEmpty()) {
+					error("Repeater " + name + " cannot have parameters", method);
+					return false;
+				}
+				inject.add("context.addRepeater(" + constant(repeat) + ", " + callbackGroup(method) + ", object, "
+						+ literal(name) + ", " + description + ", " + methodInvoker(method) + ");");
+			}
+			AnnotationMirror subscribe = annotation(method, SUBSCRIBE);
+			if (subscribe != null) {
+				if (method.getParameters().size() != 1) {
+					error("Subscriber " + name + " must have exactly one parameter", method);
+					return false;
+				}
+				TypeMirror parameterType = method.getParameters().get(0).asType();
+				String messageType = erasure(parameterType);
+				if (parameterType.getKind() == TypeKind.ARRAY) {
+					String topicType = erasure(((ArrayType) parameterType).getComponentType());
+					inject.add("context.addBatchSubscriber(" + constant(subscribe) + ", " + callbackGroup(method)
+							+ ", instanceName, " + topicType + ".class, true, " + description + ", "
+							+ messageInvoker(method, messageType) + ");");
+				} else if (messageType.equals("java.util.List")) {
+					List<? extends TypeMirror> typeArguments = ((DeclaredType) parameterType).getTypeArguments();
+					if (typeArguments.size() != 1 || typeArguments.get(0).getKind() != TypeKind.DECLARED) {
+						error("Subscriber " + name + " must declare the message type of its list", method);
+						return false;
+					}
+					String topicType = erasure(typeArguments.get(0));
+					inject.add("context.addBatchSubscriber(" + constant(subscribe) + ", " + callbackGroup(method)
+							+ ", instanceName, " + topicType + ".class, false, " + description + ", "
+							+ messageInvoker(method, messageType) + ");");
+				} else {
+					inject.add("context.addSubscriber(" + constant(subscribe) + ", " + callbackGroup(method)
+							+ ", instanceName, " + messageType + ".class, " + description + ", "
+							+ messageInvoker(method, messageType) + ");");
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Returns constant with the callback group of the method, falling back
+		 * to the group of the component, or null if there is none.
+		 */
+		String callbackGroup(ExecutableElement method) {
+			AnnotationMirror group = annotation(method, CALLBACK_GROUP);
+			if (group != null) {
+				return constant(group);
+			}
+			if (componentCallbackGroup == null) {
+				group = annotation(component, CALLBACK_GROUP);
+				componentCallbackGroup = group == null ? "null" : constant(group);
+			}
+			return componentCallbackGroup;
+		}
+
+		String assign(VariableElement field, String value) {
+			String name = field.getSimpleName().toString();
+			if (field.getModifiers().contains(Modifier.PRIVATE)) {
+				return INTERNAL + "Injectors.set(" + fieldConstant(field) + ", object, " + value + ");";
+			}
+			return owner(field) + "." + name + " = " + value + ";";
+		}
+
+		String accessor(VariableElement field) {
+			if (field.getModifiers().contains(Modifier.PRIVATE)) {
+				return "new " + INTERNAL + "FieldParameterAccessor(object, " + fieldConstant(field) + ")";
+			}
+			String access = owner(field) + "." + field.getSimpleName();
+			return "new " + INTERNAL + "ParameterAccessor() {\n"
+					+ "\t\t\t@Override\n"
+					+ "\t\t\tpublic Object get() {\n"
+					+ "\t\t\t\treturn " + access + ";\n"
+					+ "\t\t\t}\n\n"
+					+ "\t\t\t@Override\n"
+					+ "\t\t\tpublic void set(Object value) {\n"
+					+ "\t\t\t\t" + access + " = (" + boxed(field.asType()) + ") value;\n"
+					+ "\t\t\t}\n"
+					+ "\t\t}";
+		}
+
+		String methodInvoker(ExecutableElement method) {
+			if (method.getModifiers().contains(Modifier.PRIVATE)) {
+				return INTERNAL + "Invokers.methodInvoker(object, " + methodConstant(method) + ")";
+			}
+			String call = owner(method) + "." + method.getSimpleName() + "()";
+			if (method.getReturnType().getKind() == TypeKind.VOID) {
+				return "() -> {\n\t\t\t" + call + ";\n\t\t\treturn null;\n\t\t}";
+			}
+			return "() -> " + call;
+		}
+
+		String parameterChangeInvoker(ExecutableElement method) {
+			if (method.getModifiers().contains(Modifier.PRIVATE)) {
+				return INTERNAL + "Invokers.parameterChangeInvoker(object, " + methodConstant(method) + ")";
+			}
+			return "(previous, current) -> " + owner(method) + "." + method.getSimpleName() + "(previous, current)";
+		}
+
+		String messageInvoker(ExecutableElement method, String topicType) {
+			if (method.getModifiers().contains(Modifier.PRIVATE)) {
+				return INTERNAL + "Invokers.messageInvoker(object, " + methodConstant(method) + ")";
+			}
+			return "message -> " + owner(method) + "." + method.getSimpleName() + "((" + topicType + ") message)";
+		}
+
+		String owner(Element member) {
+			return member.getModifiers().contains(Modifier.STATIC) ? type : "object";
+		}
+
+		String parameterTypes(ExecutableElement method, String separator, String suffix) {
+			StringBuilder builder = new StringBuilder();
+			for (VariableElement parameter : method.getParameters()) {
+				if (builder.length() > 0) {
+					builder.append(separator);
+				}
+				builder.append(erasure(parameter.asType())).append(suffix);
+			}
+			return builder.toString();
+		}
+
+		String fieldConstant(VariableElement field) {
+			return memberConstant(field, "java.lang.reflect.Field", "FIELD_",
+					"Injectors.field(" + type + ".class, " + literal(field.getSimpleName().toString()) + ")");
+		}
+
+		String methodConstant(ExecutableElement method) {
+			String types = parameterTypes(method, ", ", ".class");
+			return memberConstant(method, "java.lang.reflect.Method", "METHOD_",
+					"Injectors.method(" + type + ".class, " + literal(method.getSimpleName().toString())
+							+ (types.isEmpty() ? "" : ", " + types) + ")");
+		}
+
+		/**
+		 * Declares a constant holding the reflected member once, numbering the
+		 * names of overloaded methods.
+		 */
+		String memberConstant(Element member, String constantType, String prefix, String lookup) {
+			String name = memberConstants.get(member);
+			if (name != null) {
+				return name;
+			}
+			name = prefix + member.getSimpleName();
+			for (int i = 2; memberConstants.containsValue(name); i++) {
+				name = prefix + member.getSimpleName() + "_" + i;
+			}
+			memberConstants.put(member, name);
+			constants.add("private static final " + constantType + " " + name + " = " + INTERNAL + lookup + ";");
+			return name;
+		}
+
+		/**
+		 * Declares a constant holding an implementation of the annotation with
+		 * the same values, so that annotations do not have to be read with
+		 * reflection.
+		 */
+		String constant(AnnotationMirror mirror) {
+			String name = "ANNOTATION_" + annotationConstants++;
+			TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+			constants.add("private static final " + annotationType.getQualifiedName() + " " + name + " = "
+					+ annotationLiteral(mirror, "\t") + ";");
+			return name;
+		}
+
+		String annotationLiteral(AnnotationMirror mirror, String indent) {
+			String name = ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+			StringBuilder builder = new StringBuilder("new " + name + "() {\n");
+			for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : processingEnv
+					.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+				ExecutableElement element = entry.getKey();
+				builder.append(indent).append("\t@Override\n");
+				builder.append(indent).append("\tpublic ").append(element.getReturnType()).append(' ')
+						.append(element.getSimpleName()).append("() {\n");
+				builder.append(indent).append("\t\treturn ")
+						.append(valueLiteral(element.getReturnType(), entry.getValue(), indent + "\t\t"))
+						.append(";\n");
+				builder.append(indent).append("\t}\n\n");
+			}
+			builder.append(indent).append("\t@Override\n");
+			builder.append(indent)
+					.append("\tpublic Class<? extends java.lang.annotation.Annotation> annotationType() {\n");
+			builder.append(indent).append("\t\treturn ").append(name).append(".class;\n");
+			builder.append(indent).append("\t}\n");
+			builder.append(indent).append('}');
+			return builder.toString();
+		}
+
+		String valueLiteral(TypeMirror type, AnnotationValue annotationValue, String indent) {
+			Object value = annotationValue.getValue();
+			if (value instanceof VariableElement) {
+				VariableElement constant = (VariableElement) value;
+				return ((TypeElement) constant.getEnclosingElement()).getQualifiedName() + "."
+						+ constant.getSimpleName();
+			} else if (value instanceof TypeMirror) {
+				return erasure((TypeMirror) value) + ".class";
+			} else if (value instanceof AnnotationMirror) {
+				return annotationLiteral((AnnotationMirror) value, indent);
+			} else if (value instanceof List) {
+				TypeMirror componentType = ((ArrayType) type).getComponentType();
+				StringBuilder builder = new StringBuilder("new " + erasure(type) + " { ");
+				String separator = "";
+				for (Object element : (List<?>) value) {
+					builder.append(separator).append(valueLiteral(componentType, (AnnotationValue) element, indent));
+					separator = ", ";
+				}
+				return builder.append(" }").toString();
+			}
+			return processingEnv.getElementUtils().getConstantExpression(value);
+		}
+
+		String literal(String value) {
+			return processingEnv.getElementUtils().getConstantExpression(value);
+		}
+
+		String source() {
+			StringBuilder builder = new StringBuilder();
+			if (!packageName.isEmpty()) {
+				builder.append("package ").append(packageName).append(";\n\n");
+			}
+			builder.append("/**\n * Injector of {@link ").append(type)
+					.append("} generated by ros2-java-di-processor, do not edit.\n */\n");
+			builder.append("@SuppressWarnings({ \"unchecked\", \"rawtypes\" })\n");
+			builder.append("public final class ").append(simpleName).append(" implements ").append(INTERNAL)
+					.append("Injector<").append(type).append("> {\n\n");
+			for (String constant : constants) {
+				builder.append('\t').append(constant).append("\n\n");
+			}
+			appendMethod(builder, "inject", inject);
+			builder.append('\n');
+			appendMethod(builder, "injectDependencies", injectDependencies);
+			builder.append("}\n");
+			return builder.toString();
+		}
+
+		void appendMethod(StringBuilder builder, String name, List<String> statements) {
+			builder.append("\t@Override\n");
+			builder.append("\tpublic void ").append(name).append("(final ").append(type)
+					.append(" object, String instanceName, ").append(INTERNAL)
+					.append("InjectionContext context)\n\t\t\tthrows org.ros2.java.di.exceptions.CreationException {\n");
+			for (String statement : statements) {
+				builder.append("\t\t").append(statement).append('\n');
+			}
+			builder.append("\t}\n");
+		}
+	}
+
+}
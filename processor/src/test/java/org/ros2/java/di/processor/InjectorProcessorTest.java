@@ -0,0 +1,150 @@
+package org.ros2.java.di.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs the processor on sources declaring the RosJavaDi annotations they use,
+ * and checks the source of the generated injectors. The library is not on the
+ * class path, so errors reported in the generated sources are ignored.
+ */
+public class InjectorProcessorTest {
+
+	private static final String SUBSCRIBE = "package org.ros2.java.di.annotations;\n"
+			+ "public @interface Subscribe {\n"
+			+ "	String value();\n"
+			+ "}\n";
+
+	private static final String REPEAT = "package org.ros2.java.di.annotations;\n"
+			+ "public @interface Repeat {\n"
+			+ "	int interval() default 0;\n"
+			+ "}\n";
+
+	private Path directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("processor");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		List<Path> paths = new ArrayList<>();
+		Files.walk(directory).forEach(paths::add);
+		Collections.reverse(paths);
+		for (Path path : paths) {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void numbersConstantsOfOverloadedPrivateMethods() throws IOException {
+		String injector = process("example.Listener", "package example;\n"
+				+ "import org.ros2.java.di.annotations.Subscribe;\n"
+				+ "public class Listener {\n"
+				+ "	@Subscribe(\"a\")\n"
+				+ "	private void on(String message) {}\n"
+				+ "	@Subscribe(\"b\")\n"
+				+ "	private void on(Integer message) {}\n"
+				+ "	@Subscribe(\"c\")\n"
+				+ "	private void on_2(Long message) {}\n"
+				+ "}\n");
+		List<String> names = methodConstants(injector);
+		assertEquals(Arrays.asList("METHOD_on", "METHOD_on_2", "METHOD_on_2_2"), names);
+		assertTrue(injector.contains("METHOD_on = org.ros2.java.di.internal.Injectors.method(example.Listener.class, "
+				+ "\"on\", java.lang.String.class);"));
+		assertTrue(injector.contains("METHOD_on_2 = org.ros2.java.di.internal.Injectors.method("
+				+ "example.Listener.class, \"on\", java.lang.Integer.class);"));
+		assertTrue(injector.contains("METHOD_on_2_2 = org.ros2.java.di.internal.Injectors.method("
+				+ "example.Listener.class, \"on_2\", java.lang.Long.class);"));
+	}
+
+	@Test
+	public void declaresConstantOfMethodOnce() throws IOException {
+		String injector = process("example.Ticker", "package example;\n"
+				+ "import org.ros2.java.di.annotations.Repeat;\n"
+				+ "import org.ros2.java.di.annotations.Subscribe;\n"
+				+ "public class Ticker {\n"
+				+ "	@Repeat(interval = 100)\n"
+				+ "	private void tick() {}\n"
+				+ "	@Subscribe(\"ticks\")\n"
+				+ "	private void tick(String message) {}\n"
+				+ "}\n");
+		assertEquals(Arrays.asList("METHOD_tick", "METHOD_tick_2"), methodConstants(injector));
+	}
+
+	/**
+	 * Runs the processor and returns the source of the injector of the class.
+	 */
+	private String process(String className, String source) throws IOException {
+		Path sources = Files.createDirectories(directory.resolve("src"));
+		Path generated = Files.createDirectories(directory.resolve("generated"));
+		List<File> files = new ArrayList<>();
+		files.add(write(sources, "org/ros2/java/di/annotations/Subscribe.java", SUBSCRIBE));
+		files.add(write(sources, "org/ros2/java/di/annotations/Repeat.java", REPEAT));
+		files.add(write(sources, className.replace('.', '/') + ".java", source));
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null,
+				StandardCharsets.UTF_8)) {
+			JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+					Arrays.asList("-proc:only", "-s", generated.toString()), null,
+					fileManager.getJavaFileObjectsFromFiles(files));
+			task.setProcessors(Collections.singletonList(new InjectorProcessor()));
+			task.call();
+			for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+				boolean inGenerated = diagnostic.getSource() != null
+						&& new File(diagnostic.getSource().toUri()).toPath().startsWith(generated);
+				assertTrue(diagnostic.toString(), inGenerated || diagnostic.getKind() != Diagnostic.Kind.ERROR);
+			}
+		}
+		Path injector = generated.resolve(className.replace('.', '/') + "_RosJavaDiInjector.java");
+		return new String(Files.readAllBytes(injector), StandardCharsets.UTF_8);
+	}
+
+	private static File write(Path root, String name, String content) throws IOException {
+		Path path = root.resolve(name);
+		Files.createDirectories(path.getParent());
+		Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+		return path.toFile();
+	}
+
+	/**
+	 * Returns names of the method constants in order of declaration, failing
+	 * if a name is declared twice.
+	 */
+	private static List<String> methodConstants(String injector) {
+		List<String> names = new ArrayList<>();
+		Matcher matcher = Pattern.compile("java\\.lang\\.reflect\\.Method (\\w+) =").matcher(injector);
+		while (matcher.find()) {
+			names.add(matcher.group(1));
+		}
+		assertEquals("Duplicate constants in " + injector, names.size(), new HashSet<>(names).size());
+		return names;
+	}
+}
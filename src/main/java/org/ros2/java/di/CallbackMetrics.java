@@ -0,0 +1,136 @@
+package org.ros2.java.di;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of one annotated callback, updated without locks or allocation
+ * while the node runs and read through {@link RosJavaDi#getCallbackMetrics()}.
+ * <p>
+ * Queue wait is recorded for subscribers with a queue or conflating ones,
+ * skipped messages for conflating subscribers, schedule jitter and
+ * overruns for repeaters. A repeater overruns when its next call is already
+ * due once the current call returns.
+ */
+public class CallbackMetrics {
+
+	public enum Kind {
+		SUBSCRIBER, REPEATER, INITIALIZER
+	}
+
+	private final Kind kind;
+	private final String description;
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LatencyHistogram queueWait = new LatencyHistogram();
+	private final LatencyHistogram jitter = new LatencyHistogram();
+	private final AtomicLong failures = new AtomicLong();
+	private final AtomicLong droppedMessages = new AtomicLong();
+	private final AtomicLong skippedMessages = new AtomicLong();
+	private final AtomicLong overruns = new AtomicLong();
+
+	public CallbackMetrics(Kind kind, String description) {
+		this.kind = kind;
+		this.description = description;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public long getInvocations() {
+		return latency.getCount();
+	}
+
+	/**
+	 * Returns how long the method took, including waiting for its callback
+	 * group.
+	 */
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+
+	/**
+	 * Returns how long messages waited in the subscriber queue.
+	 */
+	public LatencyHistogram getQueueWait() {
+		return queueWait;
+	}
+
+	/**
+	 * Returns how late repeater calls started after their deadline.
+	 */
+	public LatencyHistogram getJitter() {
+		return jitter;
+	}
+
+	/**
+	 * Returns number of calls that threw an exception.
+	 */
+	public long getFailures() {
+		return failures.get();
+	}
+
+	public long getDroppedMessages() {
+		return droppedMessages.get();
+	}
+
+	/**
+	 * Returns number of messages a conflating subscriber replaced by newer
+	 * ones before handling them.
+	 */
+	public long getSkippedMessages() {
+		return skippedMessages.get();
+	}
+
+	public long getOverruns() {
+		return overruns.get();
+	}
+
+	public void recordFailure() {
+		failures.incrementAndGet();
+	}
+
+	public void recordDroppedMessage() {
+		droppedMessages.incrementAndGet();
+	}
+
+	public void recordSkippedMessage() {
+		skippedMessages.incrementAndGet();
+	}
+
+	public void recordOverrun() {
+		overruns.incrementAndGet();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(kind).append(' ').append(description).append(": ").append(getInvocations())
+				.append(" calls, mean ").append(latency.getMeanNanos() / 1000).append(" us, p99 ")
+				.append(latency.getPercentileNanos(99.0) / 1000).append(" us, max ")
+				.append(latency.getMaxNanos() / 1000).append(" us");
+		if (failures.get() != 0) {
+			builder.append(", ").append(failures.get()).append(" failed");
+		}
+		if (queueWait.getCount() != 0) {
+			builder.append(", queue wait p99 ").append(queueWait.getPercentileNanos(99.0) / 1000).append(" us");
+		}
+		if (droppedMessages.get() != 0) {
+			builder.append(", ").append(droppedMessages.get()).append(" dropped");
+		}
+		if (skippedMessages.get() != 0) {
+			builder.append(", ").append(skippedMessages.get()).append(" skipped");
+		}
+		if (jitter.getCount() != 0) {
+			builder.append(", jitter p99 ").append(jitter.getPercentileNanos(99.0) / 1000).append(" us");
+		}
+		if (overruns.get() != 0) {
+			builder.append(", ").append(overruns.get()).append(" overruns");
+		}
+		return builder.toString();
+	}
+
+}
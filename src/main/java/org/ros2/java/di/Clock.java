@@ -2,18 +2,102 @@ package org.ros2.java.di;
 
 import builtin_interfaces.msg.Time;
 
+/**
+ * System clock injected with <code>@SystemClock</code>.
+ * <p>
+ * Wall time has nanosecond resolution: it is the wall clock read once, plus
+ * the monotonic time elapsed since. When the wall clock moves away from that
+ * by more than {@link #RESYNC_TOLERANCE_NANOSECONDS}, for example after an NTP
+ * step, the clock is read again. Use {@link #monotonicNanos()} to measure
+ * durations, it never jumps.
+ * <p>
+ * Reading the time does not allocate, {@link #fillTime(Time)} stamps a
+ * message owned by the caller.
+ */
 public class Clock {
 
+	public static final long RESYNC_TOLERANCE_NANOSECONDS = 2000000L;
+
+	private static final long NANOSECONDS_PER_MILLISECOND = 1000000L;
+	private static final long NANOSECONDS_PER_SECOND = 1000000000L;
+
+	/**
+	 * Wall time at a monotonic time, replaced as a whole when resynchronized.
+	 */
+	private static class Anchor {
+
+		final long wallNanos;
+		final long monotonicNanos;
+
+		Anchor(long wallNanos, long monotonicNanos) {
+			this.wallNanos = wallNanos;
+			this.monotonicNanos = monotonicNanos;
+		}
+	}
+
+	/**
+	 * Shared by all clocks, as they read the same system clock.
+	 */
+	private static volatile Anchor anchor = initialAnchor();
+
+	private static Anchor initialAnchor() {
+		// wait for the millisecond to change to anchor at its start
+		long millis = System.currentTimeMillis();
+		long next;
+		while ((next = System.currentTimeMillis()) == millis) {
+			Thread.yield();
+		}
+		return new Anchor(next * NANOSECONDS_PER_MILLISECOND, System.nanoTime());
+	}
+
+	/**
+	 * Returns wall time in seconds since the epoch.
+	 */
 	public double now() {
-		return ((double) System.currentTimeMillis()) / 1000.;
+		return wallNanos() / 1e9;
+	}
+
+	/**
+	 * Returns wall time in nanoseconds since the epoch.
+	 */
+	public long wallNanos() {
+		Anchor current = anchor;
+		long monotonic = System.nanoTime();
+		long wall = current.wallNanos + (monotonic - current.monotonicNanos);
+		long millis = System.currentTimeMillis() * NANOSECONDS_PER_MILLISECOND;
+		// the millisecond clock is up to one millisecond behind
+		if (wall < millis - RESYNC_TOLERANCE_NANOSECONDS
+				|| wall > millis + NANOSECONDS_PER_MILLISECOND + RESYNC_TOLERANCE_NANOSECONDS) {
+			anchor = new Anchor(millis, monotonic);
+			return millis;
+		}
+		return wall;
+	}
+
+	/**
+	 * Returns monotonic time in nanoseconds from an arbitrary origin, for
+	 * measuring durations.
+	 */
+	public long monotonicNanos() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Writes the current wall time into the message and returns it.
+	 */
+	public Time fillTime(Time time) {
+		long nanos = wallNanos();
+		time.setSec((int) (nanos / NANOSECONDS_PER_SECOND));
+		time.setNanosec((int) (nanos % NANOSECONDS_PER_SECOND));
+		return time;
 	}
 
+	/**
+	 * Returns new message with the current wall time, see
+	 * {@link #fillTime(Time)} to avoid the allocation.
+	 */
 	public Time timeNow() {
-		long m = System.currentTimeMillis();
-		Time t = new Time();
-		t.setSec((int) (m / 1000L));
-		t.setNanosec((int) (m % 1000L) * 1000);
-		return t;
+		return fillTime(new Time());
 	}
 
 }
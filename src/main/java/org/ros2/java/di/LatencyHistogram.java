@@ -0,0 +1,88 @@
+package org.ros2.java.di;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations in nanoseconds with power of two buckets.
+ * Bucket <code>i</code> counts durations from <code>2^(i-1)</code> to
+ * <code>2^i - 1</code> nanoseconds, the last bucket also counts all longer
+ * ones. Recording does not allocate.
+ */
+public class LatencyHistogram {
+
+	/**
+	 * The last bucket starts at about 4.6 minutes.
+	 */
+	public static final int BUCKETS = 40;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong totalNanos = new AtomicLong();
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		counts.incrementAndGet(Math.min(64 - Long.numberOfLeadingZeros(nanos), BUCKETS - 1));
+		totalNanos.addAndGet(nanos);
+		long max = maxNanos.get();
+		while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+			max = maxNanos.get();
+		}
+	}
+
+	public long getCount() {
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			count += counts.get(i);
+		}
+		return count;
+	}
+
+	public long getTotalNanos() {
+		return totalNanos.get();
+	}
+
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	public long getMeanNanos() {
+		long count = getCount();
+		return count == 0 ? 0 : totalNanos.get() / count;
+	}
+
+	/**
+	 * Returns upper bound of the bucket containing the given percentile, for
+	 * example 99.0, but at most the maximum, or 0 if nothing was recorded.
+	 */
+	public long getPercentileNanos(double percentile) {
+		long[] buckets = getBucketCounts();
+		long count = 0;
+		for (long bucket : buckets) {
+			count += bucket;
+		}
+		if (count == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(count * percentile / 100.0);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS - 1; i++) {
+			seen += buckets[i];
+			if (seen >= rank) {
+				return Math.min((1L << i) - 1, maxNanos.get());
+			}
+		}
+		return maxNanos.get();
+	}
+
+	public long[] getBucketCounts() {
+		long[] copy = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			copy[i] = counts.get(i);
+		}
+		return copy;
+	}
+
+}
@@ -0,0 +1,52 @@
+package org.ros2.java.di;
+
+import org.ros2.java.di.internal.RateLimit;
+
+/**
+ * Identifies a place logging seldom messages, so that deciding whether to log
+ * does not need to find the caller. Create one per call site and keep it in a
+ * static field:
+ *
+ * <pre>
+ * private static final LogCallSite OVERRUN = new LogCallSite(1000, 5);
+ * ...
+ * LOG.errorSeldom(OVERRUN, "Control loop overrun");
+ * </pre>
+ */
+public class LogCallSite {
+
+	private final long periodMillis;
+	private final int messagesPerPeriod;
+	private final RateLimit limit = new RateLimit();
+
+	/**
+	 * Creates call site using the seldom rate of the logger.
+	 */
+	public LogCallSite() {
+		this(0, 0);
+	}
+
+	/**
+	 * Creates call site letting through given number of messages per period.
+	 */
+	public LogCallSite(long periodMillis, int messagesPerPeriod) {
+		if (periodMillis < 0 || messagesPerPeriod < 0) {
+			throw new IllegalArgumentException("Seldom rate cannot be negative");
+		}
+		this.periodMillis = periodMillis;
+		this.messagesPerPeriod = messagesPerPeriod;
+	}
+
+	/**
+	 * Returns -1 if a message logged at the given time should be suppressed,
+	 * otherwise number of messages suppressed since the last one logged. The
+	 * default rate is used unless the call site has its own.
+	 */
+	public long acquire(long timeMillis, long defaultPeriodMillis, int defaultMessagesPerPeriod) {
+		if (periodMillis > 0 && messagesPerPeriod > 0) {
+			return limit.acquire(timeMillis, periodMillis, messagesPerPeriod);
+		}
+		return limit.acquire(timeMillis, defaultPeriodMillis, defaultMessagesPerPeriod);
+	}
+
+}
@@ -4,8 +4,12 @@ import org.apache.commons.logging.Log;
 
 /**
  * Adds methods on top of <code>org.apache.commons.logging.Log</code> to log
- * messages only once per 10 seconds.
- *
+ * messages only once per 10 seconds, or at the rate set for the logger. The
+ * next message let through tells how many were suppressed.
+ * <p>
+ * Methods taking a {@link LogCallSite} keep the time of the last message in
+ * the handle instead of looking up the calling line, which makes dropping a
+ * message almost free.
  */
 public interface LogSeldom extends Log {
 
@@ -33,4 +37,34 @@ public interface LogSeldom extends Log {
 
 	void warnSeldom(Object message, Throwable t);
 
+	/**
+	 * Sets how many seldom messages per period are logged from one line of
+	 * code.
+	 */
+	void setSeldomRate(long periodMillis, int messagesPerPeriod);
+
+	void debugSeldom(LogCallSite site, Object message);
+
+	void debugSeldom(LogCallSite site, Object message, Throwable t);
+
+	void errorSeldom(LogCallSite site, Object message);
+
+	void errorSeldom(LogCallSite site, Object message, Throwable t);
+
+	void fatalSeldom(LogCallSite site, Object message);
+
+	void fatalSeldom(LogCallSite site, Object message, Throwable t);
+
+	void infoSeldom(LogCallSite site, Object message);
+
+	void infoSeldom(LogCallSite site, Object message, Throwable t);
+
+	void traceSeldom(LogCallSite site, Object message);
+
+	void traceSeldom(LogCallSite site, Object message, Throwable t);
+
+	void warnSeldom(LogCallSite site, Object message);
+
+	void warnSeldom(LogCallSite site, Object message, Throwable t);
+
 }
@@ -0,0 +1,76 @@
+package org.ros2.java.di;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable values of the <code>@Parameter</code> fields of one component,
+ * keyed by field name. A parameter update replaces the whole snapshot, so the
+ * values read from one snapshot always belong together. Collections held by
+ * the snapshot must not be modified.
+ */
+public final class ParameterSnapshot {
+
+	private final Map<String, Object> values;
+	private final long version;
+
+	ParameterSnapshot(Map<String, Object> values, long version) {
+		this.values = Collections.unmodifiableMap(new LinkedHashMap<>(values));
+		this.version = version;
+	}
+
+	/**
+	 * Returns copy of this snapshot with the given values replaced.
+	 */
+	ParameterSnapshot with(Map<String, Object> changes) {
+		LinkedHashMap<String, Object> changed = new LinkedHashMap<>(values);
+		changed.putAll(changes);
+		return new ParameterSnapshot(changed, version + 1);
+	}
+
+	/**
+	 * Returns value of the field, or null if the component has no such
+	 * parameter field.
+	 */
+	public Object get(String fieldName) {
+		return values.get(fieldName);
+	}
+
+	public boolean getBoolean(String fieldName) {
+		return (Boolean) values.get(fieldName);
+	}
+
+	public int getInt(String fieldName) {
+		return ((Number) values.get(fieldName)).intValue();
+	}
+
+	public long getLong(String fieldName) {
+		return ((Number) values.get(fieldName)).longValue();
+	}
+
+	public double getDouble(String fieldName) {
+		return ((Number) values.get(fieldName)).doubleValue();
+	}
+
+	public String getString(String fieldName) {
+		return (String) values.get(fieldName);
+	}
+
+	public Set<String> getFieldNames() {
+		return values.keySet();
+	}
+
+	/**
+	 * Returns number of updates since the component was started.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	@Override
+	public String toString() {
+		return "ParameterSnapshot " + version + " " + values;
+	}
+}
@@ -0,0 +1,39 @@
+package org.ros2.java.di;
+
+/**
+ * Holds the current {@link ParameterSnapshot} of a component, injected into
+ * fields annotated with <code>@AtomicParameters</code>. Reading it is a single
+ * volatile read, cheap enough for every message or tick:
+ *
+ * <pre>
+ * &#64;Parameter("kp")
+ * public double kp = 1.0;
+ *
+ * &#64;AtomicParameters
+ * public Parameters parameters;
+ *
+ * &#64;Repeat(interval = 10)
+ * public void control() {
+ *     ParameterSnapshot p = parameters.get();
+ *     output = p.getDouble("kp") * error;
+ * }
+ * </pre>
+ *
+ * The snapshot is empty until the node is started.
+ */
+public final class Parameters {
+
+	private volatile ParameterSnapshot snapshot;
+
+	Parameters(ParameterSnapshot snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	public ParameterSnapshot get() {
+		return snapshot;
+	}
+
+	void set(ParameterSnapshot snapshot) {
+		this.snapshot = snapshot;
+	}
+}
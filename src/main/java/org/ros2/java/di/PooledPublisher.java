@@ -0,0 +1,151 @@
+package org.ros2.java.di;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.publisher.Publisher;
+
+/**
+ * Publisher recycling its messages, injected into fields of this type
+ * annotated with <code>@Publish</code>. {@link #borrow()} returns a message
+ * from the pool, allocating one only when the pool is empty, and
+ * {@link #publish(MessageDefinition)} returns it to the pool once the
+ * transport has serialized it:
+ *
+ * <pre>
+ * &#64;Publish(value = "odom", poolSize = 4)
+ * public PooledPublisher&lt;Odometry&gt; odometry;
+ *
+ * Odometry message = odometry.borrow();
+ * message.setPose(...);
+ * odometry.publish(message);
+ * </pre>
+ *
+ * A borrowed message still holds the values it was last published with, and
+ * must not be used after it is published or released. When the transport
+ * hands the message object itself to subscribers, as the loopback transport
+ * and shared intra-process publishing do, messages are not recycled and
+ * every borrow allocates. The counters tell whether publishing is garbage
+ * free: in steady state the number of allocated messages stops growing.
+ * <p>
+ * The pool is a fixed array of slots taken and returned with compare and
+ * set, so any thread may borrow and publish without locking or allocating.
+ */
+public final class PooledPublisher<T extends MessageDefinition> {
+
+	private final Publisher<T> publisher;
+	private final Constructor<T> constructor;
+	private final AtomicReferenceArray<T> pool;
+	private final boolean recycling;
+	private final AtomicLong allocated = new AtomicLong();
+	private final AtomicLong recycled = new AtomicLong();
+	private final AtomicLong discarded = new AtomicLong();
+	private final AtomicLong published = new AtomicLong();
+
+	/**
+	 * Creates pool of the given size in front of the publisher, recycling
+	 * messages only if the publisher copies them before returning.
+	 */
+	public PooledPublisher(Publisher<T> publisher, Class<T> type, int poolSize, boolean recycling) {
+		if (poolSize <= 0) {
+			throw new IllegalArgumentException("Pool size must be positive, was " + poolSize);
+		}
+		this.publisher = publisher;
+		try {
+			this.constructor = type.getConstructor();
+		} catch (NoSuchMethodException e) {
+			throw new IllegalArgumentException("Message type " + type.getName() + " has no public constructor", e);
+		}
+		this.pool = new AtomicReferenceArray<>(poolSize);
+		this.recycling = recycling;
+	}
+
+	/**
+	 * Returns message taken from the pool, or a new one if the pool is empty.
+	 */
+	public T borrow() {
+		if (recycling) {
+			for (int i = 0; i < pool.length(); i++) {
+				T message = pool.get(i);
+				if (message != null && pool.compareAndSet(i, message, null)) {
+					recycled.incrementAndGet();
+					return message;
+				}
+			}
+		}
+		allocated.incrementAndGet();
+		try {
+			return constructor.newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Cannot create message " + constructor.getDeclaringClass().getName(), e);
+		}
+	}
+
+	/**
+	 * Publishes the message and returns it to the pool.
+	 */
+	public void publish(T message) {
+		publisher.publish(message);
+		published.incrementAndGet();
+		release(message);
+	}
+
+	/**
+	 * Returns borrowed message to the pool without publishing it.
+	 */
+	public void release(T message) {
+		if (!recycling) {
+			return;
+		}
+		for (int i = 0; i < pool.length(); i++) {
+			if (pool.get(i) == null && pool.compareAndSet(i, null, message)) {
+				return;
+			}
+		}
+		discarded.incrementAndGet();
+	}
+
+	/**
+	 * Returns the publisher of the transport.
+	 */
+	public Publisher<T> getPublisher() {
+		return publisher;
+	}
+
+	public boolean isRecycling() {
+		return recycling;
+	}
+
+	/**
+	 * Returns number of messages created because the pool was empty.
+	 */
+	public long getAllocatedMessages() {
+		return allocated.get();
+	}
+
+	/**
+	 * Returns number of borrows served from the pool.
+	 */
+	public long getRecycledMessages() {
+		return recycled.get();
+	}
+
+	/**
+	 * Returns number of messages dropped because the pool was full.
+	 */
+	public long getDiscardedMessages() {
+		return discarded.get();
+	}
+
+	public long getPublishedMessages() {
+		return published.get();
+	}
+
+	@Override
+	public String toString() {
+		return "PooledPublisher allocated " + allocated.get() + ", recycled " + recycled.get() + ", discarded "
+				+ discarded.get() + ", published " + published.get();
+	}
+}
@@ -0,0 +1,83 @@
+package org.ros2.java.di;
+
+import org.ros2.java.di.internal.PooledRepeaterScheduler;
+import org.ros2.java.di.internal.SimulatedTimeRepeaterScheduler;
+import org.ros2.java.di.internal.ThreadRepeaterScheduler;
+import org.ros2.java.di.internal.VirtualThreadRepeaterScheduler;
+
+/**
+ * Runs the methods annotated with <code>@Repeat</code>. Deadlines are
+ * expressed in {@link System#nanoTime()} so that changes of the wall clock do
+ * not cause bursts or stalls.
+ */
+public interface RepeaterScheduler {
+
+	/**
+	 * Starts calling the task, first time immediately, until it returns a
+	 * negative deadline or the returned handle is cancelled. The task is never
+	 * called concurrently with itself.
+	 */
+	RepeaterHandle start(RepeaterTask task);
+
+	/**
+	 * Stops all repeaters and releases the threads.
+	 */
+	void shutdown();
+
+	/**
+	 * Returns scheduler running repeaters on a fixed pool of platform threads.
+	 */
+	static RepeaterScheduler pooled(int threads) {
+		return new PooledRepeaterScheduler(threads);
+	}
+
+	/**
+	 * Returns scheduler running repeaters on a fixed pool of threads in the
+	 * time of the simulated clock. Deadlines returned by the tasks are
+	 * {@link SimulatedClock#monotonicNanos()} instead of
+	 * {@link System#nanoTime()}.
+	 */
+	static RepeaterScheduler simulated(SimulatedClock clock, int threads) {
+		return new SimulatedTimeRepeaterScheduler(clock, threads);
+	}
+
+	/**
+	 * Returns scheduler running every repeater on its own platform thread,
+	 * in the time of the simulated clock if it is not null.
+	 */
+	static RepeaterScheduler dedicatedThreads(SimulatedClock clock) {
+		return new ThreadRepeaterScheduler(clock);
+	}
+
+	/**
+	 * Returns scheduler running every repeater on its own virtual thread.
+	 * Requires Java 21 or newer.
+	 * 
+	 * @throws UnsupportedOperationException if virtual threads are not available
+	 */
+	static RepeaterScheduler virtualThreads() {
+		return new VirtualThreadRepeaterScheduler();
+	}
+
+	interface RepeaterTask {
+
+		/**
+		 * Calls the repeater once and returns the {@link System#nanoTime()}
+		 * deadline of the next call or a negative value if the repeater is
+		 * finished.
+		 */
+		long run();
+	}
+
+	interface RepeaterHandle {
+
+		/**
+		 * Calls the repeater as soon as possible without waiting for the
+		 * deadline. If the repeater is running it is called again right after.
+		 */
+		void wakeup();
+
+		void cancel();
+	}
+
+}
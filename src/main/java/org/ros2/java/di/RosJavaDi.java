@@ -1,52 +1,80 @@
 package org.ros2.java.di;
 
+import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.lang.reflect.Parameter;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.apache.commons.logging.Log;
+import org.ros2.java.di.RepeaterScheduler.RepeaterHandle;
+import org.ros2.java.di.RepeaterScheduler.RepeaterTask;
+import org.ros2.java.di.annotations.AtomicParameters;
+import org.ros2.java.di.annotations.CallbackGroup;
+import org.ros2.java.di.annotations.CallbackGroupType;
 import org.ros2.java.di.annotations.Init;
 import org.ros2.java.di.annotations.Inject;
 import org.ros2.java.di.annotations.InstanceName;
+import org.ros2.java.di.annotations.IntraProcess;
+import org.ros2.java.di.annotations.OnParameterChange;
 import org.ros2.java.di.annotations.Publish;
 import org.ros2.java.di.annotations.Repeat;
 import org.ros2.java.di.annotations.RosClock;
 import org.ros2.java.di.annotations.Subscribe;
 import org.ros2.java.di.annotations.SystemClock;
 import org.ros2.java.di.exceptions.CreationException;
+import org.ros2.java.di.internal.AsyncLog;
+import org.ros2.java.di.internal.CallbackGroupLock;
+import org.ros2.java.di.internal.CallerLocator;
 import org.ros2.java.di.internal.ClassWithName;
+import org.ros2.java.di.internal.FieldParameterAccessor;
 import org.ros2.java.di.internal.Initializer;
+import org.ros2.java.di.internal.InitializerGraph;
+import org.ros2.java.di.internal.InjectionContext;
+import org.ros2.java.di.internal.Injector;
+import org.ros2.java.di.internal.Injectors;
 import org.ros2.java.di.internal.InstanceWithName;
+import org.ros2.java.di.internal.IntraProcessPublisher;
+import org.ros2.java.di.internal.IntraProcessTopic;
+import org.ros2.java.di.internal.Invokers;
+import org.ros2.java.di.internal.LatchedPublisher;
+import org.ros2.java.di.internal.MessageCopier;
+import org.ros2.java.di.internal.MessageInvoker;
+import org.ros2.java.di.internal.MethodInvoker;
+import org.ros2.java.di.internal.ParameterAccessor;
+import org.ros2.java.di.internal.ParameterChangeInvoker;
+import org.ros2.java.di.internal.ParameterConversions;
+import org.ros2.java.di.internal.ParameterFile;
 import org.ros2.java.di.internal.ParameterReference;
+import org.ros2.java.di.internal.ParameterStore;
 import org.ros2.java.di.internal.Repeater;
 import org.ros2.java.di.internal.RosJavaDiLog;
 import org.ros2.java.di.internal.RosJavaSubscriber;
 import org.ros2.java.di.internal.RosoutPublisher;
-import org.ros2.rcljava.RCLJava;
-import org.ros2.rcljava.executors.SingleThreadedExecutor;
+import org.ros2.java.di.internal.TimeoutWheel;
+import org.ros2.java.di.transport.ParameterListener;
+import org.ros2.java.di.transport.RclJavaTransport;
+import org.ros2.java.di.transport.Transport;
+import org.ros2.rcljava.consumers.Consumer;
 import org.ros2.rcljava.interfaces.MessageDefinition;
-import org.ros2.rcljava.node.BaseComposableNode;
-import org.ros2.rcljava.node.Node;
-import org.ros2.rcljava.parameters.ParameterCallback;
-import org.ros2.rcljava.parameters.ParameterType;
 import org.ros2.rcljava.parameters.ParameterVariant;
-import org.ros2.rcljava.parameters.client.AsyncParametersClientImpl;
-import org.ros2.rcljava.parameters.service.ParameterServiceImpl;
 import org.ros2.rcljava.publisher.Publisher;
-import org.yaml.snakeyaml.Yaml;
 
 import de.cronn.reflection.util.ClassUtils;
 import de.cronn.reflection.util.VoidMethod;
-import rcl_interfaces.msg.SetParametersResult;
 
 public class RosJavaDi {
 
@@ -56,33 +84,58 @@ public class RosJavaDi {
 	private String name;
 	private HashMap<String, String> parameters = new HashMap<>();
 	private HashMap<String, String> specialParameters = new HashMap<>();
+	private ParameterStore parameterFile;
 	private HashMap<String, String> remappings = new HashMap<>();
 
 	private Object monitor = new Object();
 	private Clock clock = new Clock();
+	private Clock rosClock = clock;
+	private boolean subscribeClock;
 
 	private ArrayList<Initializer> initializers = new ArrayList<>();
 	private ArrayList<Repeater> repeaters = new ArrayList<>();
-	private HashMap<InstanceWithName, Thread> repeatersMap = new HashMap<>();
+	private HashMap<InstanceWithName, Repeater> repeatersMap = new HashMap<>();
+	private RepeaterScheduler repeaterScheduler;
+	private RepeaterScheduler dedicatedScheduler;
+	private boolean sharedExecution;
 	private ArrayList<RosJavaSubscriber<?>> subscribers = new ArrayList<>();
+	private HashMap<String, IntraProcessTopic> intraProcessTopics = new HashMap<>();
+	private List<LatchedPublisher> latchedPublishers = new ArrayList<>();
+	private TimeoutWheel timeoutWheel;
+	private HashMap<String, CallbackGroupLock> callbackGroups = new HashMap<>();
+	private CallbackGroupLock defaultCallbackGroup = new CallbackGroupLock("",
+			CallbackGroupType.MUTUALLY_EXCLUSIVE);
 	private ArrayList<ParameterReference> parameterReferences = new ArrayList<>();
 	private HashMap<String, ParameterReference> parameterReferenceMap = new HashMap<>();
+	private IdentityHashMap<Object, ParameterGroup> parameterGroups = new IdentityHashMap<>();
 
 	private HashMap<ClassWithName, Object> instanceMap = new HashMap<>();
 	private ArrayList<InstanceWithName> instancesToInjectList = new ArrayList<>();
 
-	private long contextHandle;
-	private SingleThreadedExecutor executor;
-	private BaseComposableNode composablenode;
-	private Node node;
-	@SuppressWarnings("unused")
-	private ParameterServiceImpl parametersService;
-	private AsyncParametersClientImpl asyncParametersClient;
+	private Transport transport;
+	private int executorThreads = 1;
+	private int initializerThreads = 1;
+	private InitializerGraph initializerGraph = new InitializerGraph(LOG);
+	private Object injectedObject;
+	private RosoutPublisher rosoutPublisher;
+	private long metricsReportMillis;
+	private RepeaterHandle metricsReport;
 
-	private Yaml yaml = new Yaml();
+
+	private InjectionContext context = new Context();
 
 	public RosJavaDi(String name, String[] args) throws Exception {
+		this(name, args, new RclJavaTransport(name, args));
+	}
+
+	/**
+	 * Creates node on the given transport, for example a
+	 * {@link org.ros2.java.di.transport.LoopbackTransport} to run without the
+	 * native ROS 2 stack.
+	 */
+	public RosJavaDi(String name, String[] args, Transport transport) throws Exception {
 		this.name = name;
+		this.transport = transport;
 		for (int i = 0; i < args.length; i++) {
 			if (!args[i].contains(":=")) {
 				continue;
@@ -104,14 +157,23 @@ public class RosJavaDi {
 				remappings.put(graphNameOf("", remappingName), graphNameOf("", remappingValue));
 			}
 		}
-		contextHandle = RCLJava.rclJavaInit(args);
-		executor = new SingleThreadedExecutor();
-		composablenode = new BaseComposableNode(name, args, true, contextHandle);
-		node = composablenode.getNode();
-		parametersService = new ParameterServiceImpl(composablenode.getNode());
-		asyncParametersClient = new AsyncParametersClientImpl(composablenode.getNode(), contextHandle);
-		// create logging publisher
-		ROSOUT_PUBLISHER.set(new RosoutPublisher(node, clock));
+		// parameter file, read lazily for the parameters the components declare
+		String parameterFileName = specialParameters.get("params");
+		if (parameterFileName != null) {
+			parameterFile = ParameterFile.load(parameterFileName, specialParameters.get("params_cache"), name);
+		}
+
+		// simulated time from the /clock topic
+		if (useSimTime()) {
+			rosClock = new SimulatedClock();
+			subscribeClock = true;
+		}
+
+		// create logging publisher, the first node also takes logs of static loggers of classes no node created
+		if (transport.supportsRosout()) {
+			rosoutPublisher = new RosoutPublisher(transport, rosClock);
+			ROSOUT_PUBLISHER.compareAndSet(null, rosoutPublisher);
+		}
 
 		// add all parameters to node
 		ArrayList<ParameterVariant> parameterVariants = new ArrayList<>();
@@ -119,86 +181,301 @@ public class RosJavaDi {
 		for (Entry<String, String> parameter : parameters.entrySet()) {
 			parameterVariants.add(new ParameterVariant(parameter.getKey(), parameter.getValue()));
 		}
-		node.setParameters(parameterVariants);
+		transport.setParameters(parameterVariants);
 	}
 	
 	public String getName() {
 		return name;
 	}
 
+	private boolean useSimTime() {
+		String useSimTime = parameters.get(graphNameOf("", "use_sim_time"));
+		if (useSimTime != null) {
+			return Boolean.parseBoolean(useSimTime);
+		}
+		ParameterVariant variant = parameterFile != null ? parameterFile.get(graphNameOf("", "use_sim_time")) : null;
+		return variant != null && (Boolean) ParameterConversions.converterFor(boolean.class).fromVariant(variant);
+	}
+
+	public Transport getTransport() {
+		return transport;
+	}
+
+	/**
+	 * Returns clock injected with <code>@RosClock</code>, which is the system
+	 * clock unless the node uses simulated time.
+	 */
+	public Clock getRosClock() {
+		return rosClock;
+	}
+
+	/**
+	 * Drives ROS time of this node by the given clock instead of the system
+	 * clock or the /clock topic. Repeaters, subscriber timeouts, /rosout stamps
+	 * and fields annotated with <code>@RosClock</code> follow it. Must be
+	 * called before creating components.
+	 */
+	public void useSimulatedClock(SimulatedClock simulatedClock) {
+		rosClock = simulatedClock;
+		subscribeClock = false;
+		if (rosoutPublisher != null) {
+			rosoutPublisher.setClock(simulatedClock);
+		}
+	}
+
+	/**
+	 * Sets the scheduler running the repeaters, must be called before start.
+	 * By default repeaters share a pool with one thread per processor, but at
+	 * least two. The scheduler is shut down together with this instance.
+	 * Repeaters without delay and interval, or with
+	 * <code>dedicatedThread = true</code>, always run on their own thread.
+	 */
+	public void setRepeaterScheduler(RepeaterScheduler repeaterScheduler) {
+		this.repeaterScheduler = repeaterScheduler;
+	}
+
+	/**
+	 * Sets number of threads spinning the node, must be called before start.
+	 * With more than one thread subscribers without a queue are called in
+	 * parallel, unless they share a mutually exclusive callback group.
+	 * Subscribers without a queue and without a group belong to the default
+	 * mutually exclusive group.
+	 */
+	public void setExecutorThreads(int executorThreads) {
+		if (executorThreads <= 0) {
+			throw new IllegalArgumentException("Number of executor threads must be positive, was " + executorThreads);
+		}
+		this.executorThreads = executorThreads;
+	}
+
+	/**
+	 * Sets number of threads calling the <code>@Init</code> methods, must be
+	 * called before start. A component is always initialized after the
+	 * components it injects, with more than one thread components that do not
+	 * depend on each other are initialized in parallel.
+	 */
+	public void setInitializerThreads(int initializerThreads) {
+		if (initializerThreads <= 0) {
+			throw new IllegalArgumentException(
+					"Number of initializer threads must be positive, was " + initializerThreads);
+		}
+		this.initializerThreads = initializerThreads;
+	}
+
+	/**
+	 * Makes the node log the metrics of its callbacks with the given period,
+	 * which sends them to /rosout. Must be called before start, zero turns
+	 * the report off.
+	 */
+	public void setMetricsReportInterval(long periodMillis) {
+		if (periodMillis < 0) {
+			throw new IllegalArgumentException("Metrics report interval must not be negative, was " + periodMillis);
+		}
+		this.metricsReportMillis = periodMillis;
+	}
+
+	/**
+	 * Returns metrics of all subscribers, repeaters and initializers of this
+	 * node. The returned objects are updated as the node runs.
+	 */
+	public List<CallbackMetrics> getCallbackMetrics() {
+		ArrayList<CallbackMetrics> metrics = new ArrayList<>();
+		synchronized (monitor) {
+			for (RosJavaSubscriber<?> subscriber : subscribers) {
+				metrics.add(subscriber.getMetrics());
+			}
+			for (Repeater repeater : repeaters) {
+				metrics.add(repeater.metrics);
+			}
+			for (Initializer initializer : initializers) {
+				metrics.add(initializer.metrics);
+			}
+		}
+		return metrics;
+	}
+
 	public void start() throws NoSuchFieldException, IllegalAccessException, CreationException {
 		// add rosjavadi instance
 		instanceMap.put(new ClassWithName(this.getClass(), ""), this);
 		instancesToInjectList.add(new InstanceWithName(this, ""));
 
-		// inject dependencies
+		// inject dependencies, then order the initializers by them
 		injectDependencies();
+		initializerGraph.resolve(initializers);
 
 		// get all the parameters
-		for (ParameterReference ref : parameterReferences) {
-			processParameterReference(ref);
-		}
+		resolveParameters();
+		startParameterGroups();
 
 		// add callback on parameter change
 		registerParameterChangeCallback();
 
 		// start all initializers
-		for (Initializer initializer : initializers) {
-			try {
-				initializer.method.invoke(initializer.object);
-			} catch (Throwable e) {
-				LOG.error("Exception caught while calling node initializer " + initializer.method.toGenericString(), e);
-			}
+		try {
+			initializerGraph.run(initializerThreads);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CreationException("Interrupted while waiting for initializers", e);
+		}
+
+		// follow the simulated time
+		if (subscribeClock) {
+			subscribeClock();
 		}
 
-		// start all repeaters
+		// start all repeaters, with simulated time they run on its updates
+		if (repeaterScheduler == null) {
+			int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+			if (rosClock instanceof SimulatedClock) {
+				repeaterScheduler = RepeaterScheduler.simulated((SimulatedClock) rosClock, threads);
+			} else {
+				repeaterScheduler = RepeaterScheduler.pooled(threads);
+			}
+		}
+		if (timeoutWheel == null) {
+			timeoutWheel = new TimeoutWheel(rosClock);
+		}
 		for (Repeater repeater : repeaters) {
 			startRepeater(repeater);
 		}
+		if (metricsReportMillis > 0) {
+			startMetricsReport();
+		}
 
 		// register all the subscribers
 		for (RosJavaSubscriber<?> subscriber : subscribers) {
-			subscriber.start();
+			subscriber.start(timeoutWheel);
+			IntraProcessTopic topic = intraProcessTopics.get(subscriber.getTopicName());
+			if (topic != null && !topic.type.equals(subscriber.getTopicType())) {
+				throw new CreationException("Subscriber at " + subscriber.getDescription() + " expects "
+						+ subscriber.getTopicType().getName() + " but intra-process publishers of topic "
+						+ topic.name + " publish " + topic.type.getName());
+			}
+			// without skipping its own messages on the transport the subscriber would get them twice
+			boolean intraProcess = topic != null && transport.canIgnoreLocalPublications();
+			if (intraProcess || !transport.supportsLatching()) {
+				replayLatched(subscriber);
+			}
+			if (!intraProcess) {
+				if (topic != null) {
+					topic.transportSubscribers = true;
+					LOG.warn("Transport cannot skip its own messages, subscriber at " + subscriber.getDescription()
+							+ " receives messages of intra-process publishers on " + topic.name
+							+ " through the transport");
+				}
+				subscriber.subscribe(false);
+				continue;
+			}
+			topic.subscribers.add(subscriber);
+			subscriber.subscribe(true);
 		}
 
 		// start spinning the node
-		executor.addNode(composablenode);
-		new Thread(() -> {
-			while (RCLJava.ok(contextHandle)) {
-				try {
-					executor.spinOnce();
-				} catch (Throwable t) {
-					LOG.error("Exception in executor.spinOnce()", t);
-				}
+		transport.start(executorThreads);
+	}
+
+	/**
+	 * Delivers the last messages of latched publishers of this node that the
+	 * transport does not replay to the subscriber itself.
+	 */
+	@SuppressWarnings("unchecked")
+	private void replayLatched(RosJavaSubscriber<?> subscriber) {
+		for (LatchedPublisher publisher : latchedPublishers) {
+			MessageDefinition message = publisher.getLastMessage();
+			if (message != null && publisher.topicName.equals(subscriber.getTopicName())
+					&& subscriber.getTopicType().isInstance(message)) {
+				((RosJavaSubscriber<MessageDefinition>) subscriber)
+						.handleMessage(publisher.shared ? message : MessageCopier.copy(message));
 			}
-		}).start();
+		}
 	}
 
 	public void shutdown() {
-		RCLJava.shutdown(contextHandle);
+		transport.shutdown();
 
-		executor.removeNode(composablenode);
+		if (metricsReport != null) {
+			metricsReport.cancel();
+		}
 
 		// shutdown all repeaters
 		for (Repeater repeater : repeaters) {
 			repeater.shutdown();
 		}
+		if (repeaterScheduler != null && !sharedExecution) {
+			repeaterScheduler.shutdown();
+		}
+		if (dedicatedScheduler != null) {
+			dedicatedScheduler.shutdown();
+		}
 
 		// shutdown all subscribers
 		for (RosJavaSubscriber<?> subscriber : subscribers) {
 			subscriber.shutdown();
 		}
+		if (timeoutWheel != null && !sharedExecution) {
+			timeoutWheel.shutdown();
+		}
+
+		if (rosoutPublisher != null) {
+			rosoutPublisher.unregister();
+		}
+	}
+
+	/**
+	 * Makes the node use the repeater scheduler and timeout wheel of its
+	 * container, which shuts them down. A node following other time than the
+	 * container keeps its own.
+	 */
+	void shareExecution(RepeaterScheduler repeaterScheduler, TimeoutWheel timeoutWheel,
+			SimulatedClock simulatedClock) {
+		if (simulatedClock == null ? rosClock instanceof SimulatedClock : rosClock != simulatedClock) {
+			LOG.info("Node " + name + " has its own simulated time, not sharing the repeater threads");
+			return;
+		}
+		this.repeaterScheduler = repeaterScheduler;
+		this.timeoutWheel = timeoutWheel;
+		this.sharedExecution = true;
+	}
+
+	/**
+	 * Switches all RosJavaDi loggers to asynchronous mode, where the calling
+	 * thread only puts the event into a buffer and a background thread writes
+	 * and publishes it. Events that do not fit into the buffer are dropped.
+	 * The caller is only logged on Java 9 or newer, where finding it does not
+	 * need a stack trace.
+	 */
+	public static void setAsyncLogging(boolean enabled) {
+		RosJavaDiLog.setAsync(enabled, AsyncLog.DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Returns number of log events dropped in asynchronous mode.
+	 */
+	public static long getDroppedLogEvents() {
+		return RosJavaDiLog.getDroppedEvents();
 	}
 
 	/**
-	 * Returns logger wrapped with /rosout log publisher.
+	 * Returns logger publishing to /rosout of this node, like the loggers
+	 * injected into fields of type LogSeldom or Log with <code>@Inject</code>.
+	 */
+	public LogSeldom getNodeLog(Class<?> clazz) {
+		return new RosJavaDiLog(clazz, rosoutPublisher);
+	}
+
+	/**
+	 * Returns logger wrapped with /rosout log publisher, the one of the node
+	 * that created the class of the given name, or of the first node for
+	 * other names.
 	 */
 	public static LogSeldom getLog(String name) {
 		return new RosJavaDiLog(name);
 	}
 
 	/**
-	 * Returns logger wrapped with /rosout log publisher.
+	 * Returns logger wrapped with /rosout log publisher, the one of the node
+	 * that created the class, or the class it is nested in, or of the first
+	 * node when no node created it.
 	 */
 	public static LogSeldom getLog(Class<?> clazz) {
 		return new RosJavaDiLog(clazz);
@@ -206,14 +483,12 @@ public class RosJavaDi {
 
 	/**
 	 * Returns logger wrapped with /rosout log publisher that gets caller class
-	 * name.
+	 * name, publishing like {@link #getLog(Class)} for the caller class.
 	 */
 	public static LogSeldom getLog() {
-		Throwable dummyException = new Throwable();
-		StackTraceElement[] locations = dummyException.getStackTrace();
+		StackTraceElement caller = CallerLocator.caller(1);
 		String cname = "unknown";
-		if (locations != null && locations.length > 1) {
-			StackTraceElement caller = locations[1];
+		if (caller != null) {
 			cname = caller.getClassName();
 		}
 		return new RosJavaDiLog(cname);
@@ -244,38 +519,52 @@ public class RosJavaDi {
 	 * connectToRemoteMaster to be called before.
 	 */
 	public <T> T inject(T object, String instanceName) throws CreationException {
-		Class<?> clazz = object.getClass();
-		try {
-			// for each field
-			for (Field field : clazz.getDeclaredFields()) {
-				injectClock(field, object);
-				injectInstanceName(field, object, instanceName);
-				collectParameters(field, object, instanceName);
-				injectPublishers(field, object, instanceName);
-			}
+		@SuppressWarnings("unchecked")
+		Class<T> clazz = (Class<T>) object.getClass();
+		Injector<T> injector = Injectors.injectorFor(clazz);
+		if (injector != null) {
+			// use injector generated at compile time
+			injector.inject(object, instanceName, context);
+		} else {
+			try {
+				// for each field
+				for (Field field : clazz.getDeclaredFields()) {
+					injectClock(field, object);
+					injectInstanceName(field, object, instanceName);
+					collectParameters(field, object, instanceName);
+					injectAtomicParameters(field, object);
+					injectPublishers(field, object, instanceName);
+				}
 
-			// for each method
-			for (Method method : clazz.getDeclaredMethods()) {
-				collectInitializers(method, object);
-				collectRepeaters(method, object);
-				createSubscribers(method, object, instanceName);
+				// for each method
+				for (Method method : clazz.getDeclaredMethods()) {
+					collectInitializers(method, object);
+					collectParameterChangeListeners(method, object);
+					collectRepeaters(method, object);
+					createSubscribers(method, object, instanceName);
+				}
+			} catch (IllegalAccessException e) {
+				throw new CreationException("Exception while creating " + clazz.toString(), e);
 			}
+		}
 
-			// cache the instances for dependency injection
-			instanceMap.put(new ClassWithName(object.getClass(), instanceName), object);
-			instancesToInjectList.add(new InstanceWithName(object, instanceName));
-		} catch (IllegalAccessException e) {
-			throw new CreationException("Exception while creating " + clazz.toString(), e);
+		// static loggers of the class log to this node
+		if (rosoutPublisher != null) {
+			rosoutPublisher.addComponentClass(clazz);
 		}
+
+		// cache the instances for dependency injection
+		instanceMap.put(new ClassWithName(object.getClass(), instanceName), object);
+		instancesToInjectList.add(new InstanceWithName(object, instanceName));
 		return object;
 	}
 
 	public void wakeupRepeater(Object object, String methodName) {
-		Thread thread = repeatersMap.get(new InstanceWithName(object, methodName));
-		if (thread == null) {
+		Repeater repeater = repeatersMap.get(new InstanceWithName(object, methodName));
+		if (repeater == null) {
 			LOG.errorSeldom("Cannot wakeup repeater " + object.getClass().getCanonicalName() + " " + methodName);
 		} else {
-			thread.interrupt();
+			repeater.handle.wakeup();
 		}
 	}
 
@@ -285,81 +574,113 @@ public class RosJavaDi {
 	}
 
 	public <T extends MessageDefinition> Publisher<T> createPublisher(String topicName, Class<? extends MessageDefinition> topicType) {
-		return (Publisher<T>) node.createPublisher(topicType, topicName);
+		return (Publisher<T>) transport.createPublisher(topicType, topicName);
 	}
 	
 	private void registerParameterChangeCallback() {
-		node.setParameterChangeCallback(new ParameterCallback() {
+		transport.setParameterListener(new ParameterListener() {
 			@Override
-			public SetParametersResult onParamChange(List<ParameterVariant> parameters) {
+			public boolean onParametersChanged(List<ParameterVariant> parameters) {
 				try {
+					// changes of components with snapshots, applied once all are converted
+					IdentityHashMap<ParameterGroup, LinkedHashMap<String, Object>> changes = new IdentityHashMap<>();
 					for (ParameterVariant parameter : parameters) {
 						LOG.info("Parameter callback: " + parameter.getName() + " " + parameter.getTypeName() + " "
 								+ parameter.getValueAsString() + " " + parameter.getType().toString());
 						ParameterReference ref = parameterReferenceMap.get(parameter.getName());
 						if (ref == null) {
 							LOG.warn("Unknown parameter: " + parameter.toString());
-						} else {
-							setParameterValueFromServer(ref.object, ref.field, parameter);
+							continue;
+						}
+						Object value = setParameterValueFromServer(ref, parameter);
+						ParameterGroup group = parameterGroups.get(ref.object);
+						if (group != null && value != ParameterConversions.UNSUPPORTED) {
+							LinkedHashMap<String, Object> groupChanges = changes.get(group);
+							if (groupChanges == null) {
+								groupChanges = new LinkedHashMap<>();
+								changes.put(group, groupChanges);
+							}
+							groupChanges.put(ref.fieldName, value);
 						}
 					}
-					SetParametersResult result = new SetParametersResult();
-					result.setSuccessful(true);
-					return result;
+					for (Entry<ParameterGroup, LinkedHashMap<String, Object>> change : changes.entrySet()) {
+						change.getKey().apply(change.getValue());
+					}
+					return true;
 				} catch (Throwable t) {
 					LOG.warn("Exception in parameter callback", t);
-					SetParametersResult result = new SetParametersResult();
-					result.setSuccessful(false);
-					return result;
+					return false;
 				}
 			}
 		});
 	}
 
-	private void startRepeater(Repeater repeater) {
-		Object object = repeater.object;
-		Method method = repeater.method;
-		Repeat repeat = repeater.repeat;
-		boolean isDelay = repeat.delay() != 0;
-		boolean isInterval = repeat.interval() != 0;
-		repeater.thread = new Thread(new Runnable() {
+	private void startMetricsReport() {
+		long periodNanoseconds = TimeUnit.MILLISECONDS.toNanos(metricsReportMillis);
+		metricsReport = repeaterScheduler.start(new RepeaterTask() {
+			private boolean first = true;
+
 			@Override
-			public void run() {
-				int count = 0;
-				long start = System.currentTimeMillis();
-				while ((repeat.count() == 0 || count < repeat.count()) && !repeater.shutdown) {
-					count++;
-					try {
-						Object result = method.invoke(object);
-
-						// Check if it returned false
-						if (result != null) {
-							if (!(Boolean) result) {
-								break;
-							}
-						}
-					} catch (Throwable e) {
-						LOG.error("Exception caught while calling repeater " + method.toGenericString(), e);
-					}
-					try {
-						if (isDelay) {
-							Thread.sleep(repeat.delay());
-						} else if (isInterval) {
-							long now = System.currentTimeMillis();
-							long sleep = repeat.interval() - (now - start);
-							start += repeat.interval();
-							if (sleep > 0) {
-								Thread.sleep(sleep);
-							}
-						}
-					} catch (InterruptedException ie) {
-						// do nothing
-					}
+			public long run() {
+				if (first) {
+					first = false;
+				} else {
+					reportMetrics();
 				}
+				return rosClock.monotonicNanos() + periodNanoseconds;
+			}
+		});
+	}
+
+	/**
+	 * Logs the callbacks that were called, the ones taking most time first.
+	 */
+	private void reportMetrics() {
+		List<CallbackMetrics> metrics = getCallbackMetrics();
+		metrics.sort(new Comparator<CallbackMetrics>() {
+			@Override
+			public int compare(CallbackMetrics a, CallbackMetrics b) {
+				return Long.compare(b.getLatency().getTotalNanos(), a.getLatency().getTotalNanos());
 			}
 		});
-		repeater.thread.start();
-		repeatersMap.put(new InstanceWithName(repeater.object, repeater.method.getName()), repeater.thread);
+		StringBuilder report = new StringBuilder("Callback metrics of node " + name);
+		for (CallbackMetrics callback : metrics) {
+			if (callback.getInvocations() != 0 || callback.getDroppedMessages() != 0) {
+				report.append('\n').append(callback);
+			}
+		}
+		LOG.info(report);
+	}
+
+	/**
+	 * Subscribes to /clock, which every transport can do, unlike creating the
+	 * messages: the loopback transport receives the ones published on its bus.
+	 */
+	private void subscribeClock() {
+		SimulatedClock simulatedClock = (SimulatedClock) rosClock;
+		transport.createSubscription(rosgraph_msgs.msg.Clock.class, "/clock",
+				new Consumer<rosgraph_msgs.msg.Clock>() {
+					@Override
+					public void accept(rosgraph_msgs.msg.Clock message) {
+						simulatedClock.setTime(message.getClock());
+					}
+				}, false);
+	}
+
+	private void startRepeater(Repeater repeater) {
+		repeater.clock = rosClock;
+		Repeat repeat = repeater.repeat;
+		if (repeat.dedicatedThread() || (repeat.delay() == 0 && repeat.interval() == 0)) {
+			// blocking and looping repeaters would hold a thread of the shared pool
+			if (dedicatedScheduler == null) {
+				dedicatedScheduler = RepeaterScheduler.dedicatedThreads(
+						rosClock instanceof SimulatedClock ? (SimulatedClock) rosClock : null);
+			}
+			repeater.handle = dedicatedScheduler.start(repeater);
+		} else {
+			repeater.handle = repeaterScheduler.start(repeater);
+		}
+		repeatersMap.put(new InstanceWithName(repeater.object, repeater.name), repeater);
 	}
 
 	private <T> void injectPublishers(Field field, T object, String instanceName)
@@ -368,7 +689,7 @@ public class RosJavaDi {
 		if (publish != null) {
 			makeAccessible(field);
 
-			Publisher<?> publisher = createPublisher(publish, field, instanceName);
+			Object publisher = createPublisher(publish, field, instanceName);
 			field.set(object, publisher);
 		}
 	}
@@ -380,141 +701,158 @@ public class RosJavaDi {
 		if (parameter != null) {
 			makeAccessible(field);
 
-			String parameterName = graphNameOf(instanceName, parameter.value());
-			ParameterReference ref = new ParameterReference(parameterName, object, field); 
+			addParameter(parameter, instanceName, object, field.getType(), field.getName(),
+					new FieldParameterAccessor(object, field));
+		}
+	}
+
+	private void addParameter(org.ros2.java.di.annotations.Parameter parameter, String instanceName, Object object,
+			Class<?> type, String fieldName, ParameterAccessor accessor) {
+		String parameterName = graphNameOf(instanceName, parameter.value());
+		ParameterReference ref = new ParameterReference(parameterName, object, type, fieldName, accessor,
+				ParameterConversions.converterFor(type));
+		synchronized (monitor) {
 			parameterReferences.add(ref);
 			parameterReferenceMap.put(ref.parameterName, ref);
 		}
 	}
 
-	private void processParameterReference(ParameterReference ref) {
-		ArrayList<String> params = new ArrayList<>();
-		params.add(ref.parameterName);
-		ParameterVariant variant = null;
-		List<ParameterVariant> variants = node.getParameters(params);
-		if (variants.isEmpty()) {
-			LOG.info("Unset parameter: " + ref.parameterName  + ", getting default value");
-		} else {
-			variant = variants.get(0);
+	/**
+	 * Gets values of all parameters in one request and publishes values from
+	 * the parameter file or defaults of the unset ones in another, instead of
+	 * a round trip per parameter.
+	 */
+	private void resolveParameters() {
+		LinkedHashSet<String> names = new LinkedHashSet<>();
+		for (ParameterReference ref : parameterReferences) {
+			names.add(ref.parameterName);
 		}
-		if (variant == null) {
-			publishParameter(ref.object, ref.field, ref.parameterName);
-		} else {
-			setParameterValueFromServer(ref.object, ref.field, variant);
+		if (names.isEmpty()) {
+			return;
 		}
-	}
-
-	private <T> void publishParameter(T object, Field field, String parameterName) {
-		try {
-			Object value = field.get(object);
-			Class<?> type = field.getType();
-
-			if (Boolean.class.isAssignableFrom(type) || boolean.class.isAssignableFrom(type)) {
-				if (value != null) {
-					node.setParameters(
-							Arrays.<ParameterVariant>asList(new ParameterVariant(parameterName, (Boolean) value)));
-				} else {
-					node.setParameters(Arrays.<ParameterVariant>asList(new ParameterVariant(parameterName, "")));
-				}
-			} else if (Integer.class.isAssignableFrom(type) || int.class.isAssignableFrom(type)) {
-				if (value != null) {
-					node.setParameters(
-							Arrays.<ParameterVariant>asList(new ParameterVariant(parameterName, (Integer) value)));
-				} else {
-					node.setParameters(Arrays.<ParameterVariant>asList(new ParameterVariant(parameterName, "")));
-				}
-			} else if (Double.class.isAssignableFrom(type) || double.class.isAssignableFrom(type)) {
-				if (value != null) {
-					node.setParameters(
-							Arrays.<ParameterVariant>asList(new ParameterVariant(parameterName, (Double) value)));
-				} else {
-					node.setParameters(Arrays.<ParameterVariant>asList(new ParameterVariant(parameterName, "")));
-				}
-			} else if (List.class.isAssignableFrom(type)) {
-				if (value != null) {
-					node.setParameters(
-							Arrays.<ParameterVariant>asList(new ParameterVariant(parameterName, yaml.dump(value))));
-				} else {
-					node.setParameters(Arrays.<ParameterVariant>asList(new ParameterVariant(parameterName, "[]")));
-				}
-			} else if (Map.class.isAssignableFrom(type)) {
-				if (value != null) {
-					node.setParameters(
-							Arrays.<ParameterVariant>asList(new ParameterVariant(parameterName, yaml.dump(value))));
-				} else {
-					node.setParameters(Arrays.<ParameterVariant>asList(new ParameterVariant(parameterName, "{}")));
+		HashMap<String, ParameterVariant> variants = new HashMap<>();
+		for (ParameterVariant variant : transport.getParameters(new ArrayList<>(names))) {
+			variants.put(variant.getName(), variant);
+		}
+		ArrayList<ParameterVariant> defaults = new ArrayList<>();
+		if (parameterFile != null) {
+			for (String name : names) {
+				if (!variants.containsKey(name)) {
+					ParameterVariant variant = parameterFile.get(name);
+					if (variant != null) {
+						variants.put(name, variant);
+						defaults.add(variant);
+					}
 				}
-			} else { // if (String.class.isAssignableFrom(type)) {
-				if (value != null) {
-					node.setParameters(
-							Arrays.<ParameterVariant>asList(new ParameterVariant(parameterName, value.toString())));
-				} else {
-					node.setParameters(Arrays.<ParameterVariant>asList(new ParameterVariant(parameterName, "")));
+			}
+		}
+		for (ParameterReference ref : parameterReferences) {
+			ParameterVariant variant = variants.get(ref.parameterName);
+			if (variant != null) {
+				setParameterValueFromServer(ref, variant);
+			} else if (names.remove(ref.parameterName)) {
+				// the first field with the name provides the default
+				LOG.info("Unset parameter: " + ref.parameterName + ", getting default value");
+				try {
+					defaults.add(ref.converter.toVariant(ref.parameterName, ref.accessor.get()));
+				} catch (IllegalArgumentException | IllegalAccessException e) {
+					LOG.info("Error getting parameter value: " + ref.parameterName, e);
 				}
 			}
-		} catch (IllegalArgumentException | IllegalAccessException e) {
-			LOG.info("Error getting parameter value: " + parameterName, e);
+		}
+		if (!defaults.isEmpty()) {
+			transport.setParameters(defaults);
 		}
 	}
 
-	private <T> void setParameterValueFromServer(T object, Field field, ParameterVariant variant) {
-		Class<?> type = field.getType();
+	/**
+	 * Sets the field to the converted value and returns it, or
+	 * {@link ParameterConversions#UNSUPPORTED} if the field was left unchanged.
+	 */
+	private Object setParameterValueFromServer(ParameterReference ref, ParameterVariant variant) {
+		Class<?> type = ref.type;
 		try {
-			if (Boolean.class.isAssignableFrom(type) || boolean.class.isAssignableFrom(type)) {
-				if (variant.getType() == ParameterType.PARAMETER_STRING) {
-					field.set(object, Boolean.parseBoolean(variant.asString()));
-				} else {
-					field.set(object, variant.asBool());
-				}
-			} else if (Integer.class.isAssignableFrom(type) || int.class.isAssignableFrom(type)) {
-				if (variant.getType() == ParameterType.PARAMETER_STRING) {
-					field.set(object, (int) Double.parseDouble(variant.asString()));
-				} else if (variant.getType() == ParameterType.PARAMETER_DOUBLE) {
-					field.set(object, (int) variant.asDouble());
-				} else {
-					field.set(object, (int) variant.asInt());
-				}
-			} else if (Double.class.isAssignableFrom(type) || double.class.isAssignableFrom(type)) {
-				if (variant.getType() == ParameterType.PARAMETER_STRING) {
-					field.set(object, Double.parseDouble(variant.asString()));
-				} else if (variant.getType() == ParameterType.PARAMETER_INTEGER) {
-					field.set(object, (double) variant.asInt());
-				} else {
-					field.set(object, variant.asDouble());
-				}
-			} else if (String.class.isAssignableFrom(type)) {
-				if (variant.getType() == ParameterType.PARAMETER_INTEGER) {
-					field.set(object, Long.toString(variant.asInt()));
-				} else if (variant.getType() == ParameterType.PARAMETER_DOUBLE) {
-					field.set(object, Double.toString(variant.asDouble()));
-				} else if (variant.getType() == ParameterType.PARAMETER_BOOL) {
-					field.set(object, Boolean.toString(variant.asBool()));
-				} else {
-					field.set(object, variant.asString());
-				}
-			} else if (List.class.isAssignableFrom(type)) {
-				field.set(object, yaml.loadAs(variant.asString(), ArrayList.class));
-			} else if (Map.class.isAssignableFrom(type)) {
-				field.set(object, yaml.loadAs(variant.asString(), HashMap.class));
+			Object value = ref.converter.fromVariant(variant);
+			if (value != ParameterConversions.UNSUPPORTED) {
+				ref.accessor.set(value);
 			}
+			return value;
 		} catch (NumberFormatException e) {
-			LOG.error("Cannot set parameter " + field.getName() + " in " + object.getClass().getCanonicalName()
+			LOG.error("Cannot set parameter " + ref.fieldName + " in " + ref.object.getClass().getCanonicalName()
 					+ ", wrong number format " + type + ", parameter: " + variant.getValueAsString() + " "
 					+ variant.getTypeName(), e);
 		} catch (IllegalArgumentException e) {
-			LOG.error("Cannot set parameter " + field.getName() + " in " + object.getClass().getCanonicalName()
+			LOG.error("Cannot set parameter " + ref.fieldName + " in " + ref.object.getClass().getCanonicalName()
 					+ ", incompatible types " + type + ", parameter: " + variant.getValueAsString() + " "
 					+ variant.getTypeName() + ", for exmple consider maing it a List not an ArrayList", e);
 		} catch (ClassCastException e) {
-			LOG.error("Cannot set parameter " + field.getName() + " in " + object.getClass().getCanonicalName()
+			LOG.error("Cannot set parameter " + ref.fieldName + " in " + ref.object.getClass().getCanonicalName()
 					+ ", incompatible types " + type + ", parameter: " + variant.getValueAsString() + " "
 					+ variant.getTypeName() + ", for example consider maing it a List not an ArrayList", e);
 		} catch (IllegalAccessException e) {
-			LOG.error("Cannot set parameter " + field.getName() + " in " + object.getClass().getCanonicalName()
+			LOG.error("Cannot set parameter " + ref.fieldName + " in " + ref.object.getClass().getCanonicalName()
 					+ ", illegal access " + type + ", parameter: " + variant.getValueAsString() + " "
 					+ variant.getTypeName(), e);
 		}
+		return ParameterConversions.UNSUPPORTED;
+	}
+
+	/**
+	 * Publishes the first snapshot of every component with atomic parameters
+	 * or parameter change listeners, once all parameters are resolved.
+	 */
+	private void startParameterGroups() {
+		if (parameterGroups.isEmpty()) {
+			return;
+		}
+		for (ParameterReference ref : parameterReferences) {
+			ParameterGroup group = parameterGroups.get(ref.object);
+			if (group != null) {
+				group.references.add(ref);
+			}
+		}
+		for (ParameterGroup group : parameterGroups.values()) {
+			group.start();
+		}
+	}
 
+	private ParameterGroup parameterGroup(Object object) {
+		synchronized (monitor) {
+			ParameterGroup group = parameterGroups.get(object);
+			if (group == null) {
+				group = new ParameterGroup(object);
+				parameterGroups.put(object, group);
+			}
+			return group;
+		}
+	}
+
+	private <T> void injectAtomicParameters(Field field, T object) throws IllegalAccessException, CreationException {
+		AtomicParameters atomicParameters = field.getAnnotation(AtomicParameters.class);
+		if (atomicParameters != null) {
+			if (field.getType() != Parameters.class) {
+				throw new CreationException("Field " + field.toGenericString()
+						+ " annotated with @AtomicParameters must be of type " + Parameters.class.getName());
+			}
+			makeAccessible(field);
+			field.set(object, parameterGroup(object).parameters);
+		}
+	}
+
+	private <T> void collectParameterChangeListeners(Method method, T object) throws CreationException {
+		OnParameterChange onParameterChange = method.getAnnotation(OnParameterChange.class);
+		if (onParameterChange != null) {
+			addParameterChangeListener(onParameterChange, object, method.toGenericString(),
+					Invokers.parameterChangeInvoker(object, method));
+		}
+	}
+
+	private void addParameterChangeListener(OnParameterChange onParameterChange, Object object, String description,
+			ParameterChangeInvoker invoker) {
+		ParameterGroup group = parameterGroup(object);
+		synchronized (monitor) {
+			group.listeners.add(new ParameterChangeListener(description, invoker));
+		}
 	}
 
 	private <T> void injectClock(Field field, T object) throws IllegalArgumentException, IllegalAccessException {
@@ -523,9 +861,10 @@ public class RosJavaDi {
 			makeAccessible(field);
 			field.set(object, clock);
 		}
-		RosClock rosClock = field.getAnnotation(RosClock.class);
-		if (rosClock != null) {
-			throw new UnsupportedOperationException("Ros clock will be supported in the next release");
+		RosClock rosClockAnnotation = field.getAnnotation(RosClock.class);
+		if (rosClockAnnotation != null) {
+			makeAccessible(field);
+			field.set(object, rosClock);
 		}
 	}
 
@@ -542,27 +881,21 @@ public class RosJavaDi {
 	private void injectDependencies() throws CreationException {
 		for (int i = 0; i < instancesToInjectList.size(); i++) {
 			InstanceWithName object = instancesToInjectList.get(i);
-			Class<?> clazz = object.instance.getClass();
+			injectedObject = object.instance;
+			@SuppressWarnings("unchecked")
+			Class<Object> clazz = (Class<Object>) object.instance.getClass();
+			Injector<Object> injector = Injectors.injectorFor(clazz);
+			if (injector != null) {
+				// use injector generated at compile time
+				injector.injectDependencies(object.instance, object.name, context);
+				continue;
+			}
 			try {
 				// for each field
 				for (Field field : clazz.getDeclaredFields()) {
 					Inject inject = field.getAnnotation(Inject.class);
 					if (inject != null) {
-						Class<?> type = field.getType();
-						String instanceName = inject.instance();
-						if (!instanceName.startsWith("/")) {
-							if (object.name.isEmpty() || instanceName.isEmpty()) {
-								instanceName = object.name + instanceName;
-							} else {
-								instanceName = object.name + "/" + instanceName;
-							}
-						}
-						// when injecting RosJavaDi always use one instance
-						if (type.equals(this.getClass())) {
-							instanceName = "";
-						}
-						ClassWithName c = new ClassWithName(type, instanceName);
-						Object instance = getInstance(c);
+						Object instance = getInstance(inject, field.getType(), object.name);
 						makeAccessible(field);
 						field.set(object.instance, instance);
 					}
@@ -572,6 +905,31 @@ public class RosJavaDi {
 			}
 		}
 		instancesToInjectList.clear();
+		injectedObject = null;
+	}
+
+	private Object getInstance(Inject inject, Class<?> type, String ownerName) throws CreationException {
+		String instanceName = inject.instance();
+		if (!instanceName.startsWith("/")) {
+			if (ownerName.isEmpty() || instanceName.isEmpty()) {
+				instanceName = ownerName + instanceName;
+			} else {
+				instanceName = ownerName + "/" + instanceName;
+			}
+		}
+		// when injecting RosJavaDi always use one instance
+		if (type.equals(this.getClass())) {
+			instanceName = "";
+		}
+		// loggers publish to /rosout of this node
+		if (type == LogSeldom.class || type == Log.class) {
+			return getNodeLog(injectedObject != null ? injectedObject.getClass() : RosJavaDi.class);
+		}
+		Object instance = getInstance(new ClassWithName(type, instanceName));
+		if (injectedObject != null) {
+			initializerGraph.addDependency(injectedObject, instance);
+		}
+		return instance;
 	}
 
 	private Object getInstance(ClassWithName c) throws CreationException {
@@ -590,24 +948,69 @@ public class RosJavaDi {
 		// create subscribers
 		Subscribe subscribe = method.getAnnotation(Subscribe.class);
 		if (subscribe != null) {
-			RosJavaSubscriber<?> subscriber = createSubscriber(subscribe, object, method, instanceName);
-			synchronized (monitor) {
-				subscribers.add(subscriber);
+			Class<?>[] parameterTypes = method.getParameterTypes();
+			if (parameterTypes.length != 1) {
+				throw new CreationException(
+						"Subscriber at " + method.toGenericString() + " must have exactly one parameter");
+			}
+			Class<?> parameterType = parameterTypes[0];
+			if (parameterType.isArray()) {
+				addSubscriber(subscribe, callbackGroupOf(method), instanceName, parameterType.getComponentType(),
+						parameterType, method.toGenericString(), Invokers.messageInvoker(object, method));
+			} else if (parameterType == List.class) {
+				Type type = method.getGenericParameterTypes()[0];
+				Type elementType = type instanceof ParameterizedType
+						? ((ParameterizedType) type).getActualTypeArguments()[0]
+						: null;
+				if (!(elementType instanceof Class)) {
+					throw new CreationException(
+							"Subscriber at " + method.toGenericString() + " must declare the message type of its list");
+				}
+				addSubscriber(subscribe, callbackGroupOf(method), instanceName, (Class<?>) elementType, List.class,
+						method.toGenericString(), Invokers.messageInvoker(object, method));
+			} else {
+				addSubscriber(subscribe, callbackGroupOf(method), instanceName, parameterType, null,
+						method.toGenericString(), Invokers.messageInvoker(object, method));
 			}
 		}
 	}
 
-	private <T> RosJavaSubscriber<?> createSubscriber(Subscribe subscribe, T object, Method method, String instanceName)
-			throws CreationException {
-		Parameter[] parameters = method.getParameters();
-		if (parameters.length != 1) {
-			throw new CreationException(
-					"Subscriber at " + method.toGenericString() + " must have exactly one parameter");
+	/**
+	 * Adds subscriber, the batch type is null for a method taking a single
+	 * message, or <code>List</code> or the array type of a batching one.
+	 */
+	private void addSubscriber(Subscribe subscribe, CallbackGroup group, String instanceName, Class<?> topicType,
+			Class<?> batchType, String description, MessageInvoker invoker) throws CreationException {
+		RosJavaSubscriber<?> subscriber = createSubscriber(subscribe, group, instanceName, topicType, batchType,
+				description, invoker);
+		synchronized (monitor) {
+			subscribers.add(subscriber);
 		}
+	}
 
-		Parameter parameter = parameters[0];
-		final Class<?> topicType = parameter.getType();
+	private RosJavaSubscriber<?> createSubscriber(Subscribe subscribe, CallbackGroup group, String instanceName,
+			Class<?> topicType, Class<?> batchType, String description, MessageInvoker invoker)
+			throws CreationException {
 		int timeout = subscribe.timeout();
+		int queueLength = subscribe.queueLength();
+		if (queueLength < 0) {
+			throw new CreationException("Subscriber at " + description + " must have non-negative queue length");
+		}
+		if (batchType != null) {
+			if (!MessageDefinition.class.isAssignableFrom(topicType)) {
+				throw new CreationException("Subscriber at " + description + " must take messages, not " + topicType);
+			}
+			if (subscribe.batchSize() <= 0) {
+				throw new CreationException("Subscriber at " + description + " must have positive batch size");
+			}
+			if (subscribe.batchLinger() < 0) {
+				throw new CreationException("Subscriber at " + description + " must have non-negative batch linger");
+			}
+			if (subscribe.conflate()) {
+				throw new CreationException("Subscriber at " + description + " cannot both batch and conflate");
+			}
+			queueLength = Math.max(queueLength, subscribe.batchSize());
+		}
 
 		String topicName = graphNameOf(instanceName, subscribe.value());
 		String remappedTopicName = remappings.get(topicName);
@@ -615,31 +1018,84 @@ public class RosJavaDi {
 			topicName = remappedTopicName;
 		}
 
+		// handlers called on executor threads are serialized unless told otherwise
+		CallbackGroupLock groupLock = callbackGroupLock(group, description);
+		if (groupLock == null && queueLength == 0 && !subscribe.conflate()) {
+			groupLock = defaultCallbackGroup;
+		}
+
 		@SuppressWarnings("unchecked")
 		Class<? extends MessageDefinition> topicTypeCasted = (Class<? extends MessageDefinition>) topicType;
-		return new RosJavaSubscriber<>(composablenode.getNode(), object, method, topicName, topicTypeCasted, timeout,
-				LOG);
+		RosJavaSubscriber<?> subscriber = new RosJavaSubscriber<>(transport, description, invoker, topicName,
+				topicTypeCasted, queueLength, subscribe.overflow(), subscribe.conflate(), timeout, groupLock, LOG);
+		if (batchType != null) {
+			subscriber.setBatching(subscribe.batchSize(), subscribe.batchLinger(), batchType.isArray());
+		}
+		return subscriber;
 	}
 
 	private <T> void collectRepeaters(Method method, T object) throws CreationException {
 		Repeat repeat = method.getAnnotation(Repeat.class);
 		if (repeat != null) {
-			synchronized (monitor) {
-				repeaters.add(new Repeater(object, method, repeat));
+			addRepeater(repeat, callbackGroupOf(method), object, method.getName(), method.toGenericString(),
+					Invokers.methodInvoker(object, method));
+		}
+	}
+
+	private void addRepeater(Repeat repeat, CallbackGroup group, Object object, String methodName,
+			String description, MethodInvoker invoker) throws CreationException {
+		CallbackGroupLock groupLock = callbackGroupLock(group, description);
+		synchronized (monitor) {
+			repeaters.add(new Repeater(object, methodName, description, repeat, invoker, groupLock));
+		}
+	}
+
+	/**
+	 * Returns callback group declared on the method or on its class.
+	 */
+	private static CallbackGroup callbackGroupOf(Method method) {
+		CallbackGroup group = method.getAnnotation(CallbackGroup.class);
+		if (group == null) {
+			group = method.getDeclaringClass().getAnnotation(CallbackGroup.class);
+		}
+		return group;
+	}
+
+	private CallbackGroupLock callbackGroupLock(CallbackGroup group, String description) throws CreationException {
+		if (group == null) {
+			return null;
+		}
+		synchronized (monitor) {
+			CallbackGroupLock lock = callbackGroups.get(group.value());
+			if (lock == null) {
+				lock = new CallbackGroupLock(group.value(), group.type());
+				callbackGroups.put(group.value(), lock);
+			} else if (lock.type != group.type()) {
+				throw new CreationException("Callback group " + group.value() + " at " + description
+						+ " declared as " + group.type() + " but already used as " + lock.type);
 			}
+			return lock;
 		}
 	}
 
 	private <T> void collectInitializers(Method method, T object) throws CreationException {
 		Init init = method.getAnnotation(Init.class);
 		if (init != null) {
-			synchronized (monitor) {
-				initializers.add(new Initializer(object, method, init));
-			}
+			addInitializer(init, object, method.toGenericString(), Invokers.methodInvoker(object, method));
+		}
+	}
+
+	private void addInitializer(Init init, Object object, String description, MethodInvoker invoker) {
+		synchronized (monitor) {
+			initializers.add(new Initializer(object, description, init, invoker));
 		}
 	}
 
-	private Publisher<?> createPublisher(Publish publish, Field field, String instanceName) {
+	/**
+	 * Returns publisher for a field of type Publisher or PooledPublisher.
+	 */
+	private Object createPublisher(Publish publish, Field field, String instanceName)
+			throws CreationException {
 		Type type = field.getGenericType();
 		Type[] typeArgs = ((ParameterizedType) type).getActualTypeArguments();
 
@@ -649,15 +1105,76 @@ public class RosJavaDi {
 					"Unrecognized type parameter for publisher at " + field.toGenericString());
 		}
 
+		@SuppressWarnings("unchecked")
+		Class<MessageDefinition> topicTypeCasted = (Class<MessageDefinition>) topicType;
+		if (field.getType() == PooledPublisher.class) {
+			return createPooledPublisher(publish, topicTypeCasted, instanceName);
+		}
+		return createPublisher(publish, topicTypeCasted, instanceName);
+	}
+
+	/**
+	 * Returns publisher recycling messages when neither the transport nor
+	 * shared intra-process delivery keep the published object.
+	 */
+	private <T extends MessageDefinition> PooledPublisher<T> createPooledPublisher(Publish publish,
+			Class<T> topicType, String instanceName) throws CreationException {
+		Publisher<T> publisher = createPublisher(publish, topicType, instanceName);
+		boolean recycling = transport.copiesPublishedMessages() && publish.intraProcess() != IntraProcess.SHARED
+				&& !publish.latched();
+		if (!recycling) {
+			LOG.info("Publisher of " + publish.value() + " cannot recycle messages the transport, subscribers or"
+					+ " the latch keep");
+		}
+		try {
+			return new PooledPublisher<>(publisher, topicType, publish.poolSize(), recycling);
+		} catch (IllegalArgumentException e) {
+			throw new CreationException("Cannot create pooled publisher of " + publish.value(), e);
+		}
+	}
+
+	private <T extends MessageDefinition> Publisher<T> createPublisher(Publish publish, Class<T> topicType,
+			String instanceName) throws CreationException {
 		String topicName = graphNameOf(instanceName, publish.value());
 		String remappedTopicName = remappings.get(topicName);
 		if (remappedTopicName != null) {
 			topicName = remappedTopicName;
 		}
-		
-		@SuppressWarnings("unchecked")
-		Class<? extends MessageDefinition> topicTypeCasted = (Class<? extends MessageDefinition>) topicType;
-		return node.createPublisher(topicTypeCasted, topicName);
+
+		Publisher<T> publisher;
+		if (publish.intraProcess() != IntraProcess.OFF && transport.canIgnoreLocalPublications()) {
+			// subscribers of this node skip only the messages this publisher delivers to them itself
+			publisher = transport.createIntraProcessPublisher(topicType, topicName, publish.latched());
+		} else if (publish.latched()) {
+			publisher = transport.createLatchedPublisher(topicType, topicName);
+		} else {
+			publisher = transport.createPublisher(topicType, topicName);
+		}
+		if (publish.intraProcess() != IntraProcess.OFF) {
+			IntraProcessTopic topic;
+			synchronized (monitor) {
+				topic = intraProcessTopics.get(topicName);
+				if (topic == null) {
+					topic = new IntraProcessTopic(topicName, topicType);
+					intraProcessTopics.put(topicName, topic);
+				} else if (!topic.type.equals(topicType)) {
+					throw new CreationException("Intra-process publishers of topic " + topicName + " publish both "
+							+ topic.type.getName() + " and " + topicType.getName());
+				}
+			}
+			publisher = IntraProcessPublisher.create(publisher, topic, publish.intraProcess(), transport,
+					publish.latched());
+		}
+		if (!publish.latched()) {
+			return publisher;
+		}
+		// subscribers of this node registered after a publish get the last message from here
+		LatchedPublisher latched = new LatchedPublisher(publisher, topicName,
+				publish.intraProcess() == IntraProcess.SHARED);
+		synchronized (monitor) {
+			latchedPublishers.add(latched);
+		}
+		return latched.proxy();
 	}
 
 	private Class<?> getGenericParameterType(Type param) {
@@ -691,4 +1208,138 @@ public class RosJavaDi {
 			}
 		}
 	}
+
+	private static class ParameterChangeListener {
+
+		final String description;
+		final ParameterChangeInvoker invoker;
+
+		ParameterChangeListener(String description, ParameterChangeInvoker invoker) {
+			this.description = description;
+			this.invoker = invoker;
+		}
+	}
+
+	/**
+	 * Parameter fields of one component, published together as immutable
+	 * snapshots.
+	 */
+	private static class ParameterGroup {
+
+		final Object object;
+		final ArrayList<ParameterReference> references = new ArrayList<>();
+		final ArrayList<ParameterChangeListener> listeners = new ArrayList<>();
+		final Parameters parameters = new Parameters(
+				new ParameterSnapshot(Collections.<String, Object>emptyMap(), 0));
+
+		ParameterGroup(Object object) {
+			this.object = object;
+		}
+
+		synchronized void start() {
+			LinkedHashMap<String, Object> values = new LinkedHashMap<>();
+			for (ParameterReference ref : references) {
+				try {
+					values.put(ref.fieldName, ref.accessor.get());
+				} catch (IllegalAccessException e) {
+					LOG.error("Cannot read parameter " + ref.fieldName + " of "
+							+ object.getClass().getCanonicalName(), e);
+				}
+			}
+			parameters.set(new ParameterSnapshot(values, 0));
+		}
+
+		/**
+		 * Replaces the snapshot with one containing all the changes, then
+		 * calls the listeners once.
+		 */
+		synchronized void apply(Map<String, Object> changes) {
+			ParameterSnapshot previous = parameters.get();
+			ParameterSnapshot current = previous.with(changes);
+			parameters.set(current);
+			for (ParameterChangeListener listener : listeners) {
+				try {
+					listener.invoker.invoke(previous, current);
+				} catch (Throwable t) {
+					LOG.error("Exception caught in parameter change listener " + listener.description, t);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gives injectors access to the wiring methods without making them part of
+	 * the public API.
+	 */
+	private class Context implements InjectionContext {
+
+		@Override
+		public Clock getSystemClock() {
+			return clock;
+		}
+
+		@Override
+		public Clock getRosClock() {
+			return rosClock;
+		}
+
+		@Override
+		public <T extends MessageDefinition> Publisher<T> createPublisher(Publish publish, Class<T> topicType,
+				String instanceName) throws CreationException {
+			return RosJavaDi.this.createPublisher(publish, topicType, instanceName);
+		}
+
+		@Override
+		public <T extends MessageDefinition> PooledPublisher<T> createPooledPublisher(Publish publish,
+				Class<T> topicType, String instanceName) throws CreationException {
+			return RosJavaDi.this.createPooledPublisher(publish, topicType, instanceName);
+		}
+
+		@Override
+		public void addParameter(org.ros2.java.di.annotations.Parameter parameter, String instanceName,
+				Object object, Class<?> type, String fieldName, ParameterAccessor accessor) {
+			RosJavaDi.this.addParameter(parameter, instanceName, object, type, fieldName, accessor);
+		}
+
+		@Override
+		public void addInitializer(Init init, Object object, String description, MethodInvoker invoker) {
+			RosJavaDi.this.addInitializer(init, object, description, invoker);
+		}
+
+		@Override
+		public void addRepeater(Repeat repeat, CallbackGroup group, Object object, String methodName,
+				String description, MethodInvoker invoker) throws CreationException {
+			RosJavaDi.this.addRepeater(repeat, group, object, methodName, description, invoker);
+		}
+
+		@Override
+		public void addSubscriber(Subscribe subscribe, CallbackGroup group, String instanceName,
+				Class<?> topicType, String description, MessageInvoker invoker) throws CreationException {
+			RosJavaDi.this.addSubscriber(subscribe, group, instanceName, topicType, null, description, invoker);
+		}
+
+		@Override
+		public void addBatchSubscriber(Subscribe subscribe, CallbackGroup group, String instanceName,
+				Class<?> topicType, boolean array, String description, MessageInvoker invoker)
+				throws CreationException {
+			RosJavaDi.this.addSubscriber(subscribe, group, instanceName, topicType,
+					array ? Array.newInstance(topicType, 0).getClass() : List.class, description, invoker);
+		}
+
+		@Override
+		public Parameters getParameters(Object object) {
+			return parameterGroup(object).parameters;
+		}
+
+		@Override
+		public void addParameterChangeListener(OnParameterChange onParameterChange, Object object,
+				String description, ParameterChangeInvoker invoker) {
+			RosJavaDi.this.addParameterChangeListener(onParameterChange, object, description, invoker);
+		}
+
+		@Override
+		public Object getInstance(Inject inject, Class<?> type, String instanceName) throws CreationException {
+			return RosJavaDi.this.getInstance(inject, type, instanceName);
+		}
+	}
 }
@@ -0,0 +1,167 @@
+package org.ros2.java.di;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.ros2.java.di.exceptions.CreationException;
+import org.ros2.java.di.internal.TimeoutWheel;
+import org.ros2.java.di.transport.RclJavaContext;
+import org.ros2.java.di.transport.TransportContext;
+
+/**
+ * Hosts several named RosJavaDi nodes in one process. The nodes share one
+ * transport context with its executor threads, one repeater scheduler and one
+ * timeout wheel, while each keeps its own parameters and /rosout publisher.
+ * <p>
+ * Static loggers from {@link RosJavaDi#getLog()} publish to the node that
+ * created their class, or the class it is nested in. A class created in
+ * several nodes logs to the first of them, a class no node created to the
+ * first node of the process.
+ * <p>
+ * Create the nodes and their components, then start the container:
+ *
+ * <pre>
+ * RosJavaDiContainer container = new RosJavaDiContainer(args);
+ * container.createNode("camera").create(Camera.class);
+ * container.createNode("detector").create(Detector.class);
+ * container.start();
+ * </pre>
+ */
+public class RosJavaDiContainer {
+
+	private String[] args;
+	private TransportContext transportContext;
+	private ArrayList<RosJavaDi> nodes = new ArrayList<>();
+	private RepeaterScheduler repeaterScheduler;
+	private TimeoutWheel timeoutWheel;
+	private SimulatedClock simulatedClock;
+	private int executorThreads = 1;
+	private boolean started;
+
+	/**
+	 * Creates container with one rcljava context initialized with the given
+	 * arguments.
+	 */
+	public RosJavaDiContainer(String[] args) {
+		this(args, new RclJavaContext(args));
+	}
+
+	/**
+	 * Creates container on the given transport context, for example a
+	 * {@link org.ros2.java.di.transport.LoopbackContext}.
+	 */
+	public RosJavaDiContainer(String[] args, TransportContext transportContext) {
+		this.args = args;
+		this.transportContext = transportContext;
+	}
+
+	/**
+	 * Creates node with the arguments of the container.
+	 */
+	public RosJavaDi createNode(String name) throws Exception {
+		return createNode(name, args);
+	}
+
+	/**
+	 * Creates node with its own arguments, for example its own parameters and
+	 * remappings.
+	 */
+	public synchronized RosJavaDi createNode(String name, String[] nodeArgs) throws Exception {
+		if (started) {
+			throw new IllegalStateException("Cannot add node " + name + " to a started container");
+		}
+		for (RosJavaDi node : nodes) {
+			if (node.getName().equals(name)) {
+				throw new IllegalArgumentException("Container already has node " + name);
+			}
+		}
+		RosJavaDi node = new RosJavaDi(name, nodeArgs, transportContext.createTransport(name, nodeArgs));
+		if (simulatedClock != null) {
+			node.useSimulatedClock(simulatedClock);
+		}
+		nodes.add(node);
+		return node;
+	}
+
+	/**
+	 * Returns metrics of the callbacks of all nodes.
+	 */
+	public synchronized List<CallbackMetrics> getCallbackMetrics() {
+		ArrayList<CallbackMetrics> metrics = new ArrayList<>();
+		for (RosJavaDi node : nodes) {
+			metrics.addAll(node.getCallbackMetrics());
+		}
+		return metrics;
+	}
+
+	public synchronized List<RosJavaDi> getNodes() {
+		return Collections.unmodifiableList(new ArrayList<>(nodes));
+	}
+
+	/**
+	 * Drives ROS time of all nodes by the given clock, see
+	 * {@link RosJavaDi#useSimulatedClock(SimulatedClock)}. Must be called
+	 * before creating components.
+	 */
+	public synchronized void useSimulatedClock(SimulatedClock simulatedClock) {
+		this.simulatedClock = simulatedClock;
+		for (RosJavaDi node : nodes) {
+			node.useSimulatedClock(simulatedClock);
+		}
+	}
+
+	/**
+	 * Sets the scheduler running the repeaters of all nodes, must be called
+	 * before start. With a simulated clock it must be a
+	 * {@link RepeaterScheduler#simulated(SimulatedClock, int)} scheduler.
+	 */
+	public void setRepeaterScheduler(RepeaterScheduler repeaterScheduler) {
+		this.repeaterScheduler = repeaterScheduler;
+	}
+
+	/**
+	 * Sets number of threads spinning all nodes, must be called before start.
+	 */
+	public void setExecutorThreads(int executorThreads) {
+		if (executorThreads <= 0) {
+			throw new IllegalArgumentException("Number of executor threads must be positive, was " + executorThreads);
+		}
+		this.executorThreads = executorThreads;
+	}
+
+	/**
+	 * Starts all nodes, then the shared executor threads.
+	 */
+	public synchronized void start() throws NoSuchFieldException, IllegalAccessException, CreationException {
+		started = true;
+		if (repeaterScheduler == null) {
+			int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+			if (simulatedClock != null) {
+				repeaterScheduler = RepeaterScheduler.simulated(simulatedClock, threads);
+			} else {
+				repeaterScheduler = RepeaterScheduler.pooled(threads);
+			}
+		}
+		timeoutWheel = new TimeoutWheel(simulatedClock != null ? simulatedClock : new Clock());
+		for (RosJavaDi node : nodes) {
+			node.shareExecution(repeaterScheduler, timeoutWheel, simulatedClock);
+			node.start();
+		}
+		transportContext.start(executorThreads);
+	}
+
+	public synchronized void shutdown() {
+		for (RosJavaDi node : nodes) {
+			node.shutdown();
+		}
+		transportContext.shutdown();
+		if (repeaterScheduler != null) {
+			repeaterScheduler.shutdown();
+		}
+		if (timeoutWheel != null) {
+			timeoutWheel.shutdown();
+		}
+	}
+
+}
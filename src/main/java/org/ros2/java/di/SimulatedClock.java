@@ -0,0 +1,114 @@
+package org.ros2.java.di;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import builtin_interfaces.msg.Time;
+
+/**
+ * Clock whose time is set from outside, from the /clock topic when the node
+ * runs with <code>_use_sim_time:=true</code>, or by the application. Wall and
+ * monotonic time are both the simulated time, starting at zero.
+ * <p>
+ * Repeaters and subscriber timeouts of a node using this clock are driven by
+ * its time updates, so {@link #run(double)} plays a scenario faster than real
+ * time:
+ *
+ * <pre>
+ * SimulatedClock clock = new SimulatedClock();
+ * rosJavaDi.useSimulatedClock(clock);
+ * ...
+ * rosJavaDi.start();
+ * clock.run(10.0);
+ * </pre>
+ */
+public class SimulatedClock extends Clock {
+
+	/**
+	 * How often {@link #run(double)} advances the time, in real time.
+	 */
+	private static final long RUN_STEP_NANOSECONDS = 1000000L;
+
+	private final AtomicLong timeNanos = new AtomicLong();
+	private final CopyOnWriteArrayList<Runnable> listeners = new CopyOnWriteArrayList<>();
+	private Thread runner;
+	private volatile boolean running;
+
+	@Override
+	public long wallNanos() {
+		return timeNanos.get();
+	}
+
+	@Override
+	public long monotonicNanos() {
+		return timeNanos.get();
+	}
+
+	public void setTime(long nanos) {
+		timeNanos.set(nanos);
+		notifyListeners();
+	}
+
+	public void setTime(Time time) {
+		setTime(time.getSec() * 1000000000L + time.getNanosec());
+	}
+
+	public void advance(long nanos) {
+		timeNanos.addAndGet(nanos);
+		notifyListeners();
+	}
+
+	/**
+	 * Adds listener called on the thread that changed the time, after the
+	 * change.
+	 */
+	public void addTimeListener(Runnable listener) {
+		listeners.add(listener);
+	}
+
+	public void removeTimeListener(Runnable listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Advances the time on a background thread, the given number of times
+	 * faster than real time, until {@link #stop()}.
+	 */
+	public synchronized void run(double speed) {
+		if (speed <= 0) {
+			throw new IllegalArgumentException("Speed must be positive, was " + speed);
+		}
+		stop();
+		running = true;
+		runner = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				long last = System.nanoTime();
+				while (running) {
+					LockSupport.parkNanos(RUN_STEP_NANOSECONDS);
+					long now = System.nanoTime();
+					advance((long) ((now - last) * speed));
+					last = now;
+				}
+			}
+		}, "rosjavadi-simulated-clock");
+		runner.setDaemon(true);
+		runner.start();
+	}
+
+	public synchronized void stop() {
+		running = false;
+		if (runner != null) {
+			LockSupport.unpark(runner);
+			runner = null;
+		}
+	}
+
+	private void notifyListeners() {
+		for (Runnable listener : listeners) {
+			listener.run();
+		}
+	}
+
+}
@@ -0,0 +1,15 @@
+package org.ros2.java.di.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks field of type {@link org.ros2.java.di.Parameters} receiving immutable
+ * snapshots of the <code>@Parameter</code> fields of the component.
+ */
+@Target({ElementType.FIELD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AtomicParameters {
+}
@@ -0,0 +1,26 @@
+package org.ros2.java.di.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Puts subscribers and repeaters into a named callback group. On a class it
+ * applies to all its annotated methods, unless a method declares its own
+ * group. Groups with the same name are shared between components.
+ * <p>
+ * A subscriber without queue getting an intra-process message published from
+ * a callback of another mutually exclusive group does not wait for its group.
+ * The message is handled once the group is free, possibly on the thread
+ * leaving it, so groups publishing to each other do not deadlock.
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CallbackGroup {
+
+	String value();
+
+	CallbackGroupType type() default CallbackGroupType.MUTUALLY_EXCLUSIVE;
+
+}
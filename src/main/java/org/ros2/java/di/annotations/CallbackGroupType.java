@@ -0,0 +1,18 @@
+package org.ros2.java.di.annotations;
+
+/**
+ * Tells whether callbacks of a group may run concurrently.
+ */
+public enum CallbackGroupType {
+
+	/**
+	 * At most one callback of the group runs at a time.
+	 */
+	MUTUALLY_EXCLUSIVE,
+
+	/**
+	 * Callbacks of the group may run in parallel, even the same callback.
+	 */
+	REENTRANT
+
+}
@@ -0,0 +1,24 @@
+package org.ros2.java.di.annotations;
+
+/**
+ * How messages of a publisher reach subscribers created by the same RosJavaDi.
+ */
+public enum IntraProcess {
+
+	/**
+	 * Messages go through the transport like to any other node.
+	 */
+	OFF,
+
+	/**
+	 * Subscribers get the published object itself and must not modify it,
+	 * neither must the publisher after publishing.
+	 */
+	SHARED,
+
+	/**
+	 * Every subscriber gets its own deep copy of the message.
+	 */
+	COPY
+
+}
@@ -0,0 +1,16 @@
+package org.ros2.java.di.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks method called once per parameter update changing any
+ * <code>@Parameter</code> field of the component, with the previous and the
+ * current {@link org.ros2.java.di.ParameterSnapshot}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OnParameterChange {
+}
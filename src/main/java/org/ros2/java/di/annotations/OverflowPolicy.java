@@ -0,0 +1,24 @@
+package org.ros2.java.di.annotations;
+
+/**
+ * Tells what a subscriber does with an incoming message when its queue is
+ * full.
+ */
+public enum OverflowPolicy {
+
+	/**
+	 * Discards the oldest queued message to make room for the incoming one.
+	 */
+	DROP_OLDEST,
+
+	/**
+	 * Discards the incoming message.
+	 */
+	DROP_NEWEST,
+
+	/**
+	 * Blocks the receiving thread until the handler frees a slot.
+	 */
+	BLOCK
+
+}
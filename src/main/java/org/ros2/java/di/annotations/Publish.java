@@ -11,5 +11,21 @@ public @interface Publish {
     
     String value();
 	boolean latched() default false;
+
+	/**
+	 * Hands messages directly to subscribers of the same RosJavaDi instead of
+	 * going through the transport, which then only sees them when there are
+	 * subscribers elsewhere. Only transports that can skip the node's own
+	 * messages support it: with {@link org.ros2.java.di.transport.RclJavaTransport}
+	 * every message is still serialized and delivered through rcljava, also to
+	 * subscribers of the same node.
+	 */
+	IntraProcess intraProcess() default IntraProcess.OFF;
+
+	/**
+	 * Number of messages a {@link org.ros2.java.di.PooledPublisher} keeps for
+	 * reuse.
+	 */
+	int poolSize() default 16;
     
 }
@@ -12,5 +12,12 @@ public @interface Repeat {
     int delay() default 0;
     int interval() default 0;
     int count() default 0;
+
+    /**
+     * Runs the repeater on its own thread instead of the shared repeater
+     * pool, for repeaters that block. Repeaters without delay and interval
+     * always get their own thread.
+     */
+    boolean dedicatedThread() default false;
     
 }
@@ -11,8 +11,34 @@ public @interface Subscribe {
 
 	String value();
 
+	/**
+	 * Number of messages buffered for the handler, which then runs on its own
+	 * worker thread. Zero calls the handler directly on the executor thread.
+	 */
 	int queueLength() default 5;
 
+	OverflowPolicy overflow() default OverflowPolicy.DROP_OLDEST;
+
+	/**
+	 * Keeps only the newest message for the handler, which runs on its own
+	 * worker thread and skips messages that arrived while it was busy. The
+	 * queue length and overflow policy are ignored.
+	 */
+	boolean conflate() default false;
+
+	/**
+	 * Maximum number of messages passed at once to a method taking a
+	 * <code>List</code> or an array of messages. The queue of such a
+	 * subscriber holds at least one batch.
+	 */
+	int batchSize() default 64;
+
+	/**
+	 * Milliseconds a batch waits for more messages after its first one, zero
+	 * passes whatever arrived while the method was busy.
+	 */
+	int batchLinger() default 0;
+
 	int timeout() default 0;
 
 }
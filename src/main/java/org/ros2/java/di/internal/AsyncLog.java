@@ -0,0 +1,155 @@
+package org.ros2.java.di.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+
+/**
+ * Ring buffer of preallocated log events written by any thread and consumed
+ * by a single background thread.
+ * <p>
+ * Logging only copies the arguments and the caller, found by the logging
+ * thread with a bounded stack walk, into a free slot and never blocks. When
+ * the buffer is full the event is dropped and counted. The consumer writes
+ * the event to java.util.logging and publishes it to /rosout.
+ */
+public class AsyncLog {
+
+	public static final int DEFAULT_CAPACITY = 8192;
+
+	/**
+	 * Upper bound on how long the consumer sleeps, in case a wakeup is lost.
+	 */
+	private static final long MAX_PARK_NANOSECONDS = 10000000L;
+
+	private final LogEvent[] events;
+	private final int mask;
+	private final AtomicLong tail = new AtomicLong();
+	private final AtomicLong droppedEvents = new AtomicLong();
+	private final Thread consumer;
+	private volatile boolean running = true;
+	private volatile boolean waiting = false;
+
+	// accessed only by the consumer thread
+	private long head;
+
+	/**
+	 * Creates the buffer and starts the consumer thread. The capacity must be a
+	 * power of two.
+	 */
+	public AsyncLog(int capacity) {
+		if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("Log buffer capacity must be a power of two, was " + capacity);
+		}
+		events = new LogEvent[capacity];
+		for (int i = 0; i < capacity; i++) {
+			events[i] = new LogEvent(i);
+		}
+		mask = capacity - 1;
+		consumer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				consume();
+			}
+		}, "rosjavadi-log");
+		consumer.setDaemon(true);
+		consumer.start();
+	}
+
+	/**
+	 * Puts the event into the buffer, with the caller or null when it is not
+	 * known. Returns false if the buffer was full and the event was dropped.
+	 */
+	public boolean offer(RosJavaDiLog log, byte rosLevel, Level level, Object message, Throwable throwable,
+			StackTraceElement caller, long suppressed) {
+		LogEvent event;
+		long position;
+		while (true) {
+			position = tail.get();
+			event = events[(int) (position & mask)];
+			long sequence = event.sequence;
+			if (sequence == position) {
+				if (tail.compareAndSet(position, position + 1)) {
+					break;
+				}
+			} else if (sequence < position) {
+				droppedEvents.incrementAndGet();
+				return false;
+			}
+		}
+		event.log = log;
+		event.rosLevel = rosLevel;
+		event.level = level;
+		event.message = message;
+		event.throwable = throwable;
+		event.caller = caller;
+		event.suppressed = suppressed;
+		event.timeMillis = System.currentTimeMillis();
+		event.threadId = Thread.currentThread().getId();
+		event.sequence = position + 1;
+		if (waiting) {
+			LockSupport.unpark(consumer);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns number of events dropped because the buffer was full.
+	 */
+	public long getDroppedEvents() {
+		return droppedEvents.get();
+	}
+
+	/**
+	 * Stops the consumer after it writes out the buffered events.
+	 */
+	public void shutdown() {
+		running = false;
+		LockSupport.unpark(consumer);
+		if (Thread.currentThread() != consumer) {
+			try {
+				consumer.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private void consume() {
+		while (true) {
+			if (drain() > 0) {
+				continue;
+			}
+			if (!running) {
+				drain();
+				return;
+			}
+			waiting = true;
+			if (!available()) {
+				LockSupport.parkNanos(this, MAX_PARK_NANOSECONDS);
+			}
+			waiting = false;
+		}
+	}
+
+	private boolean available() {
+		return events[(int) (head & mask)].sequence == head + 1;
+	}
+
+	private int drain() {
+		int count = 0;
+		while (available()) {
+			LogEvent event = events[(int) (head & mask)];
+			try {
+				event.log.write(event);
+			} catch (Throwable t) {
+				// nowhere to report it, keep consuming
+			}
+			event.clear();
+			event.sequence = head + events.length;
+			head++;
+			count++;
+		}
+		return count;
+	}
+}
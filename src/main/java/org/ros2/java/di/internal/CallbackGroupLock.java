@@ -0,0 +1,93 @@
+package org.ros2.java.di.internal;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.ros2.java.di.annotations.CallbackGroupType;
+
+/**
+ * Guards calls of callbacks belonging to one callback group. Only mutually
+ * exclusive groups take a lock.
+ * <p>
+ * A callback reached from within a callback of another group, like an inline
+ * subscriber getting an intra-process message, must not wait for the lock:
+ * two groups publishing to each other would deadlock. It is queued instead and
+ * called by the thread leaving the group, or right away if the group is free.
+ */
+public class CallbackGroupLock {
+
+	/**
+	 * Number of mutually exclusive groups the thread is in.
+	 */
+	private static final ThreadLocal<int[]> ENTERED = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[1];
+		}
+	};
+
+	public String name;
+	public CallbackGroupType type;
+	private ReentrantLock lock;
+	private final ConcurrentLinkedQueue<Runnable> deferred = new ConcurrentLinkedQueue<>();
+
+	public CallbackGroupLock(String name, CallbackGroupType type) {
+		this.name = name;
+		this.type = type;
+		if (type == CallbackGroupType.MUTUALLY_EXCLUSIVE) {
+			lock = new ReentrantLock();
+		}
+	}
+
+	public void enter() {
+		if (lock != null) {
+			lock.lock();
+			ENTERED.get()[0]++;
+		}
+	}
+
+	public void exit() {
+		if (lock != null) {
+			ENTERED.get()[0]--;
+			lock.unlock();
+			if (!deferred.isEmpty() && !lock.isHeldByCurrentThread()) {
+				callDeferred();
+			}
+		}
+	}
+
+	/**
+	 * Tells if the calling thread is in a callback of another mutually
+	 * exclusive group, so that waiting for this one could deadlock.
+	 */
+	public boolean isNested() {
+		return lock != null && ENTERED.get()[0] > 0 && !lock.isHeldByCurrentThread();
+	}
+
+	/**
+	 * Calls the callback holding the lock once the group is free, on this
+	 * thread or the one leaving the group. Callbacks are called in the order
+	 * they were deferred and must not throw.
+	 */
+	public void defer(Runnable callback) {
+		deferred.add(callback);
+		callDeferred();
+	}
+
+	private void callDeferred() {
+		// a callback deferred after the check sees the lock free and calls itself
+		while (!deferred.isEmpty() && lock.tryLock()) {
+			int[] entered = ENTERED.get();
+			entered[0]++;
+			try {
+				Runnable callback;
+				while ((callback = deferred.poll()) != null) {
+					callback.run();
+				}
+			} finally {
+				entered[0]--;
+				lock.unlock();
+			}
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package org.ros2.java.di.internal;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Finds the method calling the code, walking only the frames needed. Uses
+ * java.lang.StackWalker when running on Java 9 or newer and falls back to the
+ * stack trace of a throwable on Java 8.
+ */
+public class CallerLocator {
+
+	private static final int MAX_CACHED_DEPTH = 8;
+
+	private static final MethodHandle WALK;
+	private static final MethodHandle TO_STACK_TRACE_ELEMENT;
+	private static final Function<?, ?>[] WALK_FUNCTIONS = new Function<?, ?>[MAX_CACHED_DEPTH];
+
+	static {
+		MethodHandle walk = null;
+		MethodHandle toStackTraceElement = null;
+		try {
+			Class<?> walkerClass = Class.forName("java.lang.StackWalker");
+			Class<?> frameClass = Class.forName("java.lang.StackWalker$StackFrame");
+			// walk is caller sensitive, which a public lookup may not find
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			Object walker = lookup.findStatic(walkerClass, "getInstance", MethodType.methodType(walkerClass))
+					.invoke();
+			walk = lookup.findVirtual(walkerClass, "walk", MethodType.methodType(Object.class, Function.class))
+					.bindTo(walker);
+			toStackTraceElement = lookup.findVirtual(frameClass, "toStackTraceElement",
+					MethodType.methodType(StackTraceElement.class));
+		} catch (Throwable e) {
+			// running on Java 8
+			walk = null;
+			toStackTraceElement = null;
+		}
+		WALK = walk;
+		TO_STACK_TRACE_ELEMENT = toStackTraceElement;
+		for (int i = 0; i < MAX_CACHED_DEPTH; i++) {
+			WALK_FUNCTIONS[i] = walkFunction(i);
+		}
+	}
+
+	/**
+	 * Tells if callers are found by walking only the frames needed, without
+	 * filling in the whole stack trace of a throwable.
+	 */
+	public static boolean canWalk() {
+		return WALK != null;
+	}
+
+	/**
+	 * Returns the frame the given number of levels above the method calling
+	 * this one, zero being that method itself, or null if the stack is not
+	 * that deep.
+	 */
+	public static StackTraceElement caller(int depth) {
+		if (WALK != null) {
+			// skip this method too
+			int skip = depth + 1;
+			Function<?, ?> function = skip < MAX_CACHED_DEPTH ? WALK_FUNCTIONS[skip] : walkFunction(skip);
+			try {
+				Object frame = WALK.invoke(function);
+				return frame == null ? null : (StackTraceElement) TO_STACK_TRACE_ELEMENT.invoke(frame);
+			} catch (Throwable e) {
+				// fall back to throwable below
+			}
+		}
+		StackTraceElement[] locations = new Throwable().getStackTrace();
+		int index = depth + 1;
+		return locations != null && locations.length > index ? locations[index] : null;
+	}
+
+	private static Function<Stream<Object>, Object> walkFunction(int skip) {
+		return new Function<Stream<Object>, Object>() {
+			@Override
+			public Object apply(Stream<Object> frames) {
+				return frames.skip(skip).findFirst().orElse(null);
+			}
+		};
+	}
+}
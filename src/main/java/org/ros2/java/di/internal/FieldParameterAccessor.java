@@ -0,0 +1,27 @@
+package org.ros2.java.di.internal;
+
+import java.lang.reflect.Field;
+
+/**
+ * Parameter accessor that reads and writes the field with reflection.
+ */
+public class FieldParameterAccessor implements ParameterAccessor {
+
+	private Object object;
+	private Field field;
+
+	public FieldParameterAccessor(Object object, Field field) {
+		this.object = object;
+		this.field = field;
+	}
+
+	@Override
+	public Object get() throws IllegalAccessException {
+		return field.get(object);
+	}
+
+	@Override
+	public void set(Object value) throws IllegalAccessException {
+		field.set(object, value);
+	}
+}
@@ -1,19 +1,22 @@
 package org.ros2.java.di.internal;
 
-import java.lang.reflect.Method;
-
+import org.ros2.java.di.CallbackMetrics;
 import org.ros2.java.di.annotations.Init;
 
 public class Initializer {
 
 	public Object object;
-	public Method method;
+	public String description;
 	public Init init;
+	public MethodInvoker invoker;
+	public CallbackMetrics metrics;
 	
-	public Initializer(Object object, Method method, Init init) {
+	public Initializer(Object object, String description, Init init, MethodInvoker invoker) {
 		this.object = object;
-		this.method = method;
+		this.description = description;
 		this.init = init;
+		this.invoker = invoker;
+		this.metrics = new CallbackMetrics(CallbackMetrics.Kind.INITIALIZER, description);
 	}
 
 }
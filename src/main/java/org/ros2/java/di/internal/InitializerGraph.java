@@ -0,0 +1,198 @@
+package org.ros2.java.di.internal;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.ros2.java.di.LogSeldom;
+import org.ros2.java.di.exceptions.CreationException;
+
+/**
+ * Dependencies between components recorded while injecting their
+ * <code>@Inject</code> fields, used to call the initializers of a component
+ * only after those of the components it depends on, directly or through
+ * components without initializers.
+ * <p>
+ * Components may inject each other, but two components with initializers
+ * cannot depend on each other. Initializers of components that do not depend
+ * on each other may run in parallel on a fork/join pool. A component's own
+ * initializers always run one after another on the same thread.
+ */
+public class InitializerGraph {
+
+	private final IdentityHashMap<Object, List<Object>> dependencies = new IdentityHashMap<>();
+	private final ArrayList<Node> sorted = new ArrayList<>();
+	private final LogSeldom log;
+
+	public InitializerGraph(LogSeldom log) {
+		this.log = log;
+	}
+
+	/**
+	 * Records that the object has a field injected with the dependency.
+	 */
+	public void addDependency(Object object, Object dependency) {
+		List<Object> objectDependencies = dependencies.get(object);
+		if (objectDependencies == null) {
+			objectDependencies = new ArrayList<>();
+			dependencies.put(object, objectDependencies);
+		}
+		objectDependencies.add(dependency);
+	}
+
+	/**
+	 * Orders the initializers so that dependencies come first, keeping the
+	 * given order otherwise, throws CreationException naming the components
+	 * when initializers depend on each other.
+	 */
+	public void resolve(List<Initializer> initializers) throws CreationException {
+		IdentityHashMap<Object, Node> nodes = new IdentityHashMap<>();
+		ArrayList<Node> created = new ArrayList<>();
+		for (Initializer initializer : initializers) {
+			Node node = nodes.get(initializer.object);
+			if (node == null) {
+				node = new Node(initializer.object);
+				nodes.put(initializer.object, node);
+				created.add(node);
+			}
+			node.initializers.add(initializer);
+		}
+		for (Node node : created) {
+			linkDependencies(node, node.object, nodes, new IdentityHashMap<Object, Boolean>());
+		}
+		sorted.clear();
+		IdentityHashMap<Node, Boolean> visited = new IdentityHashMap<>();
+		for (Node node : created) {
+			sort(node, visited, new ArrayList<Node>());
+		}
+	}
+
+	/**
+	 * Calls all initializers in dependency order on the calling thread, or on
+	 * a fork/join pool with the given number of threads, returning once all
+	 * were called. Exceptions of initializers are logged.
+	 */
+	public void run(int threads) throws InterruptedException {
+		if (threads <= 1 || sorted.size() <= 1) {
+			for (Node node : sorted) {
+				call(node);
+			}
+			return;
+		}
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			CountDownLatch done = new CountDownLatch(sorted.size());
+			for (Node node : sorted) {
+				node.pending.set(node.dependencies.size());
+			}
+			for (Node node : sorted) {
+				if (node.dependencies.isEmpty()) {
+					submit(pool, node, done);
+				}
+			}
+			done.await();
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private void submit(final ForkJoinPool pool, final Node node, final CountDownLatch done) {
+		pool.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					call(node);
+				} finally {
+					// submitting after the initializers ran lets dependents see their results
+					for (Node dependent : node.dependents) {
+						if (dependent.pending.decrementAndGet() == 0) {
+							submit(pool, dependent, done);
+						}
+					}
+					done.countDown();
+				}
+			}
+		});
+	}
+
+	private void call(Node node) {
+		for (Initializer initializer : node.initializers) {
+			long startTime = System.nanoTime();
+			try {
+				initializer.invoker.invoke();
+			} catch (Throwable e) {
+				initializer.metrics.recordFailure();
+				log.error("Exception caught while calling node initializer " + initializer.description, e);
+			}
+			initializer.metrics.getLatency().record(System.nanoTime() - startTime);
+		}
+	}
+
+	/**
+	 * Links the node with the nearest components with initializers reachable
+	 * from the object.
+	 */
+	private void linkDependencies(Node node, Object object, IdentityHashMap<Object, Node> nodes,
+			IdentityHashMap<Object, Boolean> visited) {
+		List<Object> objectDependencies = dependencies.get(object);
+		if (objectDependencies == null) {
+			return;
+		}
+		for (Object dependency : objectDependencies) {
+			if (dependency == node.object || visited.put(dependency, Boolean.TRUE) != null) {
+				continue;
+			}
+			Node dependencyNode = nodes.get(dependency);
+			if (dependencyNode != null) {
+				node.dependencies.add(dependencyNode);
+				dependencyNode.dependents.add(node);
+			} else {
+				linkDependencies(node, dependency, nodes, visited);
+			}
+		}
+	}
+
+	/**
+	 * Adds the node to the sorted list after its dependencies, the path holds
+	 * the nodes being visited to report a cycle.
+	 */
+	private void sort(Node node, IdentityHashMap<Node, Boolean> visited, ArrayList<Node> path)
+			throws CreationException {
+		Boolean done = visited.get(node);
+		if (done == Boolean.TRUE) {
+			return;
+		}
+		if (done == Boolean.FALSE) {
+			StringBuilder cycle = new StringBuilder();
+			for (Node member : path.subList(path.indexOf(node), path.size())) {
+				cycle.append(member.object.getClass().getName()).append(" -> ");
+			}
+			cycle.append(node.object.getClass().getName());
+			throw new CreationException("Components with initializers depend on each other: " + cycle);
+		}
+		visited.put(node, Boolean.FALSE);
+		path.add(node);
+		for (Node dependency : node.dependencies) {
+			sort(dependency, visited, path);
+		}
+		path.remove(path.size() - 1);
+		visited.put(node, Boolean.TRUE);
+		sorted.add(node);
+	}
+
+	private static final class Node {
+
+		final Object object;
+		final ArrayList<Initializer> initializers = new ArrayList<>();
+		final ArrayList<Node> dependencies = new ArrayList<>();
+		final ArrayList<Node> dependents = new ArrayList<>();
+		final AtomicInteger pending = new AtomicInteger();
+
+		Node(Object object) {
+			this.object = object;
+		}
+	}
+}
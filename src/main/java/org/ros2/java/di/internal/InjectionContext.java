@@ -0,0 +1,71 @@
+package org.ros2.java.di.internal;
+
+import org.ros2.java.di.Clock;
+import org.ros2.java.di.Parameters;
+import org.ros2.java.di.PooledPublisher;
+import org.ros2.java.di.annotations.CallbackGroup;
+import org.ros2.java.di.annotations.Init;
+import org.ros2.java.di.annotations.Inject;
+import org.ros2.java.di.annotations.OnParameterChange;
+import org.ros2.java.di.annotations.Parameter;
+import org.ros2.java.di.annotations.Publish;
+import org.ros2.java.di.annotations.Repeat;
+import org.ros2.java.di.annotations.Subscribe;
+import org.ros2.java.di.exceptions.CreationException;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.publisher.Publisher;
+
+/**
+ * Callbacks of RosJavaDi used by injectors to wire a component. Both the
+ * reflection based injection and the generated injectors go through it.
+ */
+public interface InjectionContext {
+
+	Clock getSystemClock();
+
+	Clock getRosClock();
+
+	<T extends MessageDefinition> Publisher<T> createPublisher(Publish publish, Class<T> topicType,
+			String instanceName) throws CreationException;
+
+	<T extends MessageDefinition> PooledPublisher<T> createPooledPublisher(Publish publish, Class<T> topicType,
+			String instanceName) throws CreationException;
+
+	void addParameter(Parameter parameter, String instanceName, Object object, Class<?> type, String fieldName,
+			ParameterAccessor accessor) throws CreationException;
+
+	void addInitializer(Init init, Object object, String description, MethodInvoker invoker)
+			throws CreationException;
+
+	/**
+	 * Returns holder of the parameter snapshots of the object.
+	 */
+	Parameters getParameters(Object object);
+
+	void addParameterChangeListener(OnParameterChange onParameterChange, Object object, String description,
+			ParameterChangeInvoker invoker) throws CreationException;
+
+	/**
+	 * Adds repeater, the callback group is null when neither the method nor
+	 * its class declare one.
+	 */
+	void addRepeater(Repeat repeat, CallbackGroup group, Object object, String methodName, String description,
+			MethodInvoker invoker) throws CreationException;
+
+	void addSubscriber(Subscribe subscribe, CallbackGroup group, String instanceName, Class<?> topicType,
+			String description, MessageInvoker invoker) throws CreationException;
+
+	/**
+	 * Adds subscriber whose method takes a list of messages of the topic type,
+	 * or an array of them.
+	 */
+	void addBatchSubscriber(Subscribe subscribe, CallbackGroup group, String instanceName, Class<?> topicType,
+			boolean array, String description, MessageInvoker invoker) throws CreationException;
+
+	/**
+	 * Returns the instance to be injected into a field of the given type
+	 * declared in the object with given instance name, creating it if needed.
+	 */
+	Object getInstance(Inject inject, Class<?> type, String instanceName) throws CreationException;
+
+}
@@ -0,0 +1,26 @@
+package org.ros2.java.di.internal;
+
+import org.ros2.java.di.exceptions.CreationException;
+
+/**
+ * Injects one component class without scanning it with reflection.
+ * <p>
+ * Implementations are generated at compile time by the
+ * <code>ros2-java-di-processor</code> annotation processor, next to the
+ * component class, and are named after it with the
+ * {@link Injectors#INJECTOR_SUFFIX} suffix.
+ */
+public interface Injector<T> {
+
+	/**
+	 * Injects clocks, instance names and publishers and registers parameters,
+	 * initializers, repeaters and subscribers of the object.
+	 */
+	void inject(T object, String instanceName, InjectionContext context) throws CreationException;
+
+	/**
+	 * Sets the fields annotated with <code>@Inject</code>.
+	 */
+	void injectDependencies(T object, String instanceName, InjectionContext context) throws CreationException;
+
+}
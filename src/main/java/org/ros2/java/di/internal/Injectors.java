@@ -0,0 +1,109 @@
+package org.ros2.java.di.internal;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.ros2.java.di.exceptions.CreationException;
+
+/**
+ * Finds injectors generated at compile time and provides helpers used by the
+ * generated code to reach private members.
+ */
+public class Injectors {
+
+	public static final String INJECTOR_SUFFIX = "_RosJavaDiInjector";
+
+	/**
+	 * Marks classes without a generated injector in the cache.
+	 */
+	private static final Injector<Object> NO_INJECTOR = new Injector<Object>() {
+		@Override
+		public void inject(Object object, String instanceName, InjectionContext context) {
+		}
+
+		@Override
+		public void injectDependencies(Object object, String instanceName, InjectionContext context) {
+		}
+	};
+
+	private static final ConcurrentHashMap<Class<?>, Injector<?>> INJECTORS = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the generated injector of the class or null if there is none.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Injector<T> injectorFor(Class<T> clazz) {
+		Injector<?> injector = INJECTORS.get(clazz);
+		if (injector == null) {
+			injector = loadInjector(clazz);
+			INJECTORS.putIfAbsent(clazz, injector);
+		}
+		if (injector == NO_INJECTOR) {
+			return null;
+		}
+		return (Injector<T>) injector;
+	}
+
+	/**
+	 * Returns the name of the injector generated for the class: the binary name
+	 * of the class, nested class separators included, plus
+	 * {@link #INJECTOR_SUFFIX}.
+	 */
+	public static String injectorName(Class<?> clazz) {
+		return clazz.getName() + INJECTOR_SUFFIX;
+	}
+
+	/**
+	 * Returns an accessible private field. Called once per class from static
+	 * initializers of generated injectors, where a missing field means the
+	 * injector is out of date.
+	 */
+	public static Field field(Class<?> clazz, String name) {
+		try {
+			Field field = clazz.getDeclaredField(name);
+			field.setAccessible(true);
+			return field;
+		} catch (NoSuchFieldException | SecurityException e) {
+			throw new IllegalStateException("Cannot access field " + name + " of " + clazz.getName(), e);
+		}
+	}
+
+	/**
+	 * Returns an accessible private method, see {@link #field(Class, String)}.
+	 */
+	public static Method method(Class<?> clazz, String name, Class<?>... parameterTypes) {
+		try {
+			Method method = clazz.getDeclaredMethod(name, parameterTypes);
+			method.setAccessible(true);
+			return method;
+		} catch (NoSuchMethodException | SecurityException e) {
+			throw new IllegalStateException("Cannot access method " + name + " of " + clazz.getName(), e);
+		}
+	}
+
+	public static void set(Field field, Object object, Object value) throws CreationException {
+		try {
+			field.set(object, value);
+		} catch (IllegalAccessException e) {
+			throw new CreationException("Cannot set field " + field.toGenericString(), e);
+		}
+	}
+
+	private static Injector<?> loadInjector(Class<?> clazz) {
+		ClassLoader classLoader = clazz.getClassLoader();
+		if (classLoader == null) {
+			return NO_INJECTOR;
+		}
+		try {
+			Class<?> injectorClass = Class.forName(injectorName(clazz), true, classLoader);
+			if (!Injector.class.isAssignableFrom(injectorClass)) {
+				return NO_INJECTOR;
+			}
+			return (Injector<?>) injectorClass.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return NO_INJECTOR;
+		}
+	}
+
+}
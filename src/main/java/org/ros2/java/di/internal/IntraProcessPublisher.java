@@ -0,0 +1,78 @@
+package org.ros2.java.di.internal;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.ros2.java.di.annotations.IntraProcess;
+import org.ros2.java.di.transport.Transport;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.publisher.Publisher;
+
+/**
+ * Publisher handing messages to the subscribers of the same RosJavaDi on the
+ * calling thread, and to the transport only when it has subscribers elsewhere
+ * or cannot tell, or subscribers of the same RosJavaDi receive the topic from
+ * it. Messages of latched publishers always go to the transport,
+ * which keeps them for later subscriptions. Methods other than publish go to
+ * the transport publisher.
+ */
+public class IntraProcessPublisher implements InvocationHandler {
+
+	private final Publisher<MessageDefinition> publisher;
+	private final IntraProcessTopic topic;
+	private final IntraProcess mode;
+	private final Transport transport;
+	private final boolean latched;
+
+	private IntraProcessPublisher(Publisher<MessageDefinition> publisher, IntraProcessTopic topic,
+			IntraProcess mode, Transport transport, boolean latched) {
+		this.publisher = publisher;
+		this.topic = topic;
+		this.mode = mode;
+		this.transport = transport;
+		this.latched = latched;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <T extends MessageDefinition> Publisher<T> create(Publisher<T> publisher, IntraProcessTopic topic,
+			IntraProcess mode, Transport transport, boolean latched) {
+		return (Publisher<T>) Proxy.newProxyInstance(Publisher.class.getClassLoader(),
+				new Class<?>[] { Publisher.class },
+				new IntraProcessPublisher((Publisher<MessageDefinition>) publisher, topic, mode, transport, latched));
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		if (method.getName().equals("publish") && args != null && args.length == 1) {
+			publish((MessageDefinition) args[0]);
+			return null;
+		}
+		switch (method.getName()) {
+		case "equals":
+			return proxy == args[0];
+		case "hashCode":
+			return System.identityHashCode(proxy);
+		case "toString":
+			return "IntraProcessPublisher " + topic.name;
+		}
+		try {
+			return method.invoke(publisher, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void publish(MessageDefinition message) {
+		for (RosJavaSubscriber<?> subscriber : topic.subscribers) {
+			MessageDefinition delivered = mode == IntraProcess.COPY ? MessageCopier.copy(message) : message;
+			((RosJavaSubscriber<MessageDefinition>) subscriber).handleMessage(delivered);
+		}
+		if (latched || topic.transportSubscribers || transport.getRemoteSubscriptionCount(topic.name) != 0) {
+			publisher.publish(message);
+		}
+	}
+
+}
@@ -0,0 +1,26 @@
+package org.ros2.java.di.internal;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Topic with intra-process publishers and the subscribers of the same
+ * RosJavaDi they deliver to.
+ */
+public class IntraProcessTopic {
+
+	public final String name;
+	public final Class<?> type;
+	public final CopyOnWriteArrayList<RosJavaSubscriber<?>> subscribers = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Tells if subscribers of the same RosJavaDi receive the topic through the
+	 * transport, because it cannot skip their own messages.
+	 */
+	public volatile boolean transportSubscribers = false;
+
+	public IntraProcessTopic(String name, Class<?> type) {
+		this.name = name;
+		this.type = type;
+	}
+
+}
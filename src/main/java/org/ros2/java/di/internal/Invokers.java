@@ -0,0 +1,277 @@
+package org.ros2.java.di.internal;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.ros2.java.di.LogSeldom;
+import org.ros2.java.di.ParameterSnapshot;
+import org.ros2.java.di.RosJavaDi;
+import org.ros2.java.di.exceptions.CreationException;
+
+/**
+ * Creates invokers for annotated methods once, at injection time, so that
+ * messages and ticks are dispatched without reflection.
+ * <p>
+ * Invokers are generated with {@link LambdaMetafactory}, which the JIT treats
+ * like a hand written lambda. Public methods of public classes get a lambda
+ * defined next to this class. On Java 9 and newer, other methods get a lambda
+ * defined next to their class through a private lookup, like the lambdas
+ * javac compiles into it. Methods no lambda can call, such as non-public
+ * methods on Java 8, get an invoker calling a bound {@link MethodHandle}.
+ */
+public class Invokers {
+
+	private static final LogSeldom LOG = RosJavaDi.getLog();
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	/**
+	 * MethodHandles.privateLookupIn, or null on Java 8.
+	 */
+	private static final MethodHandle PRIVATE_LOOKUP_IN;
+
+	static {
+		MethodHandle privateLookupIn;
+		try {
+			privateLookupIn = LOOKUP.findStatic(MethodHandles.class, "privateLookupIn", MethodType
+					.methodType(MethodHandles.Lookup.class, Class.class, MethodHandles.Lookup.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			// running on Java 8
+			privateLookupIn = null;
+		}
+		PRIVATE_LOOKUP_IN = privateLookupIn;
+	}
+
+	private static final MethodType MESSAGE_INVOKER_TYPE = MethodType.methodType(void.class, Object.class);
+	private static final MethodType METHOD_INVOKER_TYPE = MethodType.methodType(Object.class);
+	private static final MethodType VOID_INVOKER_TYPE = MethodType.methodType(void.class);
+	private static final MethodType PARAMETER_CHANGE_INVOKER_TYPE = MethodType.methodType(void.class,
+			ParameterSnapshot.class, ParameterSnapshot.class);
+
+	public static MessageInvoker messageInvoker(Object object, Method method) throws CreationException {
+		if (method.getParameterCount() != 1) {
+			throw new CreationException("Method " + method.toGenericString() + " must have exactly one parameter");
+		}
+		MethodHandles.Lookup lookup = lambdaLookup(method, MessageInvoker.class);
+		if (lookup != null) {
+			try {
+				MethodType instantiatedType = MethodType.methodType(void.class, method.getParameterTypes()[0]);
+				return (MessageInvoker) generateLambda(lookup, MessageInvoker.class, object, method,
+						MESSAGE_INVOKER_TYPE, instantiatedType);
+			} catch (LambdaConversionException | IllegalAccessException | IllegalArgumentException
+					| IllegalStateException e) {
+				LOG.debug("Calling " + method.toGenericString() + " through a method handle", e);
+			}
+		}
+		MethodHandle handle = unreflect(method);
+		if (!Modifier.isStatic(method.getModifiers())) {
+			handle = handle.bindTo(object);
+		}
+		return new MessageHandleInvoker(handle.asType(MESSAGE_INVOKER_TYPE));
+	}
+
+	public static MethodInvoker methodInvoker(Object object, Method method) throws CreationException {
+		if (method.getParameterCount() != 0) {
+			throw new CreationException("Method " + method.toGenericString() + " cannot have parameters");
+		}
+		boolean isVoid = method.getReturnType() == void.class;
+		MethodHandles.Lookup lookup = lambdaLookup(method, isVoid ? VoidInvoker.class : MethodInvoker.class);
+		if (lookup != null) {
+			try {
+				if (isVoid) {
+					return new VoidLambdaInvoker((VoidInvoker) generateLambda(lookup, VoidInvoker.class, object,
+							method, VOID_INVOKER_TYPE, VOID_INVOKER_TYPE));
+				}
+				return (MethodInvoker) generateLambda(lookup, MethodInvoker.class, object, method,
+						METHOD_INVOKER_TYPE, METHOD_INVOKER_TYPE);
+			} catch (LambdaConversionException | IllegalAccessException | IllegalArgumentException
+					| IllegalStateException e) {
+				LOG.debug("Calling " + method.toGenericString() + " through a method handle", e);
+			}
+		}
+		MethodHandle handle = unreflect(method);
+		if (!Modifier.isStatic(method.getModifiers())) {
+			handle = handle.bindTo(object);
+		}
+		return new MethodHandleInvoker(handle.asType(METHOD_INVOKER_TYPE));
+	}
+
+	/**
+	 * Returns invoker of a method taking the previous and current snapshot.
+	 * Parameter changes are rare, so it always calls a method handle.
+	 */
+	public static ParameterChangeInvoker parameterChangeInvoker(Object object, Method method)
+			throws CreationException {
+		Class<?>[] types = method.getParameterTypes();
+		if (types.length != 2 || types[0] != ParameterSnapshot.class || types[1] != ParameterSnapshot.class) {
+			throw new CreationException(
+					"Method " + method.toGenericString() + " must take previous and current ParameterSnapshot");
+		}
+		MethodHandle handle = unreflect(method);
+		if (!Modifier.isStatic(method.getModifiers())) {
+			handle = handle.bindTo(object);
+		}
+		return new ParameterChangeHandleInvoker(handle.asType(PARAMETER_CHANGE_INVOKER_TYPE));
+	}
+
+	private static MethodHandle unreflect(Method method) throws CreationException {
+		if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+			method.setAccessible(true);
+		}
+		try {
+			return LOOKUP.unreflect(method);
+		} catch (IllegalAccessException e) {
+			throw new CreationException("Cannot access method " + method.toGenericString(), e);
+		}
+	}
+
+	/**
+	 * Generates a lambda calling the method, defined next to the class of the
+	 * lookup.
+	 */
+	private static Object generateLambda(MethodHandles.Lookup lookup, Class<?> interfaceType, Object object,
+			Method method, MethodType interfaceMethodType, MethodType instantiatedType)
+			throws LambdaConversionException, IllegalAccessException {
+		MethodHandle handle = lookup.unreflect(method);
+		boolean isStatic = Modifier.isStatic(method.getModifiers());
+		MethodType factoryType = isStatic ? MethodType.methodType(interfaceType)
+				: MethodType.methodType(interfaceType, method.getDeclaringClass());
+		CallSite site = LambdaMetafactory.metafactory(lookup, "invoke", factoryType, interfaceMethodType, handle,
+				instantiatedType);
+		try {
+			return isStatic ? site.getTarget().invoke() : site.getTarget().invoke(object);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			// the factory only allocates the lambda, it has no checked exceptions
+			throw new IllegalStateException("Lambda factory of " + method.toGenericString() + " failed", t);
+		}
+	}
+
+	/**
+	 * Returns lookup of the class next to which a lambda calling the method is
+	 * defined, or null if no lambda can call it. Lambdas defined next to this
+	 * class can only call public methods of public classes that are visible
+	 * from this class loader. Lambdas defined next to the class declaring the
+	 * method can call any of its methods, as long as that class sees the
+	 * interface of the lambda.
+	 */
+	private static MethodHandles.Lookup lambdaLookup(Method method, Class<?> interfaceType) {
+		if (isPublic(method) && isVisible(method, Invokers.class.getClassLoader())) {
+			return LOOKUP;
+		}
+		Class<?> declaringClass = method.getDeclaringClass();
+		if (PRIVATE_LOOKUP_IN == null || !isVisible(interfaceType, declaringClass.getClassLoader())) {
+			return null;
+		}
+		try {
+			return (MethodHandles.Lookup) PRIVATE_LOOKUP_IN.invokeExact(declaringClass, LOOKUP);
+		} catch (Throwable e) {
+			// the module of the class is not open to this one
+			LOG.debug("Cannot look up private members of " + declaringClass.getName(), e);
+			return null;
+		}
+	}
+
+	private static boolean isPublic(Method method) {
+		if (!Modifier.isPublic(method.getModifiers())) {
+			return false;
+		}
+		for (Class<?> c = method.getDeclaringClass(); c != null; c = c.getEnclosingClass()) {
+			if (!Modifier.isPublic(c.getModifiers())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isVisible(Method method, ClassLoader classLoader) {
+		if (!isVisible(method.getDeclaringClass(), classLoader) || !isVisible(method.getReturnType(), classLoader)) {
+			return false;
+		}
+		for (Class<?> type : method.getParameterTypes()) {
+			if (!isVisible(type, classLoader)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isVisible(Class<?> type, ClassLoader classLoader) {
+		if (type.isPrimitive()) {
+			return true;
+		}
+		try {
+			return Class.forName(type.getName(), false, classLoader) == type;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	private static class MessageHandleInvoker implements MessageInvoker {
+
+		private final MethodHandle handle;
+
+		MessageHandleInvoker(MethodHandle handle) {
+			this.handle = handle;
+		}
+
+		@Override
+		public void invoke(Object message) throws Throwable {
+			handle.invokeExact(message);
+		}
+	}
+
+	/**
+	 * Adapts the lambda of a void method, which returns nothing.
+	 */
+	private static class VoidLambdaInvoker implements MethodInvoker {
+
+		private final VoidInvoker invoker;
+
+		VoidLambdaInvoker(VoidInvoker invoker) {
+			this.invoker = invoker;
+		}
+
+		@Override
+		public Object invoke() throws Throwable {
+			invoker.invoke();
+			return null;
+		}
+	}
+
+	private static class MethodHandleInvoker implements MethodInvoker {
+
+		private final MethodHandle handle;
+
+		MethodHandleInvoker(MethodHandle handle) {
+			this.handle = handle;
+		}
+
+		@Override
+		public Object invoke() throws Throwable {
+			return (Object) handle.invokeExact();
+		}
+	}
+
+
+	private static class ParameterChangeHandleInvoker implements ParameterChangeInvoker {
+
+		private final MethodHandle handle;
+
+		ParameterChangeHandleInvoker(MethodHandle handle) {
+			this.handle = handle;
+		}
+
+		@Override
+		public void invoke(ParameterSnapshot previous, ParameterSnapshot current) throws Throwable {
+			handle.invokeExact(previous, current);
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package org.ros2.java.di.internal;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.publisher.Publisher;
+
+/**
+ * Publisher of a latched topic remembering the last published message, which
+ * RosJavaDi replays to its own subscribers registered after it was published.
+ * Methods other than publish go to the wrapped publisher.
+ */
+public class LatchedPublisher implements InvocationHandler {
+
+	public final String topicName;
+
+	/**
+	 * Tells if subscribers share the published object, otherwise they are
+	 * replayed a copy.
+	 */
+	public final boolean shared;
+
+	private final Publisher<MessageDefinition> publisher;
+	private volatile MessageDefinition last;
+
+	@SuppressWarnings("unchecked")
+	public LatchedPublisher(Publisher<? extends MessageDefinition> publisher, String topicName, boolean shared) {
+		this.publisher = (Publisher<MessageDefinition>) publisher;
+		this.topicName = topicName;
+		this.shared = shared;
+	}
+
+	/**
+	 * Returns the publisher given to the component.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends MessageDefinition> Publisher<T> proxy() {
+		return (Publisher<T>) Proxy.newProxyInstance(Publisher.class.getClassLoader(),
+				new Class<?>[] { Publisher.class }, this);
+	}
+
+	/**
+	 * Returns the last published message, or null.
+	 */
+	public MessageDefinition getLastMessage() {
+		return last;
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		if (method.getName().equals("publish") && args != null && args.length == 1) {
+			MessageDefinition message = (MessageDefinition) args[0];
+			last = message;
+			publisher.publish(message);
+			return null;
+		}
+		switch (method.getName()) {
+		case "equals":
+			return proxy == args[0];
+		case "hashCode":
+			return System.identityHashCode(proxy);
+		case "toString":
+			return "LatchedPublisher " + topicName;
+		}
+		try {
+			return method.invoke(publisher, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+}
@@ -0,0 +1,38 @@
+package org.ros2.java.di.internal;
+
+import java.util.logging.Level;
+
+/**
+ * Slot of the asynchronous log ring buffer. The fields are written by the
+ * logging thread and read by the log consumer, the sequence tells who owns the
+ * slot.
+ */
+public class LogEvent {
+
+	volatile long sequence;
+
+	public RosJavaDiLog log;
+	public byte rosLevel;
+	public Level level;
+	public Object message;
+	public Throwable throwable;
+	/**
+	 * Resolved at the call, null when unknown.
+	 */
+	public StackTraceElement caller;
+	public long suppressed;
+	public long timeMillis;
+	public long threadId;
+
+	LogEvent(long sequence) {
+		this.sequence = sequence;
+	}
+
+	void clear() {
+		log = null;
+		level = null;
+		message = null;
+		throwable = null;
+		caller = null;
+	}
+}
@@ -1,7 +0,0 @@
-package org.ros2.java.di.internal;
-
-public class LogTime {
-
-	public long time = 0;
-
-}
@@ -0,0 +1,266 @@
+package org.ros2.java.di.internal;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.ros2.rcljava.parameters.ParameterType;
+import org.ros2.rcljava.parameters.ParameterVariant;
+
+/**
+ * Parameters of all nodes of a parameter file in a compact binary file that
+ * is memory-mapped and decoded one key at a time, so opening it costs the
+ * same for any file size and a node only decodes the parameters it reads.
+ * <p>
+ * The file starts with a header identifying the source YAML by size and
+ * modification time, followed by a sorted index of entry offsets, which is
+ * binary searched for a key, and the entries:
+ *
+ * <pre>
+ * int magic, int version, long source size, long source modified, int count
+ * int[count] entry offsets, sorted by key
+ * entries: short key length, key (UTF-8 section \0 name), byte type, value
+ * </pre>
+ */
+public class MappedParameterStore {
+
+	private static final int MAGIC = 0x524a4450;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 28;
+
+	private static final byte BOOL = 0;
+	private static final byte INTEGER = 1;
+	private static final byte DOUBLE = 2;
+	private static final byte STRING = 3;
+
+	private final ByteBuffer buffer;
+	private final int count;
+
+	private MappedParameterStore(ByteBuffer buffer) {
+		this.buffer = buffer;
+		this.count = buffer.getInt(24);
+	}
+
+	/**
+	 * Maps the cache file, returns null if it does not exist or was written
+	 * for a different version of the source file.
+	 */
+	public static MappedParameterStore open(Path cache, Path source) {
+		if (!Files.isRegularFile(cache)) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+				return null;
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getLong(8) != Files.size(source)
+					|| buffer.getLong(16) != Files.getLastModifiedTime(source).toMillis()) {
+				return null;
+			}
+			return new MappedParameterStore(buffer);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the parameters of all sections, replacing the cache file
+	 * atomically so that nodes starting at the same time never map a partial
+	 * file.
+	 */
+	public static void write(Path cache, Path source, Map<String, Map<String, ParameterVariant>> sections)
+			throws IOException {
+		ArrayList<byte[]> keys = new ArrayList<>();
+		ArrayList<ParameterVariant> values = new ArrayList<>();
+		for (Entry<String, Map<String, ParameterVariant>> section : sections.entrySet()) {
+			for (Entry<String, ParameterVariant> parameter : section.getValue().entrySet()) {
+				keys.add(key(section.getKey(), parameter.getKey()));
+				values.add(parameter.getValue());
+			}
+		}
+		ArrayList<Integer> order = new ArrayList<>(keys.size());
+		for (int i = 0; i < keys.size(); i++) {
+			order.add(i);
+		}
+		Collections.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return compareKeys(keys.get(a), keys.get(b));
+			}
+		});
+
+		Path absolute = cache.toAbsolutePath();
+		Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+		try {
+			try (OutputStream file = Files.newOutputStream(temporary);
+					DataOutputStream output = new DataOutputStream(new BufferedOutputStream(file))) {
+				output.writeInt(MAGIC);
+				output.writeInt(VERSION);
+				output.writeLong(Files.size(source));
+				output.writeLong(Files.getLastModifiedTime(source).toMillis());
+				output.writeInt(keys.size());
+				int offset = HEADER_SIZE + 4 * keys.size();
+				for (int i : order) {
+					output.writeInt(offset);
+					offset += entrySize(keys.get(i), values.get(i));
+				}
+				for (int i : order) {
+					writeEntry(output, keys.get(i), values.get(i));
+				}
+			}
+			try {
+				Files.move(temporary, cache, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporary, cache, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * Returns parameters of the named node, falling back to the
+	 * <code>/**</code> section.
+	 */
+	public ParameterStore forNode(String nodeName) {
+		final String section = ParameterFile.sectionName(nodeName);
+		return new ParameterStore() {
+			@Override
+			public ParameterVariant get(String name) {
+				ParameterVariant variant = MappedParameterStore.this.get(section, name);
+				return variant != null ? variant : MappedParameterStore.this.get(ParameterFile.WILDCARD, name);
+			}
+		};
+	}
+
+	/**
+	 * Returns the parameter of the section, decoding only its entry.
+	 */
+	public ParameterVariant get(String section, String name) {
+		byte[] key = key(section, name);
+		int low = 0;
+		int high = count - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int entry = buffer.getInt(HEADER_SIZE + 4 * middle);
+			int compare = compareKey(entry, key);
+			if (compare < 0) {
+				low = middle + 1;
+			} else if (compare > 0) {
+				high = middle - 1;
+			} else {
+				return readValue(name, entry + 2 + key.length);
+			}
+		}
+		return null;
+	}
+
+	private int compareKey(int entry, byte[] key) {
+		int length = buffer.getShort(entry) & 0xffff;
+		int common = Math.min(length, key.length);
+		for (int i = 0; i < common; i++) {
+			int compare = (buffer.get(entry + 2 + i) & 0xff) - (key[i] & 0xff);
+			if (compare != 0) {
+				return compare;
+			}
+		}
+		return length - key.length;
+	}
+
+	private ParameterVariant readValue(String name, int position) {
+		switch (buffer.get(position)) {
+		case BOOL:
+			return new ParameterVariant(name, buffer.get(position + 1) != 0);
+		case INTEGER:
+			return new ParameterVariant(name, buffer.getLong(position + 1));
+		case DOUBLE:
+			return new ParameterVariant(name, buffer.getDouble(position + 1));
+		default:
+			byte[] bytes = new byte[buffer.getInt(position + 1)];
+			ByteBuffer view = buffer.duplicate();
+			view.position(position + 5);
+			view.get(bytes);
+			return new ParameterVariant(name, new String(bytes, StandardCharsets.UTF_8));
+		}
+	}
+
+	private static byte[] key(String section, String name) {
+		return (section + '\0' + name).getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static int compareKeys(byte[] a, byte[] b) {
+		int common = Math.min(a.length, b.length);
+		for (int i = 0; i < common; i++) {
+			int compare = (a[i] & 0xff) - (b[i] & 0xff);
+			if (compare != 0) {
+				return compare;
+			}
+		}
+		return a.length - b.length;
+	}
+
+	private static int entrySize(byte[] key, ParameterVariant value) {
+		int size = 2 + key.length + 1;
+		switch (typeOf(value)) {
+		case BOOL:
+			return size + 1;
+		case INTEGER:
+		case DOUBLE:
+			return size + 8;
+		default:
+			return size + 4 + value.asString().getBytes(StandardCharsets.UTF_8).length;
+		}
+	}
+
+	private static void writeEntry(DataOutputStream output, byte[] key, ParameterVariant value) throws IOException {
+		if (key.length > 0xffff) {
+			throw new IOException("Parameter name too long: " + value.getName());
+		}
+		output.writeShort(key.length);
+		output.write(key);
+		byte type = typeOf(value);
+		output.writeByte(type);
+		switch (type) {
+		case BOOL:
+			output.writeBoolean(value.asBool());
+			break;
+		case INTEGER:
+			output.writeLong(value.asInt());
+			break;
+		case DOUBLE:
+			output.writeDouble(value.asDouble());
+			break;
+		default:
+			byte[] bytes = value.asString().getBytes(StandardCharsets.UTF_8);
+			output.writeInt(bytes.length);
+			output.write(bytes);
+		}
+	}
+
+	private static byte typeOf(ParameterVariant value) {
+		if (value.getType() == ParameterType.PARAMETER_BOOL) {
+			return BOOL;
+		} else if (value.getType() == ParameterType.PARAMETER_INTEGER) {
+			return INTEGER;
+		} else if (value.getType() == ParameterType.PARAMETER_DOUBLE) {
+			return DOUBLE;
+		}
+		return STRING;
+	}
+}
@@ -0,0 +1,77 @@
+package org.ros2.java.di.internal;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ros2.rcljava.interfaces.MessageDefinition;
+
+/**
+ * Deep copies ROS messages field by field. Nested messages, arrays and lists
+ * are copied, other objects such as strings are shared.
+ */
+public class MessageCopier {
+
+	private static final ClassValue<Field[]> FIELDS = new ClassValue<Field[]>() {
+		@Override
+		protected Field[] computeValue(Class<?> type) {
+			ArrayList<Field> fields = new ArrayList<>();
+			for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+				for (Field field : c.getDeclaredFields()) {
+					if (!Modifier.isStatic(field.getModifiers())) {
+						field.setAccessible(true);
+						fields.add(field);
+					}
+				}
+			}
+			return fields.toArray(new Field[fields.size()]);
+		}
+	};
+
+	@SuppressWarnings("unchecked")
+	public static <T> T copy(T message) {
+		if (message == null) {
+			return null;
+		}
+		try {
+			T copy = (T) message.getClass().newInstance();
+			for (Field field : FIELDS.get(message.getClass())) {
+				field.set(copy, copyValue(field.get(message)));
+			}
+			return copy;
+		} catch (InstantiationException | IllegalAccessException e) {
+			throw new IllegalArgumentException("Cannot copy message " + message.getClass().getName(), e);
+		}
+	}
+
+	private static Object copyValue(Object value) {
+		if (value == null) {
+			return null;
+		} else if (value instanceof MessageDefinition) {
+			return copy(value);
+		} else if (value instanceof List) {
+			List<?> list = (List<?>) value;
+			ArrayList<Object> copy = new ArrayList<>(list.size());
+			for (Object element : list) {
+				copy.add(copyValue(element));
+			}
+			return copy;
+		} else if (value.getClass().isArray()) {
+			int length = Array.getLength(value);
+			Class<?> componentType = value.getClass().getComponentType();
+			Object copy = Array.newInstance(componentType, length);
+			if (componentType.isPrimitive()) {
+				System.arraycopy(value, 0, copy, 0, length);
+			} else {
+				for (int i = 0; i < length; i++) {
+					Array.set(copy, i, copyValue(Array.get(value, i)));
+				}
+			}
+			return copy;
+		}
+		return value;
+	}
+
+}
@@ -0,0 +1,10 @@
+package org.ros2.java.di.internal;
+
+/**
+ * Calls a message handler method on its object.
+ */
+public interface MessageInvoker {
+
+	void invoke(Object message) throws Throwable;
+
+}
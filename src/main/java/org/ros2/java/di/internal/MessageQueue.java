@@ -0,0 +1,122 @@
+package org.ros2.java.di.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue backed by a ring buffer. Safe for many producers
+ * and many consumers: every slot carries a sequence number telling whether it
+ * is free for the next writer or ready for the next reader.
+ * <p>
+ * A stamped queue also keeps a timestamp with every item, for example to
+ * measure how long it waited.
+ */
+public class MessageQueue<E> {
+
+	private final int capacity;
+	private final AtomicReferenceArray<E> items;
+	private final AtomicLongArray sequences;
+	private final long[] stamps;
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong tail = new AtomicLong();
+
+	public MessageQueue(int capacity) {
+		this(capacity, false);
+	}
+
+	public MessageQueue(int capacity, boolean stamped) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Queue capacity must be positive, was " + capacity);
+		}
+		this.capacity = capacity;
+		this.items = new AtomicReferenceArray<>(capacity);
+		this.sequences = new AtomicLongArray(capacity);
+		this.stamps = stamped ? new long[capacity] : null;
+		for (int i = 0; i < capacity; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * Adds the item at the tail of the queue. Returns false if the queue is
+	 * full.
+	 */
+	public boolean offer(E item) {
+		return offer(item, 0);
+	}
+
+	/**
+	 * Adds the item with the timestamp returned by {@link #poll(long[])}.
+	 * Returns false if the queue is full.
+	 */
+	public boolean offer(E item, long stamp) {
+		long position = tail.get();
+		while (true) {
+			int index = (int) (position % capacity);
+			long difference = sequences.get(index) - position;
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					if (stamps != null) {
+						// published to the reader by the volatile write of the sequence
+						stamps[index] = stamp;
+					}
+					items.lazySet(index, item);
+					sequences.set(index, position + 1);
+					return true;
+				}
+			} else if (difference < 0) {
+				return false;
+			}
+			position = tail.get();
+		}
+	}
+
+	/**
+	 * Removes the item at the head of the queue. Returns null if the queue is
+	 * empty.
+	 */
+	public E poll() {
+		return poll(null);
+	}
+
+	/**
+	 * Removes the item at the head of the queue and stores its timestamp into
+	 * the first element of the given array, if not null. Returns null if the
+	 * queue is empty.
+	 */
+	public E poll(long[] stamp) {
+		long position = head.get();
+		while (true) {
+			int index = (int) (position % capacity);
+			long difference = sequences.get(index) - (position + 1);
+			if (difference == 0) {
+				if (head.compareAndSet(position, position + 1)) {
+					E item = items.get(index);
+					if (stamp != null && stamps != null) {
+						stamp[0] = stamps[index];
+					}
+					items.lazySet(index, null);
+					sequences.set(index, position + capacity);
+					return item;
+				}
+			} else if (difference < 0) {
+				return null;
+			}
+			position = head.get();
+		}
+	}
+
+	public int size() {
+		long size = tail.get() - head.get();
+		if (size < 0) {
+			return 0;
+		}
+		return (int) Math.min(size, capacity);
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+}
@@ -0,0 +1,11 @@
+package org.ros2.java.di.internal;
+
+/**
+ * Calls a method without arguments on its object and returns its result, or
+ * null if the method is void.
+ */
+public interface MethodInvoker {
+
+	Object invoke() throws Throwable;
+
+}
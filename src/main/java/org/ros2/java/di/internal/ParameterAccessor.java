@@ -0,0 +1,12 @@
+package org.ros2.java.di.internal;
+
+/**
+ * Reads and writes the field holding the value of a parameter.
+ */
+public interface ParameterAccessor {
+
+	Object get() throws IllegalAccessException;
+
+	void set(Object value) throws IllegalAccessException;
+
+}
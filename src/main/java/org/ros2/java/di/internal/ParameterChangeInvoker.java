@@ -0,0 +1,12 @@
+package org.ros2.java.di.internal;
+
+import org.ros2.java.di.ParameterSnapshot;
+
+/**
+ * Calls a parameter change listener method on its object.
+ */
+public interface ParameterChangeInvoker {
+
+	void invoke(ParameterSnapshot previous, ParameterSnapshot current) throws Throwable;
+
+}
@@ -0,0 +1,470 @@
+package org.ros2.java.di.internal;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.ros2.rcljava.parameters.ParameterType;
+import org.ros2.rcljava.parameters.ParameterVariant;
+import org.yaml.snakeyaml.Yaml;
+
+/**
+ * Converts parameter values received from the parameter server to the types
+ * of the annotated fields and back.
+ * <p>
+ * Booleans, numbers, strings and enums map to plain parameters. Arrays,
+ * collections, maps and other classes with a public no argument constructor
+ * are passed as YAML strings. Parsed YAML is cached by the raw string, so a
+ * value set again does not get parsed again, and every field gets its own
+ * copy of the cached collections.
+ */
+public class ParameterConversions {
+
+	/**
+	 * Returned when the field type is not supported and the field should be
+	 * left unchanged.
+	 */
+	public static final Object UNSUPPORTED = new Object();
+
+	/**
+	 * Number of parsed YAML strings kept, the cache is emptied when full.
+	 */
+	static final int YAML_CACHE_SIZE = 256;
+
+	/**
+	 * Stands for null YAML documents in the cache.
+	 */
+	private static final Object NULL = new Object();
+
+	private static final ThreadLocal<Yaml> YAML = new ThreadLocal<Yaml>() {
+		@Override
+		protected Yaml initialValue() {
+			return new Yaml();
+		}
+	};
+
+	private static final ConcurrentHashMap<String, Object> YAML_CACHE = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns converter for fields of the given type.
+	 */
+	public static ParameterConverter converterFor(Class<?> type) {
+		if (type == boolean.class || type == Boolean.class) {
+			return BOOLEAN;
+		} else if (type == int.class || type == Integer.class) {
+			return INTEGER;
+		} else if (type == long.class || type == Long.class) {
+			return LONG;
+		} else if (type == float.class || type == Float.class) {
+			return FLOAT;
+		} else if (type == double.class || type == Double.class) {
+			return DOUBLE;
+		} else if (type == String.class) {
+			return STRING;
+		} else if (type.isEnum()) {
+			return new EnumConverter(type);
+		} else if (type.isArray()) {
+			return new ArrayConverter(type.getComponentType());
+		} else if (Collection.class.isAssignableFrom(type)) {
+			return new CollectionConverter(type);
+		} else if (Map.class.isAssignableFrom(type)) {
+			return new MapConverter(type);
+		} else if (isBean(type)) {
+			return new BeanConverter(type);
+		}
+		return UNSUPPORTED_TYPE;
+	}
+
+	/**
+	 * Returns YAML parsed into lists, maps and scalars, which must not be
+	 * modified as they are shared through the cache.
+	 */
+	static Object parseYaml(String raw) {
+		Object value = YAML_CACHE.get(raw);
+		if (value == null) {
+			value = YAML.get().load(raw);
+			if (value == null) {
+				value = NULL;
+			}
+			if (YAML_CACHE.size() >= YAML_CACHE_SIZE) {
+				YAML_CACHE.clear();
+			}
+			YAML_CACHE.put(raw, value);
+		}
+		return value == NULL ? null : value;
+	}
+
+	static String dumpYaml(Object value) {
+		return YAML.get().dump(value);
+	}
+
+	private static boolean isBean(Class<?> type) {
+		if (type.isInterface() || type.isPrimitive() || Modifier.isAbstract(type.getModifiers())
+				|| type.getName().startsWith("java.")) {
+			return false;
+		}
+		try {
+			return Modifier.isPublic(type.getConstructor().getModifiers());
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns deep copy of parsed YAML, so the cached value stays intact.
+	 */
+	@SuppressWarnings("unchecked")
+	private static Object copy(Object value) {
+		if (value instanceof List) {
+			List<Object> list = (List<Object>) value;
+			ArrayList<Object> result = new ArrayList<>(list.size());
+			for (Object item : list) {
+				result.add(copy(item));
+			}
+			return result;
+		} else if (value instanceof Map) {
+			Map<Object, Object> map = (Map<Object, Object>) value;
+			LinkedHashMap<Object, Object> result = new LinkedHashMap<>();
+			for (Map.Entry<Object, Object> entry : map.entrySet()) {
+				result.put(copy(entry.getKey()), copy(entry.getValue()));
+			}
+			return result;
+		}
+		return value;
+	}
+
+	private static String asString(ParameterVariant variant) {
+		if (variant.getType() == ParameterType.PARAMETER_INTEGER) {
+			return Long.toString(variant.asInt());
+		} else if (variant.getType() == ParameterType.PARAMETER_DOUBLE) {
+			return Double.toString(variant.asDouble());
+		} else if (variant.getType() == ParameterType.PARAMETER_BOOL) {
+			return Boolean.toString(variant.asBool());
+		} else {
+			return variant.asString();
+		}
+	}
+
+	private static long asLong(ParameterVariant variant) {
+		if (variant.getType() == ParameterType.PARAMETER_STRING) {
+			return (long) Double.parseDouble(variant.asString());
+		} else if (variant.getType() == ParameterType.PARAMETER_DOUBLE) {
+			return (long) variant.asDouble();
+		} else {
+			return variant.asInt();
+		}
+	}
+
+	private static double asDouble(ParameterVariant variant) {
+		if (variant.getType() == ParameterType.PARAMETER_STRING) {
+			return Double.parseDouble(variant.asString());
+		} else if (variant.getType() == ParameterType.PARAMETER_INTEGER) {
+			return (double) variant.asInt();
+		} else {
+			return variant.asDouble();
+		}
+	}
+
+	/**
+	 * Converts one element of a parsed YAML list to the component type of an
+	 * array.
+	 */
+	private static Object element(Object item, Class<?> type) {
+		if (item == null || type.isInstance(item) && !(item instanceof Collection || item instanceof Map)) {
+			return item;
+		} else if (type == int.class || type == Integer.class) {
+			return ((Number) item).intValue();
+		} else if (type == long.class || type == Long.class) {
+			return ((Number) item).longValue();
+		} else if (type == float.class || type == Float.class) {
+			return ((Number) item).floatValue();
+		} else if (type == double.class || type == Double.class) {
+			return ((Number) item).doubleValue();
+		} else if (type == boolean.class || type == Boolean.class) {
+			return (Boolean) item;
+		} else if (type == String.class) {
+			return item.toString();
+		} else if (type.isEnum()) {
+			return EnumConverter.valueOf(type, item.toString());
+		}
+		return copy(item);
+	}
+
+	private static final ParameterConverter BOOLEAN = new ParameterConverter() {
+		@Override
+		public Object fromVariant(ParameterVariant variant) {
+			if (variant.getType() == ParameterType.PARAMETER_STRING) {
+				return Boolean.parseBoolean(variant.asString());
+			} else {
+				return variant.asBool();
+			}
+		}
+
+		@Override
+		public ParameterVariant toVariant(String name, Object value) {
+			return value != null ? new ParameterVariant(name, (Boolean) value) : new ParameterVariant(name, "");
+		}
+	};
+
+	private static final ParameterConverter INTEGER = new ParameterConverter() {
+		@Override
+		public Object fromVariant(ParameterVariant variant) {
+			return (int) asLong(variant);
+		}
+
+		@Override
+		public ParameterVariant toVariant(String name, Object value) {
+			return value != null ? new ParameterVariant(name, (Integer) value) : new ParameterVariant(name, "");
+		}
+	};
+
+	private static final ParameterConverter LONG = new ParameterConverter() {
+		@Override
+		public Object fromVariant(ParameterVariant variant) {
+			return asLong(variant);
+		}
+
+		@Override
+		public ParameterVariant toVariant(String name, Object value) {
+			return value != null ? new ParameterVariant(name, (Long) value) : new ParameterVariant(name, "");
+		}
+	};
+
+	private static final ParameterConverter FLOAT = new ParameterConverter() {
+		@Override
+		public Object fromVariant(ParameterVariant variant) {
+			return (float) asDouble(variant);
+		}
+
+		@Override
+		public ParameterVariant toVariant(String name, Object value) {
+			return value != null ? new ParameterVariant(name, (double) (Float) value)
+					: new ParameterVariant(name, "");
+		}
+	};
+
+	private static final ParameterConverter DOUBLE = new ParameterConverter() {
+		@Override
+		public Object fromVariant(ParameterVariant variant) {
+			return asDouble(variant);
+		}
+
+		@Override
+		public ParameterVariant toVariant(String name, Object value) {
+			return value != null ? new ParameterVariant(name, (Double) value) : new ParameterVariant(name, "");
+		}
+	};
+
+	private static final ParameterConverter STRING = new ParameterConverter() {
+		@Override
+		public Object fromVariant(ParameterVariant variant) {
+			return asString(variant);
+		}
+
+		@Override
+		public ParameterVariant toVariant(String name, Object value) {
+			return new ParameterVariant(name, value != null ? value.toString() : "");
+		}
+	};
+
+	/**
+	 * Leaves the field unchanged, publishing its string form.
+	 */
+	private static final ParameterConverter UNSUPPORTED_TYPE = new ParameterConverter() {
+		@Override
+		public Object fromVariant(ParameterVariant variant) {
+			return UNSUPPORTED;
+		}
+
+		@Override
+		public ParameterVariant toVariant(String name, Object value) {
+			return new ParameterVariant(name, value != null ? value.toString() : "");
+		}
+	};
+
+	private static class EnumConverter implements ParameterConverter {
+
+		private Class<?> type;
+
+		EnumConverter(Class<?> type) {
+			this.type = type;
+		}
+
+		/**
+		 * Returns constant with the given name, ignoring case if there is no
+		 * exact match.
+		 */
+		static Object valueOf(Class<?> type, String name) {
+			Object[] constants = type.getEnumConstants();
+			for (Object constant : constants) {
+				if (((Enum<?>) constant).name().equals(name)) {
+					return constant;
+				}
+			}
+			for (Object constant : constants) {
+				if (((Enum<?>) constant).name().equalsIgnoreCase(name)) {
+					return constant;
+				}
+			}
+			throw new IllegalArgumentException("No constant " + name + " in " + type.getName());
+		}
+
+		@Override
+		public Object fromVariant(ParameterVariant variant) {
+			return valueOf(type, asString(variant).trim());
+		}
+
+		@Override
+		public ParameterVariant toVariant(String name, Object value) {
+			return new ParameterVariant(name, value != null ? ((Enum<?>) value).name() : "");
+		}
+	}
+
+	private static class ArrayConverter implements ParameterConverter {
+
+		private Class<?> componentType;
+
+		ArrayConverter(Class<?> componentType) {
+			this.componentType = componentType;
+		}
+
+		@Override
+		public Object fromVariant(ParameterVariant variant) {
+			List<?> list = (List<?>) parseYaml(asString(variant));
+			if (list == null) {
+				return Array.newInstance(componentType, 0);
+			}
+			Object array = Array.newInstance(componentType, list.size());
+			for (int i = 0; i < list.size(); i++) {
+				Array.set(array, i, element(list.get(i), componentType));
+			}
+			return array;
+		}
+
+		@Override
+		public ParameterVariant toVariant(String name, Object value) {
+			if (value == null) {
+				return new ParameterVariant(name, "[]");
+			}
+			int length = Array.getLength(value);
+			ArrayList<Object> list = new ArrayList<>(length);
+			for (int i = 0; i < length; i++) {
+				Object item = Array.get(value, i);
+				list.add(item instanceof Enum ? ((Enum<?>) item).name() : item);
+			}
+			return new ParameterVariant(name, dumpYaml(list));
+		}
+	}
+
+	private static class CollectionConverter implements ParameterConverter {
+
+		private Constructor<?> constructor;
+		private boolean set;
+
+		CollectionConverter(Class<?> type) {
+			constructor = concreteConstructor(type);
+			set = Set.class.isAssignableFrom(type);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public Object fromVariant(ParameterVariant variant) {
+			Collection<Object> items = (Collection<Object>) copy(parseYaml(asString(variant)));
+			if (constructor == null && !set) {
+				return items != null ? items : new ArrayList<>();
+			}
+			try {
+				Collection<Object> result = constructor == null ? new LinkedHashSet<>()
+						: (Collection<Object>) constructor.newInstance();
+				if (items != null) {
+					result.addAll(items);
+				}
+				return result;
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalArgumentException("Cannot create " + constructor.getDeclaringClass(), e);
+			}
+		}
+
+		@Override
+		public ParameterVariant toVariant(String name, Object value) {
+			return new ParameterVariant(name, value != null ? dumpYaml(new ArrayList<>((Collection<?>) value)) : "[]");
+		}
+	}
+
+	private static class MapConverter implements ParameterConverter {
+
+		private Constructor<?> constructor;
+
+		MapConverter(Class<?> type) {
+			constructor = concreteConstructor(type);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public Object fromVariant(ParameterVariant variant) {
+			Map<Object, Object> items = (Map<Object, Object>) copy(parseYaml(asString(variant)));
+			try {
+				Map<Object, Object> result = constructor == null ? new HashMap<>()
+						: (Map<Object, Object>) constructor.newInstance();
+				if (items != null) {
+					result.putAll(items);
+				}
+				return result;
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalArgumentException("Cannot create " + constructor.getDeclaringClass(), e);
+			}
+		}
+
+		@Override
+		public ParameterVariant toVariant(String name, Object value) {
+			return new ParameterVariant(name, value != null ? dumpYaml(new LinkedHashMap<>((Map<?, ?>) value)) : "{}");
+		}
+	}
+
+	/**
+	 * Returns constructor of a concrete collection type, or null for
+	 * interfaces and abstract classes, which get the default implementation.
+	 */
+	private static Constructor<?> concreteConstructor(Class<?> type) {
+		if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+			return null;
+		}
+		try {
+			return type.getConstructor();
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Converts nested objects with public fields or setters. Each field gets a
+	 * newly parsed object, they are not cached.
+	 */
+	private static class BeanConverter implements ParameterConverter {
+
+		private Class<?> type;
+
+		BeanConverter(Class<?> type) {
+			this.type = type;
+		}
+
+		@Override
+		public Object fromVariant(ParameterVariant variant) {
+			return YAML.get().loadAs(asString(variant), type);
+		}
+
+		@Override
+		public ParameterVariant toVariant(String name, Object value) {
+			return new ParameterVariant(name, value != null ? YAML.get().dumpAsMap(value) : "{}");
+		}
+	}
+}
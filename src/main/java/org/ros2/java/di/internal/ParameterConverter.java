@@ -0,0 +1,24 @@
+package org.ros2.java.di.internal;
+
+import org.ros2.rcljava.parameters.ParameterVariant;
+
+/**
+ * Converts between parameter values and the type of one annotated field,
+ * chosen once when the field is collected. Implementations are thread-safe.
+ */
+public interface ParameterConverter {
+
+	/**
+	 * Returns value of the parameter converted to the field type, or
+	 * {@link ParameterConversions#UNSUPPORTED} to leave the field unchanged.
+	 * Throws NumberFormatException, IllegalArgumentException or
+	 * ClassCastException when the value cannot be converted.
+	 */
+	Object fromVariant(ParameterVariant variant);
+
+	/**
+	 * Returns parameter holding the field value, which may be null.
+	 */
+	ParameterVariant toVariant(String name, Object value);
+
+}
@@ -0,0 +1,150 @@
+package org.ros2.java.di.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.ros2.rcljava.parameters.ParameterVariant;
+import org.yaml.snakeyaml.Yaml;
+
+/**
+ * Reads ROS 2 parameter files given with <code>__params:=file.yaml</code>:
+ *
+ * <pre>
+ * /**:
+ *   ros__parameters:
+ *     use_sim_time: false
+ * camera:
+ *   ros__parameters:
+ *     rate: 30
+ *     left:
+ *       exposure: 0.01
+ * </pre>
+ *
+ * Nested keys become graph names, <code>left/exposure</code> above is the
+ * parameter <code>/left/exposure</code> of the node <code>camera</code>, which
+ * is where a component with instance name <code>left</code> finds it. Lists
+ * are passed as YAML strings. Values of the node's section override those of
+ * <code>/**</code>.
+ * <p>
+ * With a cache file the parsed parameters of all nodes are written to a
+ * {@link MappedParameterStore}, which later nodes map instead of parsing the
+ * YAML again, as long as the file has not changed.
+ */
+public class ParameterFile {
+
+	static final String WILDCARD = "/**";
+	static final String PARAMETERS_KEY = "ros__parameters";
+
+	/**
+	 * Returns parameters of the named node from the file, using the cache file
+	 * if it is not null.
+	 */
+	public static ParameterStore load(String file, String cacheFile, String nodeName) throws IOException {
+		Path path = Paths.get(file);
+		if (cacheFile != null) {
+			Path cache = Paths.get(cacheFile);
+			MappedParameterStore mapped = MappedParameterStore.open(cache, path);
+			if (mapped != null) {
+				return mapped.forNode(nodeName);
+			}
+			Map<String, Map<String, ParameterVariant>> sections = parse(path);
+			MappedParameterStore.write(cache, path, sections);
+			return forNode(sections, nodeName);
+		}
+		return forNode(parse(path), nodeName);
+	}
+
+	/**
+	 * Returns flattened parameters of every section of the file, keyed by
+	 * node name without the leading slash, or <code>/**</code>.
+	 */
+	static Map<String, Map<String, ParameterVariant>> parse(Path path) throws IOException {
+		Object document;
+		try (InputStream input = Files.newInputStream(path)) {
+			document = new Yaml().load(input);
+		}
+		LinkedHashMap<String, Map<String, ParameterVariant>> sections = new LinkedHashMap<>();
+		if (document == null) {
+			return sections;
+		}
+		if (!(document instanceof Map)) {
+			throw new IOException("Parameter file " + path + " must map node names to parameters");
+		}
+		for (Entry<?, ?> node : ((Map<?, ?>) document).entrySet()) {
+			if (!(node.getValue() instanceof Map)) {
+				continue;
+			}
+			Object parameters = ((Map<?, ?>) node.getValue()).get(PARAMETERS_KEY);
+			if (parameters instanceof Map) {
+				LinkedHashMap<String, ParameterVariant> values = new LinkedHashMap<>();
+				flatten("", (Map<?, ?>) parameters, values);
+				String section = sectionName(String.valueOf(node.getKey()));
+				Map<String, ParameterVariant> existing = sections.get(section);
+				if (existing != null) {
+					existing.putAll(values);
+				} else {
+					sections.put(section, values);
+				}
+			}
+		}
+		return sections;
+	}
+
+	static String sectionName(String nodeName) {
+		if (nodeName.equals(WILDCARD)) {
+			return nodeName;
+		}
+		return nodeName.startsWith("/") ? nodeName.substring(1) : nodeName;
+	}
+
+	private static void flatten(String prefix, Map<?, ?> map, Map<String, ParameterVariant> values) {
+		for (Entry<?, ?> entry : map.entrySet()) {
+			String name = prefix + "/" + entry.getKey();
+			Object value = entry.getValue();
+			if (value instanceof Map) {
+				flatten(name, (Map<?, ?>) value, values);
+			} else {
+				values.put(name, toVariant(name, value));
+			}
+		}
+	}
+
+	private static ParameterVariant toVariant(String name, Object value) {
+		if (value instanceof Boolean) {
+			return new ParameterVariant(name, (Boolean) value);
+		} else if (value instanceof Integer || value instanceof Long) {
+			return new ParameterVariant(name, ((Number) value).longValue());
+		} else if (value instanceof Double || value instanceof Float) {
+			return new ParameterVariant(name, ((Number) value).doubleValue());
+		} else if (value instanceof List) {
+			return new ParameterVariant(name, ParameterConversions.dumpYaml(value));
+		}
+		return new ParameterVariant(name, value != null ? value.toString() : "");
+	}
+
+	private static ParameterStore forNode(Map<String, Map<String, ParameterVariant>> sections, String nodeName) {
+		final HashMap<String, ParameterVariant> values = new HashMap<>();
+		Map<String, ParameterVariant> wildcard = sections.get(WILDCARD);
+		if (wildcard != null) {
+			values.putAll(wildcard);
+		}
+		Map<String, ParameterVariant> node = sections.get(sectionName(nodeName));
+		if (node != null) {
+			values.putAll(node);
+		}
+		return new ParameterStore() {
+			@Override
+			public ParameterVariant get(String name) {
+				return values.get(name);
+			}
+		};
+	}
+}
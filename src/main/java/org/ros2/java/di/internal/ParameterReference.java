@@ -1,16 +1,21 @@
 package org.ros2.java.di.internal;
 
-import java.lang.reflect.Field;
-
 public class ParameterReference {
 
 	public String parameterName;
 	public Object object;
-	public Field field;
-	
-	public ParameterReference(String parameterName, Object object, Field field) {
+	public Class<?> type;
+	public String fieldName;
+	public ParameterAccessor accessor;
+	public ParameterConverter converter;
+
+	public ParameterReference(String parameterName, Object object, Class<?> type, String fieldName,
+			ParameterAccessor accessor, ParameterConverter converter) {
 		this.parameterName = parameterName;
 		this.object = object;
-		this.field = field;
+		this.type = type;
+		this.fieldName = fieldName;
+		this.accessor = accessor;
+		this.converter = converter;
 	}
 }
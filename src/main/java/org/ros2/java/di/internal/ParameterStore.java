@@ -0,0 +1,17 @@
+package org.ros2.java.di.internal;
+
+import org.ros2.rcljava.parameters.ParameterVariant;
+
+/**
+ * Parameters of one node loaded from a parameter file, looked up by name only
+ * when the node reads them.
+ */
+public interface ParameterStore {
+
+	/**
+	 * Returns value of the parameter with the given graph name, or null if the
+	 * file does not set it.
+	 */
+	ParameterVariant get(String name);
+
+}
@@ -0,0 +1,117 @@
+package org.ros2.java.di.internal;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.ros2.java.di.RepeaterScheduler;
+
+/**
+ * Repeater scheduler that shares a fixed pool of platform threads between all
+ * repeaters. Every call of a repeater is a separate task scheduled for its
+ * deadline, so a sleeping repeater does not occupy a thread.
+ */
+public class PooledRepeaterScheduler implements RepeaterScheduler {
+
+	private ScheduledThreadPoolExecutor executor;
+
+	public PooledRepeaterScheduler(int threads) {
+		if (threads <= 0) {
+			throw new IllegalArgumentException("Number of repeater threads must be positive, was " + threads);
+		}
+		executor = new ScheduledThreadPoolExecutor(threads, new ThreadFactory() {
+			private AtomicInteger number = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				return new Thread(runnable, "rosjavadi-repeater-" + number.incrementAndGet());
+			}
+		});
+		executor.setRemoveOnCancelPolicy(true);
+	}
+
+	@Override
+	public RepeaterHandle start(RepeaterTask task) {
+		ScheduledRepeater repeater = new ScheduledRepeater(task);
+		synchronized (repeater) {
+			repeater.schedule(System.nanoTime());
+		}
+		return repeater;
+	}
+
+	@Override
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	private class ScheduledRepeater implements RepeaterHandle, Runnable {
+
+		private RepeaterTask task;
+		private ScheduledFuture<?> future;
+		private boolean running = false;
+		private boolean wakeup = false;
+		private boolean cancelled = false;
+
+		ScheduledRepeater(RepeaterTask task) {
+			this.task = task;
+		}
+
+		@Override
+		public void run() {
+			synchronized (this) {
+				if (cancelled) {
+					return;
+				}
+				future = null;
+				running = true;
+				wakeup = false;
+			}
+			long deadline = -1;
+			try {
+				deadline = task.run();
+			} finally {
+				synchronized (this) {
+					running = false;
+					if (deadline < 0) {
+						cancelled = true;
+					} else if (!cancelled) {
+						schedule(wakeup ? System.nanoTime() : deadline);
+					}
+				}
+			}
+		}
+
+		@Override
+		public synchronized void wakeup() {
+			if (cancelled) {
+				return;
+			}
+			if (running) {
+				wakeup = true;
+			} else if (future != null && future.cancel(false)) {
+				schedule(System.nanoTime());
+			}
+		}
+
+		@Override
+		public synchronized void cancel() {
+			cancelled = true;
+			if (future != null) {
+				future.cancel(false);
+			}
+		}
+
+		private void schedule(long deadline) {
+			try {
+				future = executor.schedule(this, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+			} catch (RejectedExecutionException e) {
+				// scheduler is shut down
+				cancelled = true;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,37 @@
+package org.ros2.java.di.internal;
+
+/**
+ * Token bucket letting through a number of messages per period and counting
+ * the messages it suppressed in between.
+ */
+public class RateLimit {
+
+	private boolean started = false;
+	private double tokens;
+	private long lastTime;
+	private long suppressed;
+
+	/**
+	 * Takes one token. Returns -1 if the message should be suppressed,
+	 * otherwise number of messages suppressed since the last one let through.
+	 */
+	public synchronized long acquire(long timeMillis, long periodMillis, int messagesPerPeriod) {
+		if (!started) {
+			started = true;
+			tokens = messagesPerPeriod;
+		} else {
+			long dt = Math.max(0, timeMillis - lastTime);
+			tokens = Math.min(messagesPerPeriod, tokens + dt * (double) messagesPerPeriod / periodMillis);
+		}
+		lastTime = timeMillis;
+		if (tokens >= 1) {
+			tokens -= 1;
+			long count = suppressed;
+			suppressed = 0;
+			return count;
+		}
+		suppressed++;
+		return -1;
+	}
+
+}
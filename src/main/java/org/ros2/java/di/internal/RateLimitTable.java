@@ -0,0 +1,85 @@
+package org.ros2.java.di.internal;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Concurrent table of rate limits keyed by class name and line number.
+ * <p>
+ * The table has fixed capacity and uses open addressing over a short probe
+ * window. Entries are inserted with compare and set, and when the window is
+ * full its least recently used entry is evicted, which only means the evicted
+ * line starts with a full bucket next time.
+ */
+public class RateLimitTable {
+
+	private static final int MAX_PROBES = 8;
+
+	private final AtomicReferenceArray<Entry> entries;
+	private final int mask;
+
+	/**
+	 * Creates the table, the capacity must be a power of two.
+	 */
+	public RateLimitTable(int capacity) {
+		if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("Rate limit table capacity must be a power of two, was " + capacity);
+		}
+		entries = new AtomicReferenceArray<>(capacity);
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Takes one token for the line, see {@link RateLimit#acquire}.
+	 */
+	public long acquire(String className, int line, long timeMillis, long periodMillis, int messagesPerPeriod) {
+		long key = ((long) className.hashCode() << 32) | (line & 0xffffffffL);
+		int start = hash(key);
+		Entry victim = null;
+		int victimSlot = -1;
+		for (int i = 0; i < MAX_PROBES; i++) {
+			int slot = (start + i) & mask;
+			Entry entry = entries.get(slot);
+			if (entry == null) {
+				Entry created = new Entry(key, className);
+				if (entries.compareAndSet(slot, null, created)) {
+					return created.acquire(timeMillis, periodMillis, messagesPerPeriod);
+				}
+				entry = entries.get(slot);
+			}
+			if (entry.key == key && entry.className.equals(className)) {
+				return entry.acquire(timeMillis, periodMillis, messagesPerPeriod);
+			}
+			if (victim == null || entry.lastUsed < victim.lastUsed) {
+				victim = entry;
+				victimSlot = slot;
+			}
+		}
+		Entry created = new Entry(key, className);
+		// losing the race only means this entry is used once
+		entries.compareAndSet(victimSlot, victim, created);
+		return created.acquire(timeMillis, periodMillis, messagesPerPeriod);
+	}
+
+	private int hash(long key) {
+		key *= 0x9E3779B97F4A7C15L;
+		return (int) (key ^ (key >>> 32));
+	}
+
+	private static class Entry {
+
+		final long key;
+		final String className;
+		final RateLimit limit = new RateLimit();
+		volatile long lastUsed;
+
+		Entry(long key, String className) {
+			this.key = key;
+			this.className = className;
+		}
+
+		long acquire(long timeMillis, long periodMillis, int messagesPerPeriod) {
+			lastUsed = timeMillis;
+			return limit.acquire(timeMillis, periodMillis, messagesPerPeriod);
+		}
+	}
+}
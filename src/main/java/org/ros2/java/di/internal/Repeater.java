@@ -1,25 +1,117 @@
 package org.ros2.java.di.internal;
 
-import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
 
+import org.ros2.java.di.CallbackMetrics;
+import org.ros2.java.di.Clock;
+import org.ros2.java.di.LogSeldom;
+import org.ros2.java.di.RepeaterScheduler.RepeaterHandle;
+import org.ros2.java.di.RepeaterScheduler.RepeaterTask;
+import org.ros2.java.di.RosJavaDi;
 import org.ros2.java.di.annotations.Repeat;
 
-public class Repeater {
+public class Repeater implements RepeaterTask {
 	
+	private static LogSeldom LOG = RosJavaDi.getLog();
+	private static final Clock SYSTEM_CLOCK = new Clock();
+
 	public Object object;
-	public Method method;
+	public String name;
+	public String description;
 	public Repeat repeat;
-	public Thread thread;
+	public MethodInvoker invoker;
+	public CallbackGroupLock group;
+	public RepeaterHandle handle;
+	public CallbackMetrics metrics;
+	/**
+	 * Clock of the deadlines, must match the time of the scheduler.
+	 */
+	public Clock clock = SYSTEM_CLOCK;
 	
 	/**
 	 * Shutdown = true indicates that repeater should be shut down.
 	 */
-	public boolean shutdown = false;
+	public volatile boolean shutdown = false;
+
+	private final int maxCount;
+	private final long delayNanoseconds;
+	private final long intervalNanoseconds;
+	private int count = 0;
+	private long deadline;
+	private long scheduled;
 	
-	public Repeater(Object object, Method method, Repeat parameters) {
+	public Repeater(Object object, String name, String description, Repeat parameters, MethodInvoker invoker,
+			CallbackGroupLock group) {
 		this.object = object;
-		this.method = method;
+		this.name = name;
+		this.description = description;
 		this.repeat = parameters;
+		this.invoker = invoker;
+		this.group = group;
+		this.maxCount = parameters.count();
+		this.delayNanoseconds = TimeUnit.MILLISECONDS.toNanos(parameters.delay());
+		this.intervalNanoseconds = TimeUnit.MILLISECONDS.toNanos(parameters.interval());
+		this.metrics = new CallbackMetrics(CallbackMetrics.Kind.REPEATER, description);
+	}
+
+	/**
+	 * Calls the method once and returns the deadline of the next call, or -1
+	 * if the repeater is finished.
+	 */
+	@Override
+	public long run() {
+		if ((maxCount != 0 && count >= maxCount) || shutdown) {
+			return -1;
+		}
+		long start = System.nanoTime();
+		long time = clock.monotonicNanos();
+		if (count == 0) {
+			deadline = time;
+		} else {
+			metrics.getJitter().record(time - scheduled);
+		}
+		count++;
+		if (group != null) {
+			group.enter();
+		}
+		try {
+			Object result = invoker.invoke();
+
+			// Check if it returned false
+			if (result != null) {
+				if (!(Boolean) result) {
+					return -1;
+				}
+			}
+		} catch (Throwable e) {
+			metrics.recordFailure();
+			LOG.error("Exception caught while calling repeater " + description, e);
+		} finally {
+			if (group != null) {
+				group.exit();
+			}
+			metrics.getLatency().record(System.nanoTime() - start);
+		}
+		long now = clock.monotonicNanos();
+		if (delayNanoseconds != 0) {
+			scheduled = now + delayNanoseconds;
+		} else if (intervalNanoseconds != 0) {
+			deadline += intervalNanoseconds;
+			if (deadline - now < 0) {
+				metrics.recordOverrun();
+				if (now - deadline >= intervalNanoseconds) {
+					// whole periods were missed, for example the clock jumped ahead, skip them
+					deadline = now;
+				}
+			} else if (deadline - now > intervalNanoseconds) {
+				// the clock went back
+				deadline = now + intervalNanoseconds;
+			}
+			scheduled = deadline;
+		} else {
+			scheduled = now;
+		}
+		return scheduled;
 	}
 	
 	/**
@@ -27,8 +119,8 @@ public class Repeater {
 	 */
 	public void shutdown() {
 		shutdown = true;
-		if(thread!=null) {
-			thread.interrupt();
+		if(handle!=null) {
+			handle.cancel();
 		}
 		
 	}
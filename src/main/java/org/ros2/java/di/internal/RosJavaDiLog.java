@@ -1,35 +1,101 @@
 package org.ros2.java.di.internal;
 
-import java.util.HashMap;
 import java.util.logging.Level;
+import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 
 import org.apache.commons.logging.Log;
+import org.ros2.java.di.LogCallSite;
 import org.ros2.java.di.LogSeldom;
-import org.ros2.java.di.RosJavaDi;
 
 /**
  * Wrapper around org.apache.commons.logging.Log that sends the log to /rosout
  * topic.
+ * <p>
+ * In asynchronous mode the calling thread only puts the event into a ring
+ * buffer, the caller is resolved and the message formatted and published on a
+ * background thread. Seldom messages are rate limited before they are put into
+ * the buffer, so that suppressed ones take no space in it.
  */
 public class RosJavaDiLog implements Log, LogSeldom {
 
-	private static final int LOG_SELDOM_PERIOD_MILLISECONDS = 10000;
+	private static final long LOG_SELDOM_PERIOD_MILLISECONDS = 10000;
+	private static final int LOG_SELDOM_TABLE_CAPACITY = 4096;
 
-	private Logger logger;
+	/**
+	 * Rate limits of seldom messages, keyed by class and line that logged them.
+	 */
+	private static final RateLimitTable SELDOM_TABLE = new RateLimitTable(LOG_SELDOM_TABLE_CAPACITY);
 
+	private static AsyncLog asyncLog;
+	private static volatile AsyncLog activeAsyncLog;
+
+	private Logger logger;
+	private final RosoutPublisher rosoutPublisher;
 	/**
-	 * Hashmap keeping the information which class at which line logged at what
-	 * time.
+	 * Name of the class of a static logger, which picks the node publishing
+	 * its messages.
 	 */
-	private HashMap<String, HashMap<Integer, LogTime>> logTimeClassesMap = new HashMap<>();
+	private final String className;
+	private volatile long seldomPeriodMillis = LOG_SELDOM_PERIOD_MILLISECONDS;
+	private volatile int seldomMessagesPerPeriod = 1;
 
 	public RosJavaDiLog(String name) {
 		logger = Logger.getLogger(name);
+		rosoutPublisher = null;
+		className = name;
 	}
 
 	public RosJavaDiLog(Class<?> clazz) {
+		this(clazz, null);
+	}
+
+	/**
+	 * Creates logger publishing to /rosout of a node, or to the default
+	 * publisher when null.
+	 */
+	public RosJavaDiLog(Class<?> clazz, RosoutPublisher rosoutPublisher) {
 		logger = Logger.getLogger(clazz.getCanonicalName());
+		this.rosoutPublisher = rosoutPublisher;
+		className = clazz.getName();
+	}
+
+	/**
+	 * Switches all loggers between asynchronous and synchronous mode. Events
+	 * buffered when switching off are written out before returning.
+	 */
+	public static synchronized void setAsync(boolean enabled, int capacity) {
+		if (enabled && asyncLog == null) {
+			asyncLog = new AsyncLog(capacity);
+			activeAsyncLog = asyncLog;
+			Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+				@Override
+				public void run() {
+					setAsync(false, 0);
+				}
+			}));
+		} else if (!enabled && asyncLog != null) {
+			activeAsyncLog = null;
+			asyncLog.shutdown();
+			asyncLog = null;
+		}
+	}
+
+	/**
+	 * Returns number of log events dropped in asynchronous mode because the
+	 * buffer was full.
+	 */
+	public static synchronized long getDroppedEvents() {
+		return asyncLog == null ? 0 : asyncLog.getDroppedEvents();
+	}
+
+	@Override
+	public void setSeldomRate(long periodMillis, int messagesPerPeriod) {
+		if (periodMillis <= 0 || messagesPerPeriod <= 0) {
+			throw new IllegalArgumentException("Seldom rate must be positive");
+		}
+		seldomPeriodMillis = periodMillis;
+		seldomMessagesPerPeriod = messagesPerPeriod;
 	}
 
 	@Override
@@ -64,84 +130,106 @@ public class RosJavaDiLog implements Log, LogSeldom {
 
 	@Override
 	public void trace(Object message) {
-		log(rcl_interfaces.msg.Log.DEBUG, Level.FINEST, message, null, false);
+		log(rcl_interfaces.msg.Log.DEBUG, Level.FINEST, message, null, false, null);
 	}
 
 	@Override
 	public void trace(Object message, Throwable t) {
-		log(rcl_interfaces.msg.Log.DEBUG, Level.FINEST, message, t, false);
+		log(rcl_interfaces.msg.Log.DEBUG, Level.FINEST, message, t, false, null);
 	}
 
 	@Override
 	public void debug(Object message) {
-		log(rcl_interfaces.msg.Log.DEBUG, Level.FINE, message, null, false);
+		log(rcl_interfaces.msg.Log.DEBUG, Level.FINE, message, null, false, null);
 	}
 
 	@Override
 	public void debug(Object message, Throwable t) {
-		log(rcl_interfaces.msg.Log.DEBUG, Level.FINE, message, t, false);
+		log(rcl_interfaces.msg.Log.DEBUG, Level.FINE, message, t, false, null);
 	}
 
 	@Override
 	public void info(Object message) {
-		log(rcl_interfaces.msg.Log.INFO, Level.INFO, message, null, false);
+		log(rcl_interfaces.msg.Log.INFO, Level.INFO, message, null, false, null);
 	}
 
 	@Override
 	public void info(Object message, Throwable t) {
-		log(rcl_interfaces.msg.Log.INFO, Level.INFO, message, t, false);
+		log(rcl_interfaces.msg.Log.INFO, Level.INFO, message, t, false, null);
 	}
 
 	@Override
 	public void warn(Object message) {
-		log(rcl_interfaces.msg.Log.WARN, Level.WARNING, message, null, false);
+		log(rcl_interfaces.msg.Log.WARN, Level.WARNING, message, null, false, null);
 	}
 
 	@Override
 	public void warn(Object message, Throwable t) {
-		log(rcl_interfaces.msg.Log.WARN, Level.WARNING, message, t, false);
+		log(rcl_interfaces.msg.Log.WARN, Level.WARNING, message, t, false, null);
 	}
 
 	@Override
 	public void error(Object message) {
-		log(rcl_interfaces.msg.Log.ERROR, Level.SEVERE, message, null, false);
+		log(rcl_interfaces.msg.Log.ERROR, Level.SEVERE, message, null, false, null);
 	}
 
 	@Override
 	public void error(Object message, Throwable t) {
-		log(rcl_interfaces.msg.Log.ERROR, Level.SEVERE, message, t, false);
+		log(rcl_interfaces.msg.Log.ERROR, Level.SEVERE, message, t, false, null);
 	}
 
 	@Override
 	public void fatal(Object message) {
-		log(rcl_interfaces.msg.Log.FATAL, Level.SEVERE, message, null, false);
+		log(rcl_interfaces.msg.Log.FATAL, Level.SEVERE, message, null, false, null);
 	}
 
 	@Override
 	public void fatal(Object message, Throwable t) {
-		log(rcl_interfaces.msg.Log.FATAL, Level.SEVERE, message, t, false);
+		log(rcl_interfaces.msg.Log.FATAL, Level.SEVERE, message, t, false, null);
 	}
 
-	private void log(byte roslevel, Level level, Object message, Throwable ex, boolean seldom) {
+	private void log(byte roslevel, Level level, Object message, Throwable ex, boolean seldom, LogCallSite site) {
 		if (logger.isLoggable(level)) {
-			String msg = String.valueOf(message);
-			// Hack (?) to get the stack trace.
-			Throwable dummyException = new Throwable();
-			StackTraceElement locations[] = dummyException.getStackTrace();
-			// Caller will be the third element
+			long suppressed = 0;
+			StackTraceElement caller = null;
+			if (site != null) {
+				suppressed = site.acquire(System.currentTimeMillis(), seldomPeriodMillis, seldomMessagesPerPeriod);
+				if (suppressed < 0) {
+					return;
+				}
+			} else if (seldom) {
+				// Caller will be two levels above, behind the public method
+				caller = CallerLocator.caller(2);
+				if (caller != null && caller.getLineNumber() >= 0) {
+					suppressed = SELDOM_TABLE.acquire(caller.getClassName(), caller.getLineNumber(),
+							System.currentTimeMillis(), seldomPeriodMillis, seldomMessagesPerPeriod);
+					if (suppressed < 0) {
+						return;
+					}
+				}
+			}
+			AsyncLog async = activeAsyncLog;
+			if (async != null) {
+				// a whole stack trace would cost more than the logging saves, so without walker no location
+				if (caller == null && CallerLocator.canWalk()) {
+					caller = CallerLocator.caller(2);
+				}
+				async.offer(this, roslevel, level, message, ex, caller, suppressed);
+				return;
+			}
+			if (caller == null) {
+				caller = CallerLocator.caller(2);
+			}
 			String cname = "unknown";
 			String method = "unknown";
 			int line = -1;
-			if (locations != null && locations.length > 2) {
-				StackTraceElement caller = locations[2];
+			if (caller != null) {
 				cname = caller.getClassName();
 				method = caller.getMethodName();
 				line = caller.getLineNumber();
 			}
-			if (seldom && line >= 0 && shouldOmitMessage(cname, line)) {
-				return;
-			}
-			RosoutPublisher publisher = RosJavaDi.ROSOUT_PUBLISHER.get();
+			String msg = withSuppressed(message, suppressed);
+			RosoutPublisher publisher = RosoutPublisher.forLogger(rosoutPublisher, className);
 			if (ex == null) {
 				logger.logp(level, cname, method, msg);
 				if (publisher != null) {
@@ -156,92 +244,162 @@ public class RosJavaDiLog implements Log, LogSeldom {
 		}
 	}
 
+	/**
+	 * Writes event taken from the asynchronous buffer, called on the consumer
+	 * thread only.
+	 */
+	void write(LogEvent event) {
+		StackTraceElement caller = event.caller;
+		String cname = "unknown";
+		String method = "unknown";
+		int line = -1;
+		if (caller != null) {
+			cname = caller.getClassName();
+			method = caller.getMethodName();
+			line = caller.getLineNumber();
+		}
+		String msg = withSuppressed(event.message, event.suppressed);
+		LogRecord record = new LogRecord(event.level, msg);
+		record.setLoggerName(logger.getName());
+		record.setSourceClassName(cname);
+		record.setSourceMethodName(method);
+		record.setThrown(event.throwable);
+		record.setMillis(event.timeMillis);
+		record.setThreadID((int) event.threadId);
+		logger.log(record);
+		RosoutPublisher publisher = RosoutPublisher.forLogger(rosoutPublisher, className);
+		if (publisher != null) {
+			publisher.publish(event.timeMillis, event.rosLevel, cname, method, line,
+					event.throwable == null ? msg : RosoutPublisher.withStackTrace(msg, event.throwable));
+		}
+	}
+
 	@Override
 	public void debugSeldom(Object message) {
-		log(rcl_interfaces.msg.Log.DEBUG, Level.FINE, message, null, true);
+		log(rcl_interfaces.msg.Log.DEBUG, Level.FINE, message, null, true, null);
 	}
 
 	@Override
 	public void debugSeldom(Object message, Throwable t) {
-		log(rcl_interfaces.msg.Log.DEBUG, Level.FINE, message, t, true);
+		log(rcl_interfaces.msg.Log.DEBUG, Level.FINE, message, t, true, null);
 	}
 
 	@Override
 	public void errorSeldom(Object message) {
-		log(rcl_interfaces.msg.Log.ERROR, Level.SEVERE, message, null, true);
+		log(rcl_interfaces.msg.Log.ERROR, Level.SEVERE, message, null, true, null);
 	}
 
 	@Override
 	public void errorSeldom(Object message, Throwable t) {
-		log(rcl_interfaces.msg.Log.ERROR, Level.SEVERE, message, t, true);
+		log(rcl_interfaces.msg.Log.ERROR, Level.SEVERE, message, t, true, null);
 	}
 
 	@Override
 	public void fatalSeldom(Object message) {
-		log(rcl_interfaces.msg.Log.FATAL, Level.SEVERE, message, null, true);
+		log(rcl_interfaces.msg.Log.FATAL, Level.SEVERE, message, null, true, null);
 	}
 
 	@Override
 	public void fatalSeldom(Object message, Throwable t) {
-		log(rcl_interfaces.msg.Log.FATAL, Level.SEVERE, message, t, true);
+		log(rcl_interfaces.msg.Log.FATAL, Level.SEVERE, message, t, true, null);
 	}
 
 	@Override
 	public void infoSeldom(Object message) {
-		log(rcl_interfaces.msg.Log.INFO, Level.INFO, message, null, true);
+		log(rcl_interfaces.msg.Log.INFO, Level.INFO, message, null, true, null);
 	}
 
 	@Override
 	public void infoSeldom(Object message, Throwable t) {
-		log(rcl_interfaces.msg.Log.INFO, Level.INFO, message, t, true);
+		log(rcl_interfaces.msg.Log.INFO, Level.INFO, message, t, true, null);
 	}
 
 	@Override
 	public void traceSeldom(Object message) {
-		log(rcl_interfaces.msg.Log.DEBUG, Level.FINEST, message, null, true);
+		log(rcl_interfaces.msg.Log.DEBUG, Level.FINEST, message, null, true, null);
 	}
 
 	@Override
 	public void traceSeldom(Object message, Throwable t) {
-		log(rcl_interfaces.msg.Log.DEBUG, Level.FINEST, message, t, true);
+		log(rcl_interfaces.msg.Log.DEBUG, Level.FINEST, message, t, true, null);
 	}
 
 	@Override
 	public void warnSeldom(Object message) {
-		log(rcl_interfaces.msg.Log.WARN, Level.WARNING, message, null, true);
+		log(rcl_interfaces.msg.Log.WARN, Level.WARNING, message, null, true, null);
 	}
 
 	@Override
 	public void warnSeldom(Object message, Throwable t) {
-		log(rcl_interfaces.msg.Log.WARN, Level.WARNING, message, t, true);
+		log(rcl_interfaces.msg.Log.WARN, Level.WARNING, message, t, true, null);
 	}
 
-	private boolean shouldOmitMessage(String cname, int line) {
-		HashMap<Integer, LogTime> logTimeLinesMap = logTimeClassesMap.get(cname);
-		if (logTimeLinesMap == null) {
-			logTimeLinesMap = new HashMap<>();
-			// not worried about multithreading, because in the worst case it will cause
-			// logging the message many times
-			logTimeClassesMap.put(cname, logTimeLinesMap);
-		}
+	@Override
+	public void debugSeldom(LogCallSite site, Object message) {
+		log(rcl_interfaces.msg.Log.DEBUG, Level.FINE, message, null, true, site);
+	}
 
-		long time = System.currentTimeMillis();
-		LogTime lastTime = logTimeLinesMap.get(line);
-		if (lastTime == null) {
-			lastTime = new LogTime();
-			// again not worried about multithreading, because in the worst case it will
-			// cause logging the message many times
-			logTimeLinesMap.put(line, lastTime);
-		}
-		long dt = time - lastTime.time;
+	@Override
+	public void debugSeldom(LogCallSite site, Object message, Throwable t) {
+		log(rcl_interfaces.msg.Log.DEBUG, Level.FINE, message, t, true, site);
+	}
 
-		if (dt < LOG_SELDOM_PERIOD_MILLISECONDS) {
-			return true;
-		}
+	@Override
+	public void errorSeldom(LogCallSite site, Object message) {
+		log(rcl_interfaces.msg.Log.ERROR, Level.SEVERE, message, null, true, site);
+	}
 
-		lastTime.time = time;
+	@Override
+	public void errorSeldom(LogCallSite site, Object message, Throwable t) {
+		log(rcl_interfaces.msg.Log.ERROR, Level.SEVERE, message, t, true, site);
+	}
+
+	@Override
+	public void fatalSeldom(LogCallSite site, Object message) {
+		log(rcl_interfaces.msg.Log.FATAL, Level.SEVERE, message, null, true, site);
+	}
 
-		return false;
+	@Override
+	public void fatalSeldom(LogCallSite site, Object message, Throwable t) {
+		log(rcl_interfaces.msg.Log.FATAL, Level.SEVERE, message, t, true, site);
+	}
+
+	@Override
+	public void infoSeldom(LogCallSite site, Object message) {
+		log(rcl_interfaces.msg.Log.INFO, Level.INFO, message, null, true, site);
+	}
+
+	@Override
+	public void infoSeldom(LogCallSite site, Object message, Throwable t) {
+		log(rcl_interfaces.msg.Log.INFO, Level.INFO, message, t, true, site);
+	}
+
+	@Override
+	public void traceSeldom(LogCallSite site, Object message) {
+		log(rcl_interfaces.msg.Log.DEBUG, Level.FINEST, message, null, true, site);
+	}
+
+	@Override
+	public void traceSeldom(LogCallSite site, Object message, Throwable t) {
+		log(rcl_interfaces.msg.Log.DEBUG, Level.FINEST, message, t, true, site);
+	}
+
+	@Override
+	public void warnSeldom(LogCallSite site, Object message) {
+		log(rcl_interfaces.msg.Log.WARN, Level.WARNING, message, null, true, site);
+	}
+
+	@Override
+	public void warnSeldom(LogCallSite site, Object message, Throwable t) {
+		log(rcl_interfaces.msg.Log.WARN, Level.WARNING, message, t, true, site);
+	}
+
+	private static String withSuppressed(Object message, long suppressed) {
+		String msg = String.valueOf(message);
+		if (suppressed > 0) {
+			return msg + " (suppressed " + suppressed + " similar messages)";
+		}
+		return msg;
 	}
 
 }
@@ -1,97 +1,425 @@
 package org.ros2.java.di.internal;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.lang.reflect.Array;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
-import org.apache.commons.logging.Log;
+import org.ros2.java.di.CallbackMetrics;
+import org.ros2.java.di.LogSeldom;
+import org.ros2.java.di.annotations.OverflowPolicy;
+import org.ros2.java.di.transport.Transport;
 import org.ros2.rcljava.consumers.Consumer;
 import org.ros2.rcljava.interfaces.MessageDefinition;
-import org.ros2.rcljava.node.Node;
-import org.ros2.rcljava.subscription.Subscription;
 
 /**
  * RosJava subscriber implementation that calls the annotated method.
+ * <p>
+ * When the queue length is positive incoming messages are put into a bounded
+ * queue and the method is called on a worker thread owned by this subscriber,
+ * so a slow handler does not stall the executor thread. When the queue length
+ * is zero the method is called directly on the executor thread.
+ * <p>
+ * A conflating subscriber keeps only the newest message in a single slot
+ * instead of a queue, its worker always handles the freshest message and
+ * counts the replaced ones as skipped.
+ * <p>
+ * A batching subscriber's worker drains the queue into a preallocated buffer
+ * and calls the method once with up to batch size messages, as a list view of
+ * the buffer or as an array, which is reused when the batch is full. Neither
+ * may be kept after the method returns.
+ * <p>
+ * Timeouts are tracked by a shared {@link TimeoutWheel}. Without a worker the
+ * method is called with null message on the wheel thread.
+ * <p>
+ * Calls of the method are guarded by the callback group of the subscriber,
+ * if it has one. A message published from a callback of another group is not
+ * waited for but handed to the group, see {@link CallbackGroupLock}.
+ * <p>
+ * Intra-process publishers call {@link #handleMessage} on their own thread.
  */
 public class RosJavaSubscriber<T extends MessageDefinition> {
 
-	private Subscription<T> subscriber;
-	private Node node;
-	private Object object;
-	private Method method;
+	/**
+	 * How long the executor thread waits before retrying to put a message into
+	 * a full queue with {@link OverflowPolicy#BLOCK} policy.
+	 */
+	private static final long BLOCK_RETRY_NANOSECONDS = 100000L;
+
+	/**
+	 * Queued in place of a message to make the worker report a timeout.
+	 */
+	private static final Object TIMEOUT = new Object();
+
+	private Transport transport;
+	private String description;
+	private MessageInvoker invoker;
+	private CallbackGroupLock group;
 	private int queueLength;
+	private OverflowPolicy overflowPolicy;
+	private boolean conflate;
 	private int timeout;
-	private Log log;
-	private long lastMessageTime;
-	private boolean keepRunning = true;
-	private Thread thread;
+	private LogSeldom log;
+	private volatile boolean keepRunning = true;
+	private TimeoutWheel.Timeout timeoutHandle;
+	private Thread worker;
+	private MessageQueue<Object> queue;
+	private AtomicReference<Object> latest;
+	private volatile long latestStamp;
+	private int batchSize;
+	private int batchLinger;
+	private boolean batchArray;
+	private Object[] batch;
+	private long[] batchStamps;
+	private BatchList batchList;
+	private int batchLength;
+	private CallbackMetrics metrics;
 	private String topicName;
 	private Class<T> topicType;
 
-	public RosJavaSubscriber(Node connectedNode, Object object, Method method, String topicName,
-			Class<T> topicType, int timeout, Log log) {
-		this.node = connectedNode;
-		this.object = object;
-		this.method = method;
+	public RosJavaSubscriber(Transport transport, String description, MessageInvoker invoker, String topicName,
+			Class<T> topicType, int queueLength, OverflowPolicy overflowPolicy, boolean conflate, int timeout,
+			CallbackGroupLock group, LogSeldom log) {
+		this.transport = transport;
+		this.description = description;
+		this.invoker = invoker;
 		this.topicName = topicName;
 		this.topicType = topicType;
+		this.queueLength = queueLength;
+		this.overflowPolicy = overflowPolicy;
+		this.conflate = conflate;
 		this.log = log;
 		this.timeout = timeout;
+		this.group = group;
+		this.metrics = new CallbackMetrics(CallbackMetrics.Kind.SUBSCRIBER, description);
 	}
 
-	public void start() {
-		
-	    this.subscriber = node.createSubscription(topicType, topicName, new Consumer<T>() {
-			@Override
-			public void accept(T message) {
-				lastMessageTime = System.currentTimeMillis();
-				callMessage(message);
+	/**
+	 * Makes the subscriber pass up to the given number of messages at once,
+	 * as an array of the topic type or as a list, must be called before
+	 * {@link #start}.
+	 */
+	public void setBatching(int batchSize, int batchLinger, boolean array) {
+		this.batchSize = batchSize;
+		this.batchLinger = batchLinger;
+		this.batchArray = array;
+		this.queueLength = Math.max(queueLength, batchSize);
+	}
+
+	public void start(TimeoutWheel timeoutWheel) {
+		if (batchSize > 0) {
+			queue = new MessageQueue<>(queueLength, true);
+			batch = (Object[]) Array.newInstance(topicType, batchSize);
+			batchStamps = new long[batchSize];
+			if (!batchArray) {
+				batchList = new BatchList(batch);
 			}
-		});
-		if (timeout <= 0) {
-			return;
+			startWorker(new Runnable() {
+				@Override
+				public void run() {
+					processBatches();
+				}
+			});
+		} else if (conflate) {
+			latest = new AtomicReference<>();
+			startWorker(new Runnable() {
+				@Override
+				public void run() {
+					processLatest();
+				}
+			});
+		} else if (queueLength > 0) {
+			queue = new MessageQueue<>(queueLength, true);
+			startWorker(new Runnable() {
+				@Override
+				public void run() {
+					processQueue();
+				}
+			});
 		}
-		lastMessageTime = System.currentTimeMillis();
-		thread = new Thread(new Runnable() {
-			@Override
-			public void run() {
-				while (keepRunning) {
-					long time = System.currentTimeMillis();
-					long dt = time - lastMessageTime;
-					if (dt < 0) {
-						log.error("Subscriber timeout: something wrong with time in the system, dt=" + dt);
-						dt = 0;
-					}
-					if (dt >= timeout) {
-						lastMessageTime = time;
-						dt = 0;
+		if (timeout > 0) {
+			timeoutHandle = timeoutWheel.add(TimeUnit.MILLISECONDS.toNanos(timeout), new Runnable() {
+				@Override
+				public void run() {
+					if (latest != null) {
+						if (latest.compareAndSet(null, TIMEOUT)) {
+							LockSupport.unpark(worker);
+						}
+					} else if (queue == null) {
 						callMessage(null);
-					}
-					try {
-						Thread.sleep(timeout - dt);
-					} catch (InterruptedException e) {
+					} else if (queue.offer(TIMEOUT)) {
+						LockSupport.unpark(worker);
 					}
 				}
+			});
+		}
+	}
+
+	/**
+	 * Starts the worker as a daemon thread named after the subscriber, so an
+	 * application that does not shut the node down still exits.
+	 */
+	private void startWorker(Runnable runnable) {
+		worker = new Thread(runnable, "rosjavadi-subscriber-" + description);
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	 * Subscribes to the topic on the transport, optionally skipping messages
+	 * of publishers of the same transport that are delivered directly.
+	 */
+	public void subscribe(boolean ignoreLocalPublications) {
+		transport.createSubscription(topicType, topicName, new Consumer<T>() {
+			@Override
+			public void accept(T message) {
+				handleMessage(message);
 			}
-		});
-		thread.start();
+		}, ignoreLocalPublications);
+	}
+
+	public String getTopicName() {
+		return topicName;
+	}
+
+	public Class<T> getTopicType() {
+		return topicType;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * Handles message received on the topic, either calling the method or
+	 * putting the message into the queue.
+	 */
+	public void handleMessage(T message) {
+		if (timeoutHandle != null) {
+			timeoutHandle.postpone();
+		}
+		if (latest != null) {
+			replaceLatest(message);
+		} else if (queue == null) {
+			callMessage(message);
+		} else {
+			enqueue(message);
+		}
 	}
 
 	public void shutdown() {
 		keepRunning = false;
-		if (thread != null) {
-			thread.interrupt();
+		if (timeoutHandle != null) {
+			timeoutHandle.cancel();
+		}
+		if (worker != null) {
+			LockSupport.unpark(worker);
+		}
+	}
+
+	/**
+	 * Returns number of messages discarded because the queue was full.
+	 */
+	public long getDroppedMessages() {
+		return metrics.getDroppedMessages();
+	}
+
+	/**
+	 * Returns number of messages a conflating subscriber skipped.
+	 */
+	public long getSkippedMessages() {
+		return metrics.getSkippedMessages();
+	}
+
+	public CallbackMetrics getMetrics() {
+		return metrics;
+	}
+
+	private void enqueue(T message) {
+		long now = System.nanoTime();
+		if (!queue.offer(message, now)) {
+			switch (overflowPolicy) {
+			case DROP_NEWEST:
+				dropped();
+				break;
+			case DROP_OLDEST:
+				do {
+					Object oldest = queue.poll();
+					if (oldest != null && oldest != TIMEOUT) {
+						dropped();
+					}
+				} while (!queue.offer(message, now));
+				break;
+			case BLOCK:
+				do {
+					LockSupport.unpark(worker);
+					LockSupport.parkNanos(this, BLOCK_RETRY_NANOSECONDS);
+				} while (!queue.offer(message, now) && keepRunning);
+				break;
+			}
 		}
+		LockSupport.unpark(worker);
 	}
 
-	private void callMessage(T message) {
+	private void replaceLatest(T message) {
+		latestStamp = System.nanoTime();
+		Object previous = latest.getAndSet(message);
+		if (previous != null && previous != TIMEOUT) {
+			metrics.recordSkippedMessage();
+		}
+		LockSupport.unpark(worker);
+	}
+
+	private void processLatest() {
+		while (keepRunning) {
+			Object item = latest.getAndSet(null);
+			if (item == null) {
+				LockSupport.park(this);
+			} else if (item == TIMEOUT) {
+				callMessage(null);
+			} else {
+				// the stamp may belong to a newer message, which only shortens the wait
+				metrics.getQueueWait().record(System.nanoTime() - latestStamp);
+				callMessage(item);
+			}
+		}
+	}
+
+	private void processBatches() {
+		long[] stamp = new long[1];
+		long lingerNanos = TimeUnit.MILLISECONDS.toNanos(batchLinger);
+		while (keepRunning) {
+			Object item = queue.poll(stamp);
+			if (item == null) {
+				LockSupport.park(this);
+			} else if (item == TIMEOUT) {
+				callMessage(null);
+			} else {
+				long deadline = stamp[0] + lingerNanos;
+				batch[0] = item;
+				batchStamps[0] = stamp[0];
+				int length = 1;
+				while (length < batchSize && keepRunning) {
+					item = queue.poll(stamp);
+					if (item == null) {
+						long remaining = deadline - System.nanoTime();
+						if (remaining <= 0) {
+							break;
+						}
+						LockSupport.parkNanos(this, remaining);
+					} else if (item != TIMEOUT) {
+						// a timeout queued while messages keep arriving is stale
+						batch[length] = item;
+						batchStamps[length] = stamp[0];
+						length++;
+					}
+				}
+				callBatch(length);
+			}
+		}
+	}
+
+	private void callBatch(int length) {
+		long now = System.nanoTime();
+		for (int i = 0; i < length; i++) {
+			metrics.getQueueWait().record(now - batchStamps[i]);
+		}
+		batchLength = length;
+		Object argument;
+		if (batchList != null) {
+			batchList.size = length;
+			argument = batchList;
+		} else {
+			argument = length == batch.length ? batch : Arrays.copyOf(batch, length);
+		}
+		callMessage(argument);
+		Arrays.fill(batch, 0, length, null);
+	}
+
+	private void dropped() {
+		metrics.recordDroppedMessage();
+		log.warnSeldom("Subscriber queue full, dropping messages on topic " + topicName + " handled by "
+				+ description);
+	}
+
+	private void processQueue() {
+		long[] stamp = new long[1];
+		while (keepRunning) {
+			Object item = queue.poll(stamp);
+			if (item == null) {
+				LockSupport.park(this);
+			} else if (item == TIMEOUT) {
+				callMessage(null);
+			} else {
+				metrics.getQueueWait().record(System.nanoTime() - stamp[0]);
+				callMessage(item);
+			}
+		}
+	}
+
+	private void callMessage(final Object message) {
+		final long start = System.nanoTime();
+		if (group != null && group.isNested()) {
+			// published from a callback of another group, which this one may be waiting for
+			group.defer(new Runnable() {
+				@Override
+				public void run() {
+					invoke(message, start);
+				}
+			});
+			return;
+		}
+		if (group != null) {
+			group.enter();
+		}
+		try {
+			invoke(message, start);
+		} finally {
+			if (group != null) {
+				group.exit();
+			}
+		}
+	}
+
+	private void invoke(Object message, long start) {
 		try {
-			method.invoke(object, message);
-		} catch (IllegalAccessException | IllegalArgumentException e) {
-			log.error("Could not call method " + method.toGenericString(), e);
-		} catch (InvocationTargetException e) {
-			log.error("Exception caught while handling message in method " + method.toGenericString() + ", message: "
-					+ message, e);
+			invoker.invoke(message);
+		} catch (Throwable e) {
+			metrics.recordFailure();
+			log.error("Exception caught while handling message in method " + description + ", "
+					+ (batch != null && message != null ? "batch of " + batchLength + " messages"
+							: "message: " + message), e);
+		} finally {
+			metrics.getLatency().record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Read-only view of the first messages of the batch buffer.
+	 */
+	private static final class BatchList extends AbstractList<Object> implements RandomAccess {
+
+		private final Object[] elements;
+		private int size;
+
+		BatchList(Object[] elements) {
+			this.elements = elements;
 		}
 
+		@Override
+		public Object get(int index) {
+			if (index >= size) {
+				throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+			}
+			return elements[index];
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
 	}
 }
@@ -2,42 +2,181 @@ package org.ros2.java.di.internal;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.ros2.java.di.Clock;
-import org.ros2.rcljava.node.Node;
+import org.ros2.java.di.RosJavaDi;
+import org.ros2.java.di.SimulatedClock;
+import org.ros2.java.di.transport.Transport;
 import org.ros2.rcljava.publisher.Publisher;
 
+import builtin_interfaces.msg.Time;
+
 /**
  * Publisher to /rosout topic that is used by RosJavaDi logger wrappers.
+ * <p>
+ * Every node has its own publisher. Loggers injected into components of a node
+ * publish to its publisher. Static loggers of a component class, or of a class
+ * nested in it, publish to the node that created the class first. Other
+ * loggers publish to the default publisher of {@link RosJavaDi#ROSOUT_PUBLISHER}.
  */
 public class RosoutPublisher {
 
-	private Node node;
+	/**
+	 * Message and stamp reused by each thread logging synchronously and by the
+	 * asynchronous log thread, when the transport copies published messages.
+	 */
+	private static final ThreadLocal<rcl_interfaces.msg.Log> LOG_MESSAGE = new ThreadLocal<rcl_interfaces.msg.Log>() {
+		@Override
+		protected rcl_interfaces.msg.Log initialValue() {
+			return new rcl_interfaces.msg.Log();
+		}
+	};
+	private static final ThreadLocal<Time> STAMP = new ThreadLocal<Time>() {
+		@Override
+		protected Time initialValue() {
+			return new Time();
+		}
+	};
+
+	/**
+	 * Publishers of the nodes that created components, keyed by name of the
+	 * component class.
+	 */
+	private static final ConcurrentHashMap<String, RosoutPublisher> COMPONENT_PUBLISHERS = new ConcurrentHashMap<>();
+
+	private String nodeName;
 	private Publisher<rcl_interfaces.msg.Log> publisher;
-	private Clock clock;
+	private volatile Clock clock;
+	private boolean reuseMessages;
+	private volatile boolean registered = true;
 
-	public RosoutPublisher(Node node, Clock clock) {
-		this.node = node;
-		this.publisher = node.createPublisher(rcl_interfaces.msg.Log.class, "/rosout2");
+	public RosoutPublisher(Transport transport, Clock clock) {
+		this.nodeName = transport.getNodeName();
+		this.publisher = transport.createPublisher(rcl_interfaces.msg.Log.class, "/rosout2");
 		this.clock = clock;
+		this.reuseMessages = transport.copiesPublishedMessages();
+	}
+
+	/**
+	 * Sets clock stamping the messages, the ROS clock of the node.
+	 */
+	public void setClock(Clock clock) {
+		this.clock = clock;
+	}
+
+	/**
+	 * Publishes message of an event logged at the given wall time, on the
+	 * asynchronous log thread. The time is used only with the system clock, a
+	 * simulated clock gives its current time.
+	 */
+	public void publish(long timeMillis, byte level, String sourceClass, String sourceMethod, int line,
+			String message) {
+		if (reuseMessages) {
+			publish(LOG_MESSAGE.get(), fillStamp(STAMP.get(), timeMillis), level, sourceClass, sourceMethod, line,
+					message);
+		} else {
+			publish(new rcl_interfaces.msg.Log(), fillStamp(new Time(), timeMillis), level, sourceClass,
+					sourceMethod, line, message);
+		}
+	}
+
+	private Time fillStamp(Time stamp, long timeMillis) {
+		Clock current = clock;
+		if (current instanceof SimulatedClock) {
+			return current.fillTime(stamp);
+		}
+		stamp.setSec((int) (timeMillis / 1000L));
+		stamp.setNanosec((int) (timeMillis % 1000L) * 1000000);
+		return stamp;
 	}
 
 	public void publish(byte level, String sourceClass, String sourceMethod, int line, Object message, Throwable throwable) {
-		StringWriter stringWriter = new StringWriter();
-		PrintWriter printWriter = new PrintWriter(stringWriter);
-		throwable.printStackTrace(printWriter);
-		publish(level, sourceClass, sourceMethod, line, message.toString() + '\n' + stringWriter.toString());
+		publish(level, sourceClass, sourceMethod, line, withStackTrace(message, throwable));
 	}
 
 	public void publish(byte level, String sourceClass, String sourceMethod, int line, Object message) {
-		rcl_interfaces.msg.Log logMessage = new rcl_interfaces.msg.Log();
-		logMessage.setStamp(clock.timeNow());
+		if (reuseMessages) {
+			publish(LOG_MESSAGE.get(), clock.fillTime(STAMP.get()), level, sourceClass, sourceMethod, line,
+					message.toString());
+		} else {
+			publish(new rcl_interfaces.msg.Log(), clock.timeNow(), level, sourceClass, sourceMethod, line,
+					message.toString());
+		}
+	}
+
+	/**
+	 * Fills the given message and publishes it. Lets a single thread reuse the
+	 * message and its stamp.
+	 */
+	public void publish(rcl_interfaces.msg.Log logMessage, Time stamp, byte level, String sourceClass,
+			String sourceMethod, int line, String message) {
+		logMessage.setStamp(stamp);
 		logMessage.setLevel(level);
-		logMessage.setName(node.getName());
-		logMessage.setMsg(message.toString());
+		logMessage.setName(nodeName);
+		logMessage.setMsg(message);
 		logMessage.setFile(sourceClass);
 		logMessage.setFunction(sourceMethod);
 		logMessage.setLine(line);
 		publisher.publish(logMessage);
 	}
+
+	/**
+	 * Stops publishing log messages of the node's loggers, called when the
+	 * node shuts down.
+	 */
+	public void unregister() {
+		registered = false;
+		RosJavaDi.ROSOUT_PUBLISHER.compareAndSet(this, null);
+		for (Iterator<RosoutPublisher> i = COMPONENT_PUBLISHERS.values().iterator(); i.hasNext();) {
+			if (i.next() == this) {
+				i.remove();
+			}
+		}
+	}
+
+	/**
+	 * Makes static loggers of the component class publish to this node,
+	 * unless another node created the class before.
+	 */
+	public void addComponentClass(Class<?> componentClass) {
+		if (registered) {
+			COMPONENT_PUBLISHERS.putIfAbsent(componentClass.getName(), this);
+		}
+	}
+
+	/**
+	 * Returns the publisher of a logger bound to the given node publisher, or
+	 * of a static logger of the given class when null. A static logger of a
+	 * class no running node created gets the default publisher. Returns null
+	 * once the node has shut down.
+	 */
+	public static RosoutPublisher forLogger(RosoutPublisher nodePublisher, String className) {
+		if (nodePublisher == null) {
+			RosoutPublisher componentPublisher = forComponentClass(className);
+			return componentPublisher != null ? componentPublisher : RosJavaDi.ROSOUT_PUBLISHER.get();
+		}
+		return nodePublisher.registered ? nodePublisher : null;
+	}
+
+	private static RosoutPublisher forComponentClass(String className) {
+		if (COMPONENT_PUBLISHERS.isEmpty()) {
+			return null;
+		}
+		RosoutPublisher publisher = COMPONENT_PUBLISHERS.get(className);
+		// class nested in a component
+		for (int nested = className.lastIndexOf('$'); publisher == null && nested > 0; nested = className
+				.lastIndexOf('$', nested - 1)) {
+			publisher = COMPONENT_PUBLISHERS.get(className.substring(0, nested));
+		}
+		return publisher != null && publisher.registered ? publisher : null;
+	}
+
+	public static String withStackTrace(Object message, Throwable throwable) {
+		StringWriter stringWriter = new StringWriter();
+		PrintWriter printWriter = new PrintWriter(stringWriter);
+		throwable.printStackTrace(printWriter);
+		return message.toString() + '\n' + stringWriter.toString();
+	}
 }
@@ -0,0 +1,196 @@
+package org.ros2.java.di.internal;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.ros2.java.di.RepeaterScheduler;
+import org.ros2.java.di.SimulatedClock;
+
+/**
+ * Repeater scheduler whose deadlines are in the time of a simulated clock.
+ * Repeaters that became due are handed to a fixed pool of threads whenever
+ * the time of the clock changes. When the time goes back, for example when a
+ * recording is played again, the waiting repeaters keep their remaining wait.
+ */
+public class SimulatedTimeRepeaterScheduler implements RepeaterScheduler {
+
+	private final SimulatedClock clock;
+	private final ExecutorService executor;
+	private final PriorityQueue<SimulatedRepeater> queue = new PriorityQueue<>(
+			new Comparator<SimulatedRepeater>() {
+				@Override
+				public int compare(SimulatedRepeater a, SimulatedRepeater b) {
+					return Long.compare(a.deadline, b.deadline);
+				}
+			});
+	// guarded by the queue
+	private long lastTime;
+	private long rewound;
+	private final Runnable listener = new Runnable() {
+		@Override
+		public void run() {
+			runDue();
+		}
+	};
+
+	public SimulatedTimeRepeaterScheduler(SimulatedClock clock, int threads) {
+		if (threads <= 0) {
+			throw new IllegalArgumentException("Number of repeater threads must be positive, was " + threads);
+		}
+		this.clock = clock;
+		this.lastTime = clock.monotonicNanos();
+		this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private AtomicInteger number = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				return new Thread(runnable, "rosjavadi-repeater-" + number.incrementAndGet());
+			}
+		});
+		clock.addTimeListener(listener);
+	}
+
+	@Override
+	public RepeaterHandle start(RepeaterTask task) {
+		SimulatedRepeater repeater = new SimulatedRepeater(task);
+		synchronized (repeater) {
+			repeater.submit();
+		}
+		return repeater;
+	}
+
+	@Override
+	public void shutdown() {
+		clock.removeTimeListener(listener);
+		executor.shutdownNow();
+	}
+
+	private void runDue() {
+		synchronized (queue) {
+			long now = time();
+			while (!queue.isEmpty() && queue.peek().deadline - now <= 0) {
+				queue.poll().submit();
+			}
+		}
+	}
+
+	/**
+	 * Returns the time of the clock, moving the queued deadlines back with it
+	 * when it went back. Must be called holding the queue.
+	 */
+	private long time() {
+		long now = clock.monotonicNanos();
+		if (now < lastTime) {
+			// moving all deadlines alike keeps the order of the queue
+			for (SimulatedRepeater repeater : queue) {
+				repeater.deadline += now - lastTime;
+			}
+			rewound += lastTime - now;
+		}
+		lastTime = now;
+		return now;
+	}
+
+	private class SimulatedRepeater implements RepeaterHandle, Runnable {
+
+		private RepeaterTask task;
+		// guarded by the queue
+		private long deadline;
+		private long startTime;
+		private long startRewound;
+		private boolean running = false;
+		private boolean wakeup = false;
+		private boolean cancelled = false;
+
+		SimulatedRepeater(RepeaterTask task) {
+			this.task = task;
+		}
+
+		@Override
+		public void run() {
+			synchronized (this) {
+				if (cancelled) {
+					return;
+				}
+				running = true;
+				wakeup = false;
+			}
+			synchronized (queue) {
+				startTime = time();
+				startRewound = rewound;
+			}
+			long next = -1;
+			try {
+				next = task.run();
+			} finally {
+				synchronized (this) {
+					running = false;
+					if (next < 0) {
+						cancelled = true;
+					} else if (!cancelled) {
+						if (wakeup) {
+							submit();
+						} else {
+							schedule(next);
+						}
+					}
+				}
+			}
+		}
+
+		@Override
+		public synchronized void wakeup() {
+			if (cancelled) {
+				return;
+			}
+			if (running) {
+				wakeup = true;
+				return;
+			}
+			boolean removed;
+			synchronized (queue) {
+				removed = queue.remove(this);
+			}
+			if (removed) {
+				submit();
+			}
+		}
+
+		@Override
+		public synchronized void cancel() {
+			cancelled = true;
+			synchronized (queue) {
+				queue.remove(this);
+			}
+		}
+
+		private void schedule(long next) {
+			synchronized (queue) {
+				time();
+				if (rewound != startRewound && next - startTime >= 0) {
+					// the task read the time before the clock went back
+					next -= rewound - startRewound;
+				}
+				deadline = next;
+				queue.add(this);
+			}
+			// the time may have passed the deadline before it was queued
+			runDue();
+		}
+
+		private void submit() {
+			try {
+				executor.execute(this);
+			} catch (RejectedExecutionException e) {
+				// scheduler is shut down
+				cancelled = true;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,152 @@
+package org.ros2.java.di.internal;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.ros2.java.di.RepeaterScheduler;
+import org.ros2.java.di.SimulatedClock;
+
+/**
+ * Repeater scheduler that runs every repeater in a loop on its own daemon
+ * thread, so that a repeater blocking or looping without interval does not
+ * hold up the others. With a simulated clock the deadlines are in its time
+ * and the threads wait for its updates, keeping the remaining wait when the
+ * time goes back.
+ */
+public class ThreadRepeaterScheduler implements RepeaterScheduler {
+
+	private final SimulatedClock clock;
+	private final AtomicInteger number = new AtomicInteger();
+	private final Set<LoopRepeater> repeaters = ConcurrentHashMap.newKeySet();
+	// written only by the time listener, holding the listener
+	private long lastTime;
+	private volatile long rewound;
+	private final Runnable listener = new Runnable() {
+		@Override
+		public void run() {
+			synchronized (this) {
+				long now = clock.monotonicNanos();
+				if (now < lastTime) {
+					rewound += lastTime - now;
+				}
+				lastTime = now;
+			}
+			for (LoopRepeater repeater : repeaters) {
+				LockSupport.unpark(repeater.thread);
+			}
+		}
+	};
+
+	public ThreadRepeaterScheduler() {
+		this(null);
+	}
+
+	/**
+	 * Creates scheduler whose deadlines are in the time of the clock, or in
+	 * {@link System#nanoTime()} when it is null.
+	 */
+	public ThreadRepeaterScheduler(SimulatedClock clock) {
+		this.clock = clock;
+		if (clock != null) {
+			lastTime = clock.monotonicNanos();
+			clock.addTimeListener(listener);
+		}
+	}
+
+	@Override
+	public RepeaterHandle start(RepeaterTask task) {
+		LoopRepeater repeater = new LoopRepeater(task);
+		repeater.thread = newThread(repeater, number.incrementAndGet());
+		repeaters.add(repeater);
+		repeater.thread.start();
+		return repeater;
+	}
+
+	@Override
+	public void shutdown() {
+		if (clock != null) {
+			clock.removeTimeListener(listener);
+		}
+		for (LoopRepeater repeater : repeaters) {
+			repeater.cancel();
+		}
+	}
+
+	/**
+	 * Returns the unstarted thread running the repeater.
+	 */
+	protected Thread newThread(Runnable runnable, int number) {
+		Thread thread = new Thread(runnable, "rosjavadi-repeater-thread-" + number);
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	private long now() {
+		return clock != null ? clock.monotonicNanos() : System.nanoTime();
+	}
+
+	private class LoopRepeater implements RepeaterHandle, Runnable {
+
+		private RepeaterTask task;
+		private Thread thread;
+		private volatile boolean wakeup = false;
+		private volatile boolean cancelled = false;
+
+		LoopRepeater(RepeaterTask task) {
+			this.task = task;
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (!cancelled) {
+					long seen = rewound;
+					long start = now();
+					long deadline = task.run();
+					if (deadline < 0) {
+						break;
+					}
+					while (!cancelled && !wakeup) {
+						long back = rewound - seen;
+						if (back != 0) {
+							seen += back;
+							if (deadline - start >= 0) {
+								// the task read the time before the clock went back
+								deadline -= back;
+								start -= back;
+							}
+						}
+						long wait = deadline - now();
+						if (wait <= 0) {
+							break;
+						}
+						if (clock != null) {
+							// woken up by the time listener
+							LockSupport.park(this);
+						} else {
+							LockSupport.parkNanos(this, wait);
+						}
+					}
+					wakeup = false;
+				}
+			} finally {
+				repeaters.remove(this);
+			}
+		}
+
+		@Override
+		public void wakeup() {
+			wakeup = true;
+			LockSupport.unpark(thread);
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			LockSupport.unpark(thread);
+		}
+	}
+
+}
@@ -0,0 +1,263 @@
+package org.ros2.java.di.internal;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.ros2.java.di.Clock;
+import org.ros2.java.di.LogSeldom;
+import org.ros2.java.di.RosJavaDi;
+import org.ros2.java.di.SimulatedClock;
+
+/**
+ * Hashed timer wheel tracking many timeouts with a single thread.
+ * <p>
+ * Postponing a timeout is a single write of its deadline, so it can be done
+ * for every received message. The wheel thread only looks at a timeout when
+ * its slot comes up: if the deadline has been postponed in the meantime the
+ * timeout is put back into the slot of the new deadline, otherwise its action
+ * is run and the deadline is pushed one period ahead.
+ * <p>
+ * Time is read from a {@link Clock}. With a {@link SimulatedClock} the wheel
+ * thread also wakes up whenever the simulated time changes. When that time
+ * jumps more than one revolution ahead, or back, the wheel is re-anchored at
+ * the new time and every timeout is looked at once: expired ones run their
+ * action once and deadlines a jump back left far ahead are pulled in to one
+ * period from now.
+ */
+public class TimeoutWheel {
+
+	private static LogSeldom LOG = RosJavaDi.getLog();
+
+	private static final long DEFAULT_TICK_NANOSECONDS = TimeUnit.MILLISECONDS.toNanos(5);
+	private static final int DEFAULT_WHEEL_SIZE = 1024;
+
+	private final Clock clock;
+	private final long tickNanoseconds;
+	private final Timeout[] wheel;
+	private final int mask;
+	private final ConcurrentLinkedQueue<Timeout> added = new ConcurrentLinkedQueue<>();
+	private volatile Thread thread;
+	private volatile boolean running = true;
+
+	// accessed only by the wheel thread
+	private long startTime;
+	private long tick;
+	private int count;
+
+	public TimeoutWheel() {
+		this(new Clock());
+	}
+
+	public TimeoutWheel(Clock clock) {
+		this(clock, DEFAULT_TICK_NANOSECONDS, DEFAULT_WHEEL_SIZE);
+	}
+
+	/**
+	 * Creates the wheel. Timeouts fire up to one tick late. The wheel size must
+	 * be a power of two.
+	 */
+	public TimeoutWheel(Clock clock, long tickNanoseconds, int wheelSize) {
+		if (tickNanoseconds <= 0) {
+			throw new IllegalArgumentException("Tick must be positive, was " + tickNanoseconds);
+		}
+		if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+			throw new IllegalArgumentException("Wheel size must be a power of two, was " + wheelSize);
+		}
+		this.clock = clock;
+		this.tickNanoseconds = tickNanoseconds;
+		this.wheel = new Timeout[wheelSize];
+		this.mask = wheelSize - 1;
+		if (clock instanceof SimulatedClock) {
+			((SimulatedClock) clock).addTimeListener(new Runnable() {
+				@Override
+				public void run() {
+					Thread current = thread;
+					if (current != null) {
+						LockSupport.unpark(current);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Adds timeout running the action when it is not postponed for the given
+	 * period. The wheel thread is started with the first timeout.
+	 */
+	public Timeout add(long periodNanoseconds, Runnable action) {
+		if (periodNanoseconds <= 0) {
+			throw new IllegalArgumentException("Timeout period must be positive, was " + periodNanoseconds);
+		}
+		Timeout timeout = new Timeout(clock, periodNanoseconds, action);
+		timeout.postpone();
+		added.add(timeout);
+		synchronized (this) {
+			if (thread == null) {
+				thread = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						runWheel();
+					}
+				}, "rosjavadi-timeouts");
+				thread.setDaemon(true);
+				thread.start();
+			}
+		}
+		LockSupport.unpark(thread);
+		return timeout;
+	}
+
+	public synchronized void shutdown() {
+		running = false;
+		if (thread != null) {
+			LockSupport.unpark(thread);
+		}
+	}
+
+	private void runWheel() {
+		startTime = clock.monotonicNanos();
+		tick = 0;
+		while (running) {
+			if (count == 0 && added.isEmpty()) {
+				LockSupport.park(this);
+				// do not replay the ticks that passed while idle
+				startTime = clock.monotonicNanos();
+				tick = 0;
+				continue;
+			}
+			long now = clock.monotonicNanos();
+			long elapsed = Math.floorDiv(now - startTime, tickNanoseconds);
+			if (elapsed < tick || elapsed - tick > wheel.length) {
+				jump(now);
+				continue;
+			}
+			long wait = startTime + (tick + 1) * tickNanoseconds - now;
+			if (wait > 0) {
+				LockSupport.parkNanos(this, wait);
+				continue;
+			}
+			tick++;
+			Timeout timeout;
+			while ((timeout = added.poll()) != null) {
+				count++;
+				schedule(timeout);
+			}
+			expire((int) (tick & mask));
+		}
+	}
+
+	private void expire(int index) {
+		Timeout timeout = wheel[index];
+		wheel[index] = null;
+		long now = clock.monotonicNanos();
+		while (timeout != null) {
+			Timeout next = timeout.next;
+			timeout.next = null;
+			if (timeout.cancelled) {
+				count--;
+			} else {
+				check(timeout, now);
+				schedule(timeout);
+			}
+			timeout = next;
+		}
+	}
+
+	/**
+	 * Re-anchors the wheel at the current time after the clock jumped, instead
+	 * of stepping through the ticks in between one by one.
+	 */
+	private void jump(long now) {
+		Timeout timeouts = null;
+		for (int i = 0; i < wheel.length; i++) {
+			Timeout timeout = wheel[i];
+			wheel[i] = null;
+			while (timeout != null) {
+				Timeout next = timeout.next;
+				timeout.next = timeouts;
+				timeouts = timeout;
+				timeout = next;
+			}
+		}
+		startTime = now;
+		tick = 0;
+		Timeout timeout;
+		while ((timeout = added.poll()) != null) {
+			count++;
+			schedule(timeout);
+		}
+		timeout = timeouts;
+		while (timeout != null) {
+			Timeout next = timeout.next;
+			timeout.next = null;
+			if (timeout.cancelled) {
+				count--;
+			} else {
+				check(timeout, now);
+				schedule(timeout);
+			}
+			timeout = next;
+		}
+	}
+
+	/**
+	 * Runs the action if the timeout expired and pushes its deadline one
+	 * period ahead.
+	 */
+	private void check(Timeout timeout, long now) {
+		long deadline = timeout.deadline.get();
+		if (deadline - now > timeout.period) {
+			// left behind by the clock going back
+			timeout.deadline.compareAndSet(deadline, now + timeout.period);
+		} else if (deadline - now <= 0 && timeout.deadline.compareAndSet(deadline, now + timeout.period)) {
+			// the compare and set loses to a message postponing the timeout
+			try {
+				timeout.action.run();
+			} catch (Throwable t) {
+				LOG.error("Exception caught while running timeout action", t);
+			}
+		}
+	}
+
+	private void schedule(Timeout timeout) {
+		long ticks = (timeout.deadline.get() - startTime + tickNanoseconds - 1) / tickNanoseconds;
+		if (ticks <= tick) {
+			ticks = tick + 1;
+		}
+		int index = (int) (ticks & mask);
+		timeout.next = wheel[index];
+		wheel[index] = timeout;
+	}
+
+	public static class Timeout {
+
+		private final Clock clock;
+		private final long period;
+		private final Runnable action;
+		private final AtomicLong deadline = new AtomicLong();
+		private volatile boolean cancelled = false;
+
+		// accessed only by the wheel thread
+		private Timeout next;
+
+		Timeout(Clock clock, long period, Runnable action) {
+			this.clock = clock;
+			this.period = period;
+			this.action = action;
+		}
+
+		/**
+		 * Moves the deadline one period from now.
+		 */
+		public void postpone() {
+			deadline.lazySet(clock.monotonicNanos() + period);
+		}
+
+		public void cancel() {
+			cancelled = true;
+		}
+	}
+
+}
@@ -0,0 +1,33 @@
+package org.ros2.java.di.internal;
+
+import java.lang.reflect.Method;
+
+/**
+ * Repeater scheduler that runs every repeater in a loop on its own virtual
+ * thread. Virtual threads are looked up with reflection, so that the library
+ * still runs on Java 8.
+ */
+public class VirtualThreadRepeaterScheduler extends ThreadRepeaterScheduler {
+
+	private Method ofVirtual;
+	private Method unstarted;
+
+	public VirtualThreadRepeaterScheduler() {
+		try {
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			unstarted = Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class);
+		} catch (ReflectiveOperationException e) {
+			throw new UnsupportedOperationException("Virtual threads require Java 21 or newer", e);
+		}
+	}
+
+	@Override
+	protected Thread newThread(Runnable runnable, int number) {
+		try {
+			return (Thread) unstarted.invoke(ofVirtual.invoke(null), runnable);
+		} catch (ReflectiveOperationException e) {
+			throw new UnsupportedOperationException("Cannot create virtual thread", e);
+		}
+	}
+
+}
@@ -0,0 +1,11 @@
+package org.ros2.java.di.internal;
+
+/**
+ * Calls a void method without arguments on its object. Lambdas generated for
+ * void methods implement it, since a lambda returning Object cannot call them.
+ */
+public interface VoidInvoker {
+
+	void invoke() throws Throwable;
+
+}
@@ -0,0 +1,113 @@
+package org.ros2.java.di.transport;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-memory network connecting loopback transports, messages published on a
+ * topic are delivered to the subscriptions of all transports on the same bus.
+ */
+public class LoopbackBus {
+
+	private static final LoopbackBus DEFAULT = new LoopbackBus();
+
+	private final ConcurrentHashMap<String, Topic> topics = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the bus shared by loopback transports created without one.
+	 */
+	public static LoopbackBus getDefault() {
+		return DEFAULT;
+	}
+
+	Topic find(String name) {
+		return topics.get(name);
+	}
+
+	Topic topic(String name, Class<?> type) {
+		Topic topic = topics.computeIfAbsent(name, n -> new Topic(n, type));
+		if (!topic.type.equals(type)) {
+			throw new IllegalArgumentException("Topic " + name + " has type " + topic.type.getName()
+					+ ", cannot use it with " + type.getName());
+		}
+		return topic;
+	}
+
+	static class Topic {
+
+		final String name;
+		final Class<?> type;
+		final CopyOnWriteArrayList<LoopbackSubscription<?>> subscriptions = new CopyOnWriteArrayList<>();
+		final CopyOnWriteArrayList<Latch> latches = new CopyOnWriteArrayList<>();
+
+		Topic(String name, Class<?> type) {
+			this.name = name;
+			this.type = type;
+		}
+
+		/**
+		 * Delivers the message to the subscriptions, except to the ones of the
+		 * origin transport ignoring local publications. The origin is null
+		 * unless the publisher is intra-process.
+		 */
+		void publish(Object message, LoopbackTransport origin) {
+			for (LoopbackSubscription<?> subscription : subscriptions) {
+				if (subscription.transport != origin || !subscription.ignoreLocalPublications) {
+					subscription.offer(message);
+				}
+			}
+		}
+
+		Latch latch(LoopbackTransport origin) {
+			Latch latch = new Latch(this, origin);
+			latches.add(latch);
+			return latch;
+		}
+
+		/**
+		 * Keeps the message for later subscriptions and publishes it, locked
+		 * against {@link #subscribe} so that a new subscription never receives
+		 * the replayed message after a newer one.
+		 */
+		synchronized void publishLatched(Latch latch, Object message) {
+			latch.message = message;
+			publish(message, latch.origin);
+		}
+
+		synchronized void subscribe(LoopbackSubscription<?> subscription) {
+			subscriptions.add(subscription);
+			for (Latch latch : latches) {
+				Object message = latch.message;
+				if (message != null
+						&& (subscription.transport != latch.origin || !subscription.ignoreLocalPublications)) {
+					subscription.offer(message);
+				}
+			}
+		}
+
+		int countSubscriptionsOutside(LoopbackTransport transport) {
+			int count = 0;
+			for (LoopbackSubscription<?> subscription : subscriptions) {
+				if (subscription.transport != transport) {
+					count++;
+				}
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * Last message of a latched publisher.
+	 */
+	static class Latch {
+
+		final Topic topic;
+		final LoopbackTransport origin;
+		volatile Object message;
+
+		Latch(Topic topic, LoopbackTransport origin) {
+			this.topic = topic;
+			this.origin = origin;
+		}
+	}
+}
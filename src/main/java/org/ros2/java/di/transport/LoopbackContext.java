@@ -0,0 +1,40 @@
+package org.ros2.java.di.transport;
+
+/**
+ * Loopback transports on one bus sharing one pool of delivery threads.
+ */
+public class LoopbackContext implements TransportContext {
+
+	private final LoopbackBus bus;
+	private final int queueDepth;
+	private final LoopbackExecutor executor = new LoopbackExecutor("shared");
+
+	public LoopbackContext() {
+		this(new LoopbackBus(), LoopbackTransport.DEFAULT_QUEUE_DEPTH);
+	}
+
+	public LoopbackContext(LoopbackBus bus, int queueDepth) {
+		this.bus = bus;
+		this.queueDepth = queueDepth;
+	}
+
+	public LoopbackBus getBus() {
+		return bus;
+	}
+
+	@Override
+	public Transport createTransport(String nodeName, String[] args) {
+		return new LoopbackTransport(bus, nodeName, queueDepth, executor, false);
+	}
+
+	@Override
+	public void start(int threads) {
+		executor.start(threads);
+	}
+
+	@Override
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+}
@@ -0,0 +1,80 @@
+package org.ros2.java.di.transport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Threads delivering messages of loopback subscriptions that became ready,
+ * owned by one transport or shared by the transports of a
+ * {@link LoopbackContext}.
+ */
+class LoopbackExecutor {
+
+	/**
+	 * Messages delivered from one subscription before the thread moves on to
+	 * the next ready one.
+	 */
+	private static final int DRAIN_BATCH = 64;
+
+	/**
+	 * Upper bound on how long an idle thread sleeps, in case a wakeup is lost.
+	 */
+	private static final long MAX_PARK_NANOSECONDS = 100000000L;
+
+	private final String name;
+	private final ConcurrentLinkedQueue<LoopbackSubscription<?>> ready = new ConcurrentLinkedQueue<>();
+	private final ConcurrentLinkedQueue<Thread> idleThreads = new ConcurrentLinkedQueue<>();
+	private final List<Thread> threads = new ArrayList<>();
+	private volatile boolean running = true;
+
+	LoopbackExecutor(String name) {
+		this.name = name;
+	}
+
+	synchronized void start(int threadCount) {
+		for (int i = 0; i < threadCount; i++) {
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					deliver();
+				}
+			}, "rosjavadi-loopback-" + name + "-" + i);
+			threads.add(thread);
+			thread.start();
+		}
+	}
+
+	synchronized void shutdown() {
+		running = false;
+		for (Thread thread : threads) {
+			LockSupport.unpark(thread);
+		}
+	}
+
+	void schedule(LoopbackSubscription<?> subscription) {
+		ready.add(subscription);
+		Thread idle = idleThreads.poll();
+		if (idle != null) {
+			LockSupport.unpark(idle);
+		}
+	}
+
+	private void deliver() {
+		Thread current = Thread.currentThread();
+		while (running) {
+			LoopbackSubscription<?> subscription = ready.poll();
+			if (subscription != null) {
+				subscription.drain(DRAIN_BATCH);
+				continue;
+			}
+			idleThreads.add(current);
+			if (ready.isEmpty() && running) {
+				LockSupport.parkNanos(this, MAX_PARK_NANOSECONDS);
+			}
+			idleThreads.remove(current);
+		}
+	}
+
+}
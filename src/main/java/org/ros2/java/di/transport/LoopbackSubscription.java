@@ -0,0 +1,73 @@
+package org.ros2.java.di.transport;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.ros2.java.di.LogSeldom;
+import org.ros2.java.di.RosJavaDi;
+import org.ros2.java.di.internal.MessageQueue;
+import org.ros2.rcljava.consumers.Consumer;
+
+/**
+ * Subscription of a loopback transport. Messages wait in a lock-free queue,
+ * keeping the newest ones when it is full, and the subscription is handed to
+ * one executor thread at a time so the callback sees them in order.
+ */
+class LoopbackSubscription<T> {
+
+	private static LogSeldom LOG = RosJavaDi.getLog();
+
+	final LoopbackTransport transport;
+	final boolean ignoreLocalPublications;
+	final String topicName;
+	private final LoopbackExecutor executor;
+	private final Consumer<T> callback;
+	private final MessageQueue<Object> queue;
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	final AtomicLong droppedMessages = new AtomicLong();
+
+	LoopbackSubscription(LoopbackTransport transport, LoopbackExecutor executor, String topicName,
+			Consumer<T> callback, int depth, boolean ignoreLocalPublications) {
+		this.transport = transport;
+		this.executor = executor;
+		this.ignoreLocalPublications = ignoreLocalPublications;
+		this.topicName = topicName;
+		this.callback = callback;
+		this.queue = new MessageQueue<>(depth);
+	}
+
+	void offer(Object message) {
+		while (!queue.offer(message)) {
+			if (queue.poll() != null) {
+				droppedMessages.incrementAndGet();
+			}
+		}
+		if (scheduled.compareAndSet(false, true)) {
+			executor.schedule(this);
+		}
+	}
+
+	/**
+	 * Delivers up to the given number of messages, called by the executor
+	 * thread that took the subscription from the ready queue.
+	 */
+	@SuppressWarnings("unchecked")
+	void drain(int max) {
+		for (int i = 0; i < max; i++) {
+			Object message = queue.poll();
+			if (message == null) {
+				break;
+			}
+			try {
+				callback.accept((T) message);
+			} catch (Throwable t) {
+				LOG.error("Exception caught while delivering message on topic " + topicName, t);
+			}
+		}
+		scheduled.set(false);
+		// a message offered while draining could not schedule the subscription
+		if (queue.size() > 0 && scheduled.compareAndSet(false, true)) {
+			executor.schedule(this);
+		}
+	}
+}
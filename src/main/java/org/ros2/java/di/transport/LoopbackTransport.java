@@ -0,0 +1,245 @@
+package org.ros2.java.di.transport;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.ros2.rcljava.consumers.Consumer;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.parameters.ParameterVariant;
+import org.ros2.rcljava.publisher.Publisher;
+
+/**
+ * Pure Java transport passing message references through lock-free queues,
+ * for load tests and benchmarks without the native ROS 2 stack.
+ * <p>
+ * Publishing puts the message into the queue of every subscription on the bus
+ * and hands subscriptions that became ready to the executor threads of their
+ * transport. Parameters are kept in memory, setting them calls the parameter
+ * listener the same way an external parameter client would.
+ * <p>
+ * Latched publishers keep their last message on the bus until the transport
+ * shuts down and deliver it to every subscription created later.
+ */
+public class LoopbackTransport implements Transport {
+
+	public static final int DEFAULT_QUEUE_DEPTH = 1024;
+
+	private final LoopbackBus bus;
+	private final String nodeName;
+	private final int queueDepth;
+	private final ConcurrentHashMap<String, ParameterVariant> parameters = new ConcurrentHashMap<>();
+	private final CopyOnWriteArrayList<LoopbackSubscription<?>> subscriptions = new CopyOnWriteArrayList<>();
+	private final CopyOnWriteArrayList<LoopbackBus.Latch> latches = new CopyOnWriteArrayList<>();
+	private final LoopbackExecutor executor;
+	private final boolean ownsExecutor;
+	private volatile ParameterListener parameterListener;
+
+	/**
+	 * Creates transport on the default bus.
+	 */
+	public LoopbackTransport(String nodeName) {
+		this(LoopbackBus.getDefault(), nodeName, DEFAULT_QUEUE_DEPTH);
+	}
+
+	/**
+	 * Creates transport on the given bus, keeping at most queue depth messages
+	 * per subscription.
+	 */
+	public LoopbackTransport(LoopbackBus bus, String nodeName, int queueDepth) {
+		this(bus, nodeName, queueDepth, new LoopbackExecutor(nodeName), true);
+	}
+
+	LoopbackTransport(LoopbackBus bus, String nodeName, int queueDepth, LoopbackExecutor executor,
+			boolean ownsExecutor) {
+		if (queueDepth <= 0) {
+			throw new IllegalArgumentException("Queue depth must be positive, was " + queueDepth);
+		}
+		this.bus = bus;
+		this.nodeName = nodeName;
+		this.queueDepth = queueDepth;
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+	}
+
+	@Override
+	public String getNodeName() {
+		return nodeName;
+	}
+
+	/**
+	 * Returns a proxy of the rcljava publisher interface, only publish is
+	 * supported.
+	 */
+	@Override
+	public <T extends MessageDefinition> Publisher<T> createPublisher(Class<T> topicType, String topicName) {
+		return createPublisher(topicType, topicName, false, false);
+	}
+
+	@Override
+	public <T extends MessageDefinition> Publisher<T> createLatchedPublisher(Class<T> topicType,
+			String topicName) {
+		return createPublisher(topicType, topicName, true, false);
+	}
+
+	@Override
+	public boolean supportsLatching() {
+		return true;
+	}
+
+	@Override
+	public <T extends MessageDefinition> Publisher<T> createIntraProcessPublisher(Class<T> topicType,
+			String topicName, boolean latched) {
+		return createPublisher(topicType, topicName, latched, true);
+	}
+
+	/**
+	 * Creates publisher whose messages subscriptions of this transport that
+	 * ignore local publications skip, if it is intra-process.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T extends MessageDefinition> Publisher<T> createPublisher(Class<T> topicType, String topicName,
+			boolean latched, boolean intraProcess) {
+		LoopbackBus.Topic topic = bus.topic(topicName, topicType);
+		LoopbackTransport origin = intraProcess ? this : null;
+		LoopbackBus.Latch latch = latched ? topic.latch(origin) : null;
+		if (latch != null) {
+			latches.add(latch);
+		}
+		return (Publisher<T>) Proxy.newProxyInstance(Publisher.class.getClassLoader(),
+				new Class<?>[] { Publisher.class }, new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						switch (method.getName()) {
+						case "publish":
+							if (args != null && args.length == 1) {
+								if (latch != null) {
+									topic.publishLatched(latch, args[0]);
+								} else {
+									topic.publish(args[0], origin);
+								}
+								return null;
+							}
+							break;
+						case "equals":
+							return proxy == args[0];
+						case "hashCode":
+							return System.identityHashCode(proxy);
+						case "toString":
+							return "LoopbackPublisher " + topicName;
+						}
+						throw new UnsupportedOperationException(
+								"Method " + method.getName() + " is not supported by loopback publisher");
+					}
+				});
+	}
+
+	@Override
+	public <T extends MessageDefinition> void createSubscription(Class<T> topicType, String topicName,
+			Consumer<T> callback, boolean ignoreLocalPublications) {
+		LoopbackSubscription<T> subscription = new LoopbackSubscription<>(this, executor, topicName, callback,
+				queueDepth, ignoreLocalPublications);
+		subscriptions.add(subscription);
+		bus.topic(topicName, topicType).subscribe(subscription);
+	}
+
+	@Override
+	public boolean canIgnoreLocalPublications() {
+		return true;
+	}
+
+	@Override
+	public int getRemoteSubscriptionCount(String topicName) {
+		LoopbackBus.Topic topic = bus.find(topicName);
+		return topic == null ? 0 : topic.countSubscriptionsOutside(this);
+	}
+
+	@Override
+	public List<ParameterVariant> getParameters(List<String> names) {
+		ArrayList<ParameterVariant> variants = new ArrayList<>();
+		for (String name : names) {
+			ParameterVariant variant = parameters.get(name);
+			if (variant != null) {
+				variants.add(variant);
+			}
+		}
+		return variants;
+	}
+
+	@Override
+	public void setParameters(List<ParameterVariant> variants) {
+		for (ParameterVariant variant : variants) {
+			parameters.put(variant.getName(), variant);
+		}
+		ParameterListener listener = parameterListener;
+		if (listener != null) {
+			listener.onParametersChanged(variants);
+		}
+	}
+
+	@Override
+	public void setParameterListener(ParameterListener listener) {
+		this.parameterListener = listener;
+	}
+
+	@Override
+	public boolean supportsRosout() {
+		return false;
+	}
+
+	/**
+	 * Subscribers receive the published object itself.
+	 */
+	@Override
+	public boolean copiesPublishedMessages() {
+		return false;
+	}
+
+	/**
+	 * Returns number of messages dropped because a subscription queue of this
+	 * transport was full.
+	 */
+	public long getDroppedMessages() {
+		long dropped = 0;
+		for (LoopbackSubscription<?> subscription : subscriptions) {
+			dropped += subscription.droppedMessages.get();
+		}
+		return dropped;
+	}
+
+	/**
+	 * Starts the delivery threads, unless the transport belongs to a
+	 * {@link LoopbackContext} which starts them for all its transports.
+	 */
+	@Override
+	public void start(int threadCount) {
+		if (ownsExecutor) {
+			executor.start(threadCount);
+		}
+	}
+
+	/**
+	 * Removes the subscriptions and latched messages of this transport from
+	 * the bus.
+	 */
+	@Override
+	public void shutdown() {
+		for (LoopbackSubscription<?> subscription : subscriptions) {
+			LoopbackBus.Topic topic = bus.find(subscription.topicName);
+			if (topic != null) {
+				topic.subscriptions.remove(subscription);
+			}
+		}
+		for (LoopbackBus.Latch latch : latches) {
+			latch.topic.latches.remove(latch);
+		}
+		if (ownsExecutor) {
+			executor.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,17 @@
+package org.ros2.java.di.transport;
+
+import java.util.List;
+
+import org.ros2.rcljava.parameters.ParameterVariant;
+
+/**
+ * Receives parameters changed from outside of the node.
+ */
+public interface ParameterListener {
+
+	/**
+	 * Returns true if the parameters were accepted.
+	 */
+	boolean onParametersChanged(List<ParameterVariant> parameters);
+
+}
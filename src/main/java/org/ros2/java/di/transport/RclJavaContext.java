@@ -0,0 +1,86 @@
+package org.ros2.java.di.transport;
+
+import java.util.ArrayList;
+
+import org.ros2.java.di.LogSeldom;
+import org.ros2.java.di.RosJavaDi;
+import org.ros2.rcljava.RCLJava;
+import org.ros2.rcljava.executors.Executor;
+import org.ros2.rcljava.executors.MultiThreadedExecutor;
+import org.ros2.rcljava.executors.SingleThreadedExecutor;
+import org.ros2.rcljava.node.ComposableNode;
+
+/**
+ * One rcljava context with one executor spinning all nodes added to it.
+ */
+public class RclJavaContext implements TransportContext {
+
+	private static LogSeldom LOG = RosJavaDi.getLog();
+
+	private final long contextHandle;
+	private final ArrayList<ComposableNode> nodes = new ArrayList<>();
+	private Executor executor;
+
+	public RclJavaContext(String[] args) {
+		contextHandle = RCLJava.rclJavaInit(args);
+	}
+
+	public long getHandle() {
+		return contextHandle;
+	}
+
+	@Override
+	public Transport createTransport(String nodeName, String[] args) throws Exception {
+		return new RclJavaTransport(this, false, nodeName, args);
+	}
+
+	synchronized void addNode(ComposableNode node) {
+		nodes.add(node);
+		if (executor != null) {
+			executor.addNode(node);
+		}
+	}
+
+	synchronized void removeNode(ComposableNode node) {
+		nodes.remove(node);
+		if (executor != null) {
+			executor.removeNode(node);
+		}
+	}
+
+	@Override
+	public synchronized void start(int threads) {
+		if (threads > 1) {
+			executor = new MultiThreadedExecutor(threads);
+		} else {
+			executor = new SingleThreadedExecutor();
+		}
+		for (ComposableNode node : nodes) {
+			executor.addNode(node);
+		}
+		for (int i = 0; i < threads; i++) {
+			new Thread(() -> {
+				while (RCLJava.ok(contextHandle)) {
+					try {
+						executor.spinOnce();
+					} catch (Throwable t) {
+						LOG.error("Exception in executor.spinOnce()", t);
+					}
+				}
+			}, "rosjavadi-executor-" + i).start();
+		}
+	}
+
+	@Override
+	public synchronized void shutdown() {
+		RCLJava.shutdown(contextHandle);
+
+		if (executor != null) {
+			for (ComposableNode node : nodes) {
+				executor.removeNode(node);
+			}
+		}
+		nodes.clear();
+	}
+
+}
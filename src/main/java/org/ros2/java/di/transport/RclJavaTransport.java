@@ -0,0 +1,165 @@
+package org.ros2.java.di.transport;
+
+import java.util.List;
+
+import org.ros2.rcljava.consumers.Consumer;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.node.BaseComposableNode;
+import org.ros2.rcljava.node.Node;
+import org.ros2.rcljava.parameters.ParameterCallback;
+import org.ros2.rcljava.parameters.ParameterVariant;
+import org.ros2.rcljava.parameters.client.AsyncParametersClientImpl;
+import org.ros2.rcljava.parameters.service.ParameterServiceImpl;
+import org.ros2.rcljava.publisher.Publisher;
+
+import rcl_interfaces.msg.SetParametersResult;
+
+/**
+ * Transport using rcljava and the native ROS 2 stack.
+ */
+public class RclJavaTransport implements Transport {
+
+	private RclJavaContext context;
+	private boolean ownsContext;
+	private BaseComposableNode composablenode;
+	private Node node;
+	@SuppressWarnings("unused")
+	private ParameterServiceImpl parametersService;
+	@SuppressWarnings("unused")
+	private AsyncParametersClientImpl asyncParametersClient;
+
+	/**
+	 * Creates node in its own rcljava context.
+	 */
+	public RclJavaTransport(String name, String[] args) throws Exception {
+		this(new RclJavaContext(args), true, name, args);
+	}
+
+	RclJavaTransport(RclJavaContext context, boolean ownsContext, String name, String[] args) throws Exception {
+		this.context = context;
+		this.ownsContext = ownsContext;
+		composablenode = new BaseComposableNode(name, args, true, context.getHandle());
+		node = composablenode.getNode();
+		parametersService = new ParameterServiceImpl(node);
+		asyncParametersClient = new AsyncParametersClientImpl(node, context.getHandle());
+	}
+
+	/**
+	 * Returns the rcljava node, for features not covered by the transport.
+	 */
+	public Node getNode() {
+		return node;
+	}
+
+	@Override
+	public String getNodeName() {
+		return node.getName();
+	}
+
+	@Override
+	public <T extends MessageDefinition> Publisher<T> createPublisher(Class<T> topicType, String topicName) {
+		return node.createPublisher(topicType, topicName);
+	}
+
+	/**
+	 * The rcljava node creates publishers with default QoS only, so the
+	 * publisher is not latched.
+	 */
+	@Override
+	public <T extends MessageDefinition> Publisher<T> createLatchedPublisher(Class<T> topicType,
+			String topicName) {
+		return node.createPublisher(topicType, topicName);
+	}
+
+	@Override
+	public boolean supportsLatching() {
+		return false;
+	}
+
+	/**
+	 * Not supported, rcljava subscriptions cannot skip messages of their own
+	 * node.
+	 */
+	@Override
+	public <T extends MessageDefinition> Publisher<T> createIntraProcessPublisher(Class<T> topicType,
+			String topicName, boolean latched) {
+		throw new UnsupportedOperationException("rcljava subscriptions cannot ignore local publications");
+	}
+
+	@Override
+	public <T extends MessageDefinition> void createSubscription(Class<T> topicType, String topicName,
+			Consumer<T> callback, boolean ignoreLocalPublications) {
+		if (ignoreLocalPublications) {
+			throw new UnsupportedOperationException("rcljava subscriptions cannot ignore local publications");
+		}
+		node.createSubscription(topicType, topicName, callback);
+	}
+
+	@Override
+	public boolean canIgnoreLocalPublications() {
+		return false;
+	}
+
+	/**
+	 * The rcljava node does not expose the ROS graph, so messages are always
+	 * published.
+	 */
+	@Override
+	public int getRemoteSubscriptionCount(String topicName) {
+		return -1;
+	}
+
+	@Override
+	public List<ParameterVariant> getParameters(List<String> names) {
+		return node.getParameters(names);
+	}
+
+	@Override
+	public void setParameters(List<ParameterVariant> parameters) {
+		node.setParameters(parameters);
+	}
+
+	@Override
+	public void setParameterListener(ParameterListener listener) {
+		node.setParameterChangeCallback(new ParameterCallback() {
+			@Override
+			public SetParametersResult onParamChange(List<ParameterVariant> parameters) {
+				SetParametersResult result = new SetParametersResult();
+				result.setSuccessful(listener.onParametersChanged(parameters));
+				return result;
+			}
+		});
+	}
+
+	@Override
+	public boolean supportsRosout() {
+		return true;
+	}
+
+	@Override
+	public boolean copiesPublishedMessages() {
+		return true;
+	}
+
+	/**
+	 * Adds the node to the executor of the context. A shared context is
+	 * started by its container, ignoring the number of threads given here.
+	 */
+	@Override
+	public void start(int threads) {
+		context.addNode(composablenode);
+		if (ownsContext) {
+			context.start(threads);
+		}
+	}
+
+	@Override
+	public void shutdown() {
+		if (ownsContext) {
+			context.shutdown();
+		} else {
+			context.removeNode(composablenode);
+		}
+	}
+
+}
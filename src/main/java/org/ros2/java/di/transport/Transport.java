@@ -0,0 +1,87 @@
+package org.ros2.java.di.transport;
+
+import java.util.List;
+
+import org.ros2.rcljava.consumers.Consumer;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.parameters.ParameterVariant;
+import org.ros2.rcljava.publisher.Publisher;
+
+/**
+ * Connects a RosJavaDi node to the outside world: topics, parameters and the
+ * threads delivering messages. {@link RclJavaTransport} uses the native ROS 2
+ * stack, {@link LoopbackTransport} keeps everything in memory.
+ */
+public interface Transport {
+
+	String getNodeName();
+
+	<T extends MessageDefinition> Publisher<T> createPublisher(Class<T> topicType, String topicName);
+
+	/**
+	 * Creates publisher whose last message is also delivered to subscriptions
+	 * created later, like transient-local durability, or a plain publisher
+	 * when the transport does not {@link #supportsLatching()}.
+	 */
+	<T extends MessageDefinition> Publisher<T> createLatchedPublisher(Class<T> topicType, String topicName);
+
+	boolean supportsLatching();
+
+	/**
+	 * Creates publisher for an intra-process publisher, which delivers its
+	 * messages to the subscribers of the same node itself. Only called if
+	 * {@link #canIgnoreLocalPublications()}.
+	 */
+	<T extends MessageDefinition> Publisher<T> createIntraProcessPublisher(Class<T> topicType, String topicName,
+			boolean latched);
+
+	/**
+	 * Subscribes to the topic. The callback is called on the threads started
+	 * by {@link #start(int)}. Messages of intra-process publishers of this
+	 * transport are skipped when asked to ignore local publications, which is
+	 * only allowed if {@link #canIgnoreLocalPublications()}. Messages of its
+	 * other publishers are always delivered.
+	 */
+	<T extends MessageDefinition> void createSubscription(Class<T> topicType, String topicName,
+			Consumer<T> callback, boolean ignoreLocalPublications);
+
+	boolean canIgnoreLocalPublications();
+
+	/**
+	 * Returns number of subscriptions to the topic that do not belong to this
+	 * transport, or -1 when the transport cannot tell.
+	 */
+	int getRemoteSubscriptionCount(String topicName);
+
+	/**
+	 * Returns values of the parameters that are set, skipping the others.
+	 */
+	List<ParameterVariant> getParameters(List<String> names);
+
+	void setParameters(List<ParameterVariant> parameters);
+
+	/**
+	 * Sets listener called when parameters are changed from outside.
+	 */
+	void setParameterListener(ParameterListener listener);
+
+	/**
+	 * Tells if ROS messages such as the /rosout log can be created, which
+	 * needs the native type support.
+	 */
+	boolean supportsRosout();
+
+	/**
+	 * Tells if publishing serializes or copies the message before returning,
+	 * so the publisher may reuse the message right away.
+	 */
+	boolean copiesPublishedMessages();
+
+	/**
+	 * Starts delivering messages using the given number of threads.
+	 */
+	void start(int threads);
+
+	void shutdown();
+
+}
@@ -0,0 +1,20 @@
+package org.ros2.java.di.transport;
+
+/**
+ * Shared by the transports of nodes composed in one process, see
+ * {@link org.ros2.java.di.RosJavaDiContainer}. The context owns the threads
+ * delivering messages to all its transports.
+ */
+public interface TransportContext {
+
+	Transport createTransport(String nodeName, String[] args) throws Exception;
+
+	/**
+	 * Starts delivering messages of all transports using the given number of
+	 * threads, called after the nodes are started.
+	 */
+	void start(int threads);
+
+	void shutdown();
+
+}
@@ -0,0 +1,75 @@
+package org.ros2.java.di;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros2.java.di.internal.CallerLocator;
+
+public class AsyncLoggingTest {
+
+	private static LogSeldom LOG = RosJavaDi.getLog();
+
+	private final List<LogRecord> records = Collections.synchronizedList(new ArrayList<LogRecord>());
+	private final Handler handler = new Handler() {
+		@Override
+		public void publish(LogRecord record) {
+			records.add(record);
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	};
+	private Logger logger;
+
+	@Before
+	public void setUp() {
+		logger = Logger.getLogger(AsyncLoggingTest.class.getName());
+		logger.addHandler(handler);
+	}
+
+	@After
+	public void tearDown() {
+		RosJavaDi.setAsyncLogging(false);
+		logger.removeHandler(handler);
+	}
+
+	@Test
+	public void writesCallerFoundOnLoggingThread() {
+		RosJavaDi.setAsyncLogging(true);
+		LOG.info("plain");
+		LOG.infoSeldom("seldom");
+		// writes out the buffered events
+		RosJavaDi.setAsyncLogging(false);
+		assertEquals(2, records.size());
+		String method = CallerLocator.canWalk() ? "writesCallerFoundOnLoggingThread" : "unknown";
+		assertEquals(method, records.get(0).getSourceMethodName());
+		assertEquals("plain", records.get(0).getMessage());
+		assertEquals("writesCallerFoundOnLoggingThread", records.get(1).getSourceMethodName());
+		assertEquals(AsyncLoggingTest.class.getName(), records.get(1).getSourceClassName());
+	}
+
+	@Test
+	public void suppressesSeldomMessagesBeforeQueueing() {
+		LOG.setSeldomRate(60000, 1);
+		RosJavaDi.setAsyncLogging(true);
+		for (int i = 0; i < 100; i++) {
+			LOG.warnSeldom("repeated");
+		}
+		RosJavaDi.setAsyncLogging(false);
+		assertEquals(1, records.size());
+	}
+}
@@ -0,0 +1,73 @@
+package org.ros2.java.di;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.ros2.java.di.annotations.Subscribe;
+
+public class BatchSubscriberTest extends LoopbackSubscriberTest {
+
+	/**
+	 * Waits up to a minute for full batches of four messages.
+	 */
+	public static class ListListener extends Listener {
+
+		public final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+
+		@Subscribe(value = "samples", queueLength = 16, batchSize = 4, batchLinger = 60000)
+		public void onSamples(List<Sample> samples) throws InterruptedException {
+			batchSizes.add(samples.size());
+			for (Sample sample : samples) {
+				receive(sample.value);
+			}
+		}
+	}
+
+	public static class ArrayListener extends Listener {
+
+		public final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<Integer>());
+
+		@Subscribe(value = "samples", queueLength = 16, batchSize = 4, batchLinger = 60000)
+		public void onSamples(Sample[] samples) throws InterruptedException {
+			batchSizes.add(samples.length);
+			for (Sample sample : samples) {
+				receive(sample.value);
+			}
+		}
+	}
+
+	@Test
+	public void passesFullBatchesAsList() throws Exception {
+		ListListener listener = rosJavaDi.create(ListListener.class);
+		publish(listener, 8);
+		assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7), listener.received);
+		assertEquals(Arrays.asList(4, 4), listener.batchSizes);
+	}
+
+	@Test
+	public void passesFullBatchesAsArray() throws Exception {
+		ArrayListener listener = rosJavaDi.create(ArrayListener.class);
+		publish(listener, 8);
+		assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7), listener.received);
+		assertEquals(Arrays.asList(4, 4), listener.batchSizes);
+	}
+
+	/**
+	 * Publishes the given number of values to the released listener and
+	 * waits until it handled them.
+	 */
+	private void publish(Listener listener, int count) throws Exception {
+		listener.released.countDown();
+		talker = rosJavaDi.create(Talker.class);
+		rosJavaDi.start();
+		for (int i = 0; i < count; i++) {
+			talker.publish(i);
+		}
+		listener.awaitHandled(count);
+	}
+}
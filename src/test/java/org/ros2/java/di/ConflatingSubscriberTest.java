@@ -0,0 +1,44 @@
+package org.ros2.java.di;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.ros2.java.di.annotations.Subscribe;
+
+public class ConflatingSubscriberTest extends LoopbackSubscriberTest {
+
+	public static class ConflateListener extends Listener {
+
+		@Subscribe(value = "samples", conflate = true)
+		public void onSample(Sample sample) throws InterruptedException {
+			receive(sample.value);
+		}
+	}
+
+	@Test
+	public void handlesFreshestMessage() throws Exception {
+		ConflateListener listener = start(ConflateListener.class);
+		for (int i = 1; i <= 5; i++) {
+			talker.publish(i);
+		}
+		awaitCount(4, () -> metrics().getSkippedMessages());
+		listener.released.countDown();
+		listener.awaitHandled(2);
+		assertEquals(Arrays.asList(0, 5), listener.received);
+	}
+
+	@Test
+	public void handlesEveryMessageOfIdleSubscriber() throws Exception {
+		ConflateListener listener = start(ConflateListener.class);
+		listener.released.countDown();
+		listener.awaitHandled(1);
+		talker.publish(1);
+		listener.awaitHandled(2);
+		talker.publish(2);
+		listener.awaitHandled(3);
+		assertEquals(Arrays.asList(0, 1, 2), listener.received);
+		assertEquals(0, metrics().getSkippedMessages());
+	}
+}
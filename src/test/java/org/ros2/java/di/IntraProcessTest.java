@@ -0,0 +1,81 @@
+package org.ros2.java.di;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.ros2.java.di.annotations.IntraProcess;
+import org.ros2.java.di.annotations.Publish;
+import org.ros2.java.di.annotations.Subscribe;
+import org.ros2.rcljava.publisher.Publisher;
+
+/**
+ * Checks that a subscriber gets the messages of intra-process and plain
+ * publishers of its node on the same topic.
+ */
+public class IntraProcessTest extends LoopbackSubscriberTest {
+
+	public static class SharedTalker {
+
+		@Publish(value = "samples", intraProcess = IntraProcess.SHARED)
+		public Publisher<Sample> publisher;
+	}
+
+	public static class LatchedTalker {
+
+		@Publish(value = "samples", latched = true)
+		public Publisher<Sample> publisher;
+	}
+
+	public static class SampleListener extends Listener {
+
+		public volatile Sample last;
+
+		@Subscribe(value = "samples", queueLength = 0)
+		public void onSample(Sample sample) throws InterruptedException {
+			last = sample;
+			receive(sample.value);
+		}
+	}
+
+	@Test
+	public void deliversMessagesOfSharedAndPlainPublishers() throws Exception {
+		SharedTalker shared = rosJavaDi.create(SharedTalker.class);
+		SampleListener listener = start(SampleListener.class);
+		listener.released.countDown();
+		listener.awaitHandled(1);
+
+		Sample sample = sample(1);
+		shared.publisher.publish(sample);
+		listener.awaitHandled(2);
+		assertSame(sample, listener.last);
+		talker.publish(2);
+		listener.awaitHandled(3);
+		assertEquals(Arrays.asList(0, 1, 2), listener.received);
+	}
+
+	@Test
+	public void deliversMessagesOfLatchedAndCreatedPublishers() throws Exception {
+		rosJavaDi.create(SharedTalker.class);
+		LatchedTalker latched = rosJavaDi.create(LatchedTalker.class);
+		SampleListener listener = start(SampleListener.class);
+		listener.released.countDown();
+		listener.awaitHandled(1);
+
+		latched.publisher.publish(sample(1));
+		listener.awaitHandled(2);
+		rosJavaDi.<Sample> createPublisher("/samples", Sample.class).publish(sample(2));
+		listener.awaitHandled(3);
+		Collections.sort(listener.received);
+		assertEquals(Arrays.asList(0, 1, 2), listener.received);
+	}
+
+	private static Sample sample(int value) {
+		Sample sample = new Sample();
+		sample.value = value;
+		return sample;
+	}
+}
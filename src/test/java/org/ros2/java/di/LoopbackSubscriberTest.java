@@ -0,0 +1,118 @@
+package org.ros2.java.di;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.ros2.java.di.annotations.Publish;
+import org.ros2.java.di.transport.LoopbackBus;
+import org.ros2.java.di.transport.LoopbackTransport;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.publisher.Publisher;
+
+/**
+ * Runs subscribers of one node over the loopback transport. Listeners hold
+ * their handler on the first message until released, so that the following
+ * ones meet a busy subscriber.
+ */
+public abstract class LoopbackSubscriberTest {
+
+	public static class Sample implements MessageDefinition {
+		public int value;
+	}
+
+	public static class Talker {
+
+		@Publish("samples")
+		public Publisher<Sample> publisher;
+
+		void publish(int value) {
+			Sample sample = new Sample();
+			sample.value = value;
+			publisher.publish(sample);
+		}
+	}
+
+	/**
+	 * Records received values, the first call waits until released.
+	 */
+	public abstract static class Listener {
+
+		public final List<Integer> received = Collections.synchronizedList(new ArrayList<Integer>());
+		public final CountDownLatch entered = new CountDownLatch(1);
+		public final CountDownLatch released = new CountDownLatch(1);
+		private final Semaphore handled = new Semaphore(0);
+
+		void receive(int value) throws InterruptedException {
+			entered.countDown();
+			released.await();
+			received.add(value);
+			handled.release();
+		}
+
+		/**
+		 * Waits until the given number of messages were handled in total.
+		 */
+		public void awaitHandled(int count) throws InterruptedException {
+			assertTrue("Handled " + received.size() + " of " + count + " messages",
+					handled.tryAcquire(count, 5, TimeUnit.SECONDS));
+			handled.release(count);
+		}
+	}
+
+	protected RosJavaDi rosJavaDi;
+	protected Talker talker;
+
+	@Before
+	public void setUp() throws Exception {
+		rosJavaDi = new RosJavaDi("subscribers", new String[0],
+				new LoopbackTransport(new LoopbackBus(), "subscribers", LoopbackTransport.DEFAULT_QUEUE_DEPTH));
+	}
+
+	@After
+	public void tearDown() {
+		rosJavaDi.shutdown();
+	}
+
+	/**
+	 * Creates a talker and the listener, starts the node and publishes the
+	 * value 0, returning once the listener holds it.
+	 */
+	protected <T extends Listener> T start(Class<T> listenerClass) throws Exception {
+		talker = rosJavaDi.create(Talker.class);
+		T listener = rosJavaDi.create(listenerClass);
+		rosJavaDi.start();
+		talker.publish(0);
+		assertTrue(listener.entered.await(5, TimeUnit.SECONDS));
+		return listener;
+	}
+
+	protected CallbackMetrics metrics() {
+		for (CallbackMetrics metrics : rosJavaDi.getCallbackMetrics()) {
+			if (metrics.getKind() == CallbackMetrics.Kind.SUBSCRIBER) {
+				return metrics;
+			}
+		}
+		throw new AssertionError("No subscriber metrics");
+	}
+
+	/**
+	 * Waits until the counter reaches the expected value.
+	 */
+	protected static void awaitCount(long expected, LongSupplier counter) throws InterruptedException {
+		long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (counter.getAsLong() < expected && System.nanoTime() < end) {
+			Thread.sleep(1);
+		}
+		assertEquals(expected, counter.getAsLong());
+	}
+}
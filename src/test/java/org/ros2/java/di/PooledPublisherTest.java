@@ -0,0 +1,79 @@
+package org.ros2.java.di;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros2.java.di.transport.LoopbackBus;
+import org.ros2.java.di.transport.LoopbackTransport;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.publisher.Publisher;
+
+public class PooledPublisherTest {
+
+	public static class Sample implements MessageDefinition {
+	}
+
+	private LoopbackTransport transport;
+	private Publisher<Sample> publisher;
+
+	@Before
+	public void setUp() {
+		transport = new LoopbackTransport(new LoopbackBus(), "pool", LoopbackTransport.DEFAULT_QUEUE_DEPTH);
+		publisher = transport.createPublisher(Sample.class, "samples");
+	}
+
+	@After
+	public void tearDown() {
+		transport.shutdown();
+	}
+
+	@Test
+	public void reusesPublishedMessages() {
+		PooledPublisher<Sample> pool = new PooledPublisher<>(publisher, Sample.class, 2, true);
+		Sample first = pool.borrow();
+		pool.publish(first);
+		assertSame(first, pool.borrow());
+		assertEquals(1, pool.getAllocatedMessages());
+		assertEquals(1, pool.getRecycledMessages());
+		assertEquals(1, pool.getPublishedMessages());
+	}
+
+	@Test
+	public void allocatesWhenPoolIsEmpty() {
+		PooledPublisher<Sample> pool = new PooledPublisher<>(publisher, Sample.class, 2, true);
+		Sample first = pool.borrow();
+		Sample second = pool.borrow();
+		assertNotSame(first, second);
+		assertEquals(2, pool.getAllocatedMessages());
+	}
+
+	@Test
+	public void discardsMessagesBeyondPoolSize() {
+		PooledPublisher<Sample> pool = new PooledPublisher<>(publisher, Sample.class, 1, true);
+		Sample first = pool.borrow();
+		Sample second = pool.borrow();
+		pool.release(first);
+		pool.release(second);
+		assertEquals(1, pool.getDiscardedMessages());
+		assertSame(first, pool.borrow());
+	}
+
+	@Test
+	public void allocatesEveryMessageWithoutRecycling() {
+		PooledPublisher<Sample> pool = new PooledPublisher<>(publisher, Sample.class, 2, false);
+		Sample first = pool.borrow();
+		pool.publish(first);
+		assertNotSame(first, pool.borrow());
+		assertEquals(2, pool.getAllocatedMessages());
+		assertEquals(0, pool.getRecycledMessages());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsZeroPoolSize() {
+		new PooledPublisher<>(publisher, Sample.class, 0, true);
+	}
+}
@@ -0,0 +1,125 @@
+package org.ros2.java.di;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros2.java.di.annotations.Repeat;
+import org.ros2.java.di.transport.LoopbackBus;
+import org.ros2.java.di.transport.LoopbackTransport;
+
+/**
+ * Checks that repeaters follow a simulated clock jumping by hours.
+ */
+public class SimulatedClockTest {
+
+	private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+	private static final long HOURS = TimeUnit.HOURS.toNanos(3);
+
+	public abstract static class Ticker {
+
+		public final AtomicInteger calls = new AtomicInteger();
+	}
+
+	public static class PooledTicker extends Ticker {
+
+		@Repeat(interval = 100)
+		public void tick() {
+			calls.incrementAndGet();
+		}
+	}
+
+	public static class DedicatedTicker extends Ticker {
+
+		@Repeat(interval = 100, dedicatedThread = true)
+		public void tick() {
+			calls.incrementAndGet();
+		}
+	}
+
+	private SimulatedClock clock;
+	private RosJavaDi rosJavaDi;
+
+	@Before
+	public void setUp() throws Exception {
+		clock = new SimulatedClock();
+		rosJavaDi = new RosJavaDi("clock", new String[0],
+				new LoopbackTransport(new LoopbackBus(), "clock", LoopbackTransport.DEFAULT_QUEUE_DEPTH));
+		rosJavaDi.useSimulatedClock(clock);
+	}
+
+	@After
+	public void tearDown() {
+		rosJavaDi.shutdown();
+	}
+
+	@Test
+	public void pooledRepeaterSkipsMissedCallsWhenClockJumpsAhead() throws Exception {
+		jumpAhead(rosJavaDi.create(PooledTicker.class));
+	}
+
+	@Test
+	public void dedicatedRepeaterSkipsMissedCallsWhenClockJumpsAhead() throws Exception {
+		jumpAhead(rosJavaDi.create(DedicatedTicker.class));
+	}
+
+	@Test
+	public void pooledRepeaterKeepsRunningWhenClockJumpsBack() throws Exception {
+		jumpBack(rosJavaDi.create(PooledTicker.class));
+	}
+
+	@Test
+	public void dedicatedRepeaterKeepsRunningWhenClockJumpsBack() throws Exception {
+		jumpBack(rosJavaDi.create(DedicatedTicker.class));
+	}
+
+	private void jumpAhead(Ticker ticker) throws Exception {
+		rosJavaDi.start();
+		awaitCalls(ticker, 1);
+		clock.advance(HOURS);
+		// one call right away in place of the missed ones, and the one due at the jump
+		awaitCalls(ticker, 2);
+		Thread.sleep(50);
+		int calls = ticker.calls.get();
+		assertTrue("Called " + calls + " times", calls <= 3);
+		assertEquals(1, metrics().getOverruns());
+		clock.advance(INTERVAL);
+		awaitCalls(ticker, calls + 1);
+	}
+
+	private void jumpBack(Ticker ticker) throws Exception {
+		clock.setTime(2 * HOURS);
+		rosJavaDi.start();
+		awaitCalls(ticker, 1);
+		clock.advance(INTERVAL);
+		awaitCalls(ticker, 2);
+		clock.setTime(HOURS);
+		clock.advance(INTERVAL);
+		awaitCalls(ticker, 3);
+		clock.advance(INTERVAL);
+		awaitCalls(ticker, 4);
+		assertEquals(0, metrics().getOverruns());
+	}
+
+	private static void awaitCalls(Ticker ticker, int count) throws InterruptedException {
+		long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (ticker.calls.get() < count && System.nanoTime() < end) {
+			Thread.sleep(1);
+		}
+		assertTrue("Called " + ticker.calls.get() + " times", ticker.calls.get() >= count);
+	}
+
+	private CallbackMetrics metrics() {
+		for (CallbackMetrics metrics : rosJavaDi.getCallbackMetrics()) {
+			if (metrics.getKind() == CallbackMetrics.Kind.REPEATER) {
+				return metrics;
+			}
+		}
+		throw new AssertionError("No repeater metrics");
+	}
+}
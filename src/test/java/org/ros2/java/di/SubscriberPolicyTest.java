@@ -0,0 +1,75 @@
+package org.ros2.java.di;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.ros2.java.di.annotations.OverflowPolicy;
+import org.ros2.java.di.annotations.Subscribe;
+
+/**
+ * Checks the overflow policies of a subscriber queue of two messages.
+ */
+public class SubscriberPolicyTest extends LoopbackSubscriberTest {
+
+	public static class DropOldestListener extends Listener {
+
+		@Subscribe(value = "samples", queueLength = 2, overflow = OverflowPolicy.DROP_OLDEST)
+		public void onSample(Sample sample) throws InterruptedException {
+			receive(sample.value);
+		}
+	}
+
+	public static class DropNewestListener extends Listener {
+
+		@Subscribe(value = "samples", queueLength = 2, overflow = OverflowPolicy.DROP_NEWEST)
+		public void onSample(Sample sample) throws InterruptedException {
+			receive(sample.value);
+		}
+	}
+
+	public static class BlockListener extends Listener {
+
+		@Subscribe(value = "samples", queueLength = 2, overflow = OverflowPolicy.BLOCK)
+		public void onSample(Sample sample) throws InterruptedException {
+			receive(sample.value);
+		}
+	}
+
+	@Test
+	public void dropOldestKeepsNewestMessages() throws Exception {
+		DropOldestListener listener = start(DropOldestListener.class);
+		publishWhileBusy(5);
+		awaitCount(3, () -> metrics().getDroppedMessages());
+		listener.released.countDown();
+		listener.awaitHandled(3);
+		assertEquals(Arrays.asList(0, 4, 5), listener.received);
+	}
+
+	@Test
+	public void dropNewestKeepsOldestMessages() throws Exception {
+		DropNewestListener listener = start(DropNewestListener.class);
+		publishWhileBusy(5);
+		awaitCount(3, () -> metrics().getDroppedMessages());
+		listener.released.countDown();
+		listener.awaitHandled(3);
+		assertEquals(Arrays.asList(0, 1, 2), listener.received);
+	}
+
+	@Test
+	public void blockKeepsAllMessages() throws Exception {
+		BlockListener listener = start(BlockListener.class);
+		publishWhileBusy(5);
+		listener.released.countDown();
+		listener.awaitHandled(6);
+		assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5), listener.received);
+		assertEquals(0, metrics().getDroppedMessages());
+	}
+
+	private void publishWhileBusy(int count) {
+		for (int i = 1; i <= count; i++) {
+			talker.publish(i);
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package org.ros2.java.di.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.ros2.java.di.annotations.CallbackGroupType;
+
+public class CallbackGroupLockTest {
+
+	private final CallbackGroupLock first = new CallbackGroupLock("first", CallbackGroupType.MUTUALLY_EXCLUSIVE);
+	private final CallbackGroupLock second = new CallbackGroupLock("second", CallbackGroupType.MUTUALLY_EXCLUSIVE);
+
+	@Test
+	public void nestedOnlyInsideAnotherGroup() {
+		assertFalse(second.isNested());
+		first.enter();
+		try {
+			assertTrue(second.isNested());
+			assertFalse(first.isNested());
+		} finally {
+			first.exit();
+		}
+		assertFalse(second.isNested());
+	}
+
+	@Test
+	public void reentrantGroupIsNeverNested() {
+		CallbackGroupLock reentrant = new CallbackGroupLock("reentrant", CallbackGroupType.REENTRANT);
+		first.enter();
+		try {
+			assertFalse(reentrant.isNested());
+		} finally {
+			first.exit();
+		}
+	}
+
+	@Test
+	public void deferredCallbackRunsAtOnceWhenGroupIsFree() {
+		final List<String> calls = new ArrayList<>();
+		first.enter();
+		try {
+			second.defer(new Runnable() {
+				@Override
+				public void run() {
+					calls.add("deferred");
+				}
+			});
+			calls.add("after");
+		} finally {
+			first.exit();
+		}
+		assertEquals(Arrays.asList("deferred", "after"), calls);
+	}
+
+	@Test
+	public void deferredCallbacksRunInOrderWhenHolderExits() throws InterruptedException {
+		final List<Integer> calls = new ArrayList<>();
+		final CountDownLatch held = new CountDownLatch(1);
+		final CountDownLatch deferred = new CountDownLatch(1);
+		Thread holder = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				second.enter();
+				try {
+					held.countDown();
+					deferred.await();
+					calls.add(0);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					second.exit();
+				}
+			}
+		});
+		holder.start();
+		assertTrue(held.await(5, TimeUnit.SECONDS));
+		first.enter();
+		try {
+			for (int i = 1; i <= 3; i++) {
+				final int value = i;
+				second.defer(new Runnable() {
+					@Override
+					public void run() {
+						calls.add(value);
+					}
+				});
+			}
+		} finally {
+			first.exit();
+		}
+		deferred.countDown();
+		holder.join(5000);
+		assertEquals(Arrays.asList(0, 1, 2, 3), calls);
+	}
+}
@@ -0,0 +1,133 @@
+package org.ros2.java.di.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.ros2.java.di.RosJavaDi;
+import org.ros2.java.di.exceptions.CreationException;
+
+public class InitializerGraphTest {
+
+	public static class Camera {
+	}
+
+	public static class Detector {
+	}
+
+	public static class Planner {
+	}
+
+	public static class Helper {
+	}
+
+	private final List<Object> called = Collections.synchronizedList(new ArrayList<Object>());
+	private final InitializerGraph graph = new InitializerGraph(RosJavaDi.getLog());
+
+	@Test
+	public void initializesDependenciesFirst() throws Exception {
+		Camera camera = new Camera();
+		Detector detector = new Detector();
+		Planner planner = new Planner();
+		graph.addDependency(planner, detector);
+		graph.addDependency(detector, camera);
+		graph.resolve(Arrays.asList(initializer(planner), initializer(detector), initializer(camera)));
+		graph.run(1);
+		assertEquals(Arrays.<Object>asList(camera, detector, planner), called);
+	}
+
+	@Test
+	public void keepsGivenOrderOfIndependentComponents() throws Exception {
+		Camera camera = new Camera();
+		Detector detector = new Detector();
+		graph.resolve(Arrays.asList(initializer(detector), initializer(camera)));
+		graph.run(1);
+		assertEquals(Arrays.<Object>asList(detector, camera), called);
+	}
+
+	@Test
+	public void followsDependenciesThroughComponentsWithoutInitializers() throws Exception {
+		Camera camera = new Camera();
+		Helper helper = new Helper();
+		Planner planner = new Planner();
+		graph.addDependency(planner, helper);
+		graph.addDependency(helper, camera);
+		graph.resolve(Arrays.asList(initializer(planner), initializer(camera)));
+		graph.run(1);
+		assertEquals(Arrays.<Object>asList(camera, planner), called);
+	}
+
+	@Test
+	public void initializesDependenciesFirstInParallel() throws Exception {
+		Camera camera = new Camera();
+		Detector detector = new Detector();
+		Planner planner = new Planner();
+		graph.addDependency(planner, detector);
+		graph.addDependency(planner, camera);
+		graph.resolve(Arrays.asList(initializer(planner), initializer(detector), initializer(camera)));
+		graph.run(4);
+		assertEquals(3, called.size());
+		assertEquals(planner, called.get(2));
+	}
+
+	@Test
+	public void componentsMayInjectEachOtherWithoutInitializers() throws Exception {
+		Camera camera = new Camera();
+		Helper helper = new Helper();
+		graph.addDependency(camera, helper);
+		graph.addDependency(helper, camera);
+		graph.resolve(Arrays.asList(initializer(camera)));
+		graph.run(1);
+		assertEquals(Arrays.<Object>asList(camera), called);
+	}
+
+	@Test
+	public void reportsCycleOfComponentsWithInitializers() {
+		Camera camera = new Camera();
+		Detector detector = new Detector();
+		Helper helper = new Helper();
+		graph.addDependency(camera, detector);
+		graph.addDependency(detector, helper);
+		graph.addDependency(helper, camera);
+		try {
+			graph.resolve(Arrays.asList(initializer(camera), initializer(detector)));
+			fail("Cycle not detected");
+		} catch (CreationException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains(
+					Camera.class.getName() + " -> " + Detector.class.getName() + " -> " + Camera.class.getName()));
+		}
+	}
+
+	@Test
+	public void initializerExceptionDoesNotStopOthers() throws Exception {
+		final Camera camera = new Camera();
+		Detector detector = new Detector();
+		graph.addDependency(detector, camera);
+		Initializer failing = new Initializer(camera, "failing", null, new MethodInvoker() {
+			@Override
+			public Object invoke() throws Throwable {
+				throw new IllegalStateException("expected by the test");
+			}
+		});
+		graph.resolve(Arrays.asList(failing, initializer(detector)));
+		graph.run(1);
+		assertEquals(Arrays.<Object>asList(detector), called);
+		assertEquals(1, failing.metrics.getFailures());
+	}
+
+	private Initializer initializer(final Object object) {
+		return new Initializer(object, object.getClass().getSimpleName(), null, new MethodInvoker() {
+			@Override
+			public Object invoke() throws Throwable {
+				called.add(object);
+				return null;
+			}
+		});
+	}
+}
@@ -0,0 +1,107 @@
+package org.ros2.java.di.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+
+import org.junit.Test;
+
+/**
+ * Checks that invokers call public and private handlers, with or without a
+ * result, through lambdas when the Java version allows it.
+ */
+public class InvokersTest {
+
+	public static class Handler {
+
+		public int calls;
+		public Object message;
+
+		public void onMessage(String message) {
+			this.message = message;
+		}
+
+		@SuppressWarnings("unused")
+		private void onPrivateMessage(String message) {
+			this.message = message;
+		}
+
+		public void tick() {
+			calls++;
+		}
+
+		@SuppressWarnings("unused")
+		private void privateTick() {
+			calls++;
+		}
+
+		public boolean tickWithResult() {
+			calls++;
+			return true;
+		}
+
+		@SuppressWarnings("unused")
+		private Integer privateTickWithResult() {
+			return ++calls;
+		}
+	}
+
+	private final Handler handler = new Handler();
+
+	@Test
+	public void callsPublicMessageHandler() throws Throwable {
+		MessageInvoker invoker = Invokers.messageInvoker(handler, method("onMessage", String.class));
+		invoker.invoke("hello");
+		assertEquals("hello", handler.message);
+		assertLambda(invoker);
+	}
+
+	@Test
+	public void callsPrivateMessageHandler() throws Throwable {
+		MessageInvoker invoker = Invokers.messageInvoker(handler, method("onPrivateMessage", String.class));
+		invoker.invoke("hello");
+		assertEquals("hello", handler.message);
+		if (hasPrivateLookup()) {
+			assertLambda(invoker);
+		}
+	}
+
+	@Test
+	public void callsVoidMethods() throws Throwable {
+		MethodInvoker invoker = Invokers.methodInvoker(handler, method("tick"));
+		assertNull(invoker.invoke());
+		MethodInvoker privateInvoker = Invokers.methodInvoker(handler, method("privateTick"));
+		assertNull(privateInvoker.invoke());
+		assertEquals(2, handler.calls);
+	}
+
+	@Test
+	public void returnsResults() throws Throwable {
+		MethodInvoker invoker = Invokers.methodInvoker(handler, method("tickWithResult"));
+		assertEquals(Boolean.TRUE, invoker.invoke());
+		assertLambda(invoker);
+		MethodInvoker privateInvoker = Invokers.methodInvoker(handler, method("privateTickWithResult"));
+		assertEquals(2, privateInvoker.invoke());
+		if (hasPrivateLookup()) {
+			assertLambda(privateInvoker);
+		}
+	}
+
+	private static Method method(String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+		return Handler.class.getDeclaredMethod(name, parameterTypes);
+	}
+
+	/**
+	 * Tells if running on Java 9 or newer, where lambdas can call private
+	 * methods.
+	 */
+	private static boolean hasPrivateLookup() {
+		return !System.getProperty("java.specification.version").startsWith("1.");
+	}
+
+	private static void assertLambda(Object invoker) {
+		assertTrue(invoker.getClass().getName(), invoker.getClass().getName().contains("$$Lambda"));
+	}
+}
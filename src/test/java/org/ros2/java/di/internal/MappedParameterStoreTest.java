@@ -0,0 +1,89 @@
+package org.ros2.java.di.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros2.rcljava.parameters.ParameterVariant;
+
+public class MappedParameterStoreTest {
+
+	private Path directory;
+	private Path source;
+	private Path cache;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("parameters");
+		source = directory.resolve("parameters.yaml");
+		cache = directory.resolve("parameters.cache");
+		Files.write(source, "camera:\n  ros__parameters:\n    rate: 30\n".getBytes(StandardCharsets.UTF_8));
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(cache);
+		Files.deleteIfExists(source);
+		Files.deleteIfExists(directory);
+	}
+
+	@Test
+	public void readsWrittenParameters() throws IOException {
+		Map<String, Map<String, ParameterVariant>> sections = new LinkedHashMap<>();
+		Map<String, ParameterVariant> camera = new LinkedHashMap<>();
+		camera.put("rate", new ParameterVariant("rate", 30L));
+		camera.put("exposure", new ParameterVariant("exposure", 0.5));
+		camera.put("enabled", new ParameterVariant("enabled", true));
+		camera.put("frame", new ParameterVariant("frame", "camera_link \u00b0"));
+		sections.put("camera", camera);
+		MappedParameterStore.write(cache, source, sections);
+
+		MappedParameterStore store = MappedParameterStore.open(cache, source);
+		assertEquals(30L, store.get("camera", "rate").asInt());
+		assertEquals(0.5, store.get("camera", "exposure").asDouble(), 0.0);
+		assertEquals(true, store.get("camera", "enabled").asBool());
+		assertEquals("camera_link \u00b0", store.get("camera", "frame").asString());
+		assertNull(store.get("camera", "missing"));
+		assertNull(store.get("lidar", "rate"));
+	}
+
+	@Test
+	public void nodeFallsBackToWildcardSection() throws IOException {
+		Map<String, Map<String, ParameterVariant>> sections = new LinkedHashMap<>();
+		Map<String, ParameterVariant> wildcard = new LinkedHashMap<>();
+		wildcard.put("use_sim_time", new ParameterVariant("use_sim_time", false));
+		wildcard.put("rate", new ParameterVariant("rate", 10L));
+		sections.put(ParameterFile.WILDCARD, wildcard);
+		Map<String, ParameterVariant> camera = new LinkedHashMap<>();
+		camera.put("rate", new ParameterVariant("rate", 30L));
+		sections.put("camera", camera);
+		MappedParameterStore.write(cache, source, sections);
+
+		ParameterStore store = MappedParameterStore.open(cache, source).forNode("/camera");
+		assertEquals(30L, store.get("rate").asInt());
+		assertEquals(false, store.get("use_sim_time").asBool());
+		assertNull(store.get("missing"));
+	}
+
+	@Test
+	public void ignoresCacheOfChangedSource() throws IOException {
+		MappedParameterStore.write(cache, source, new LinkedHashMap<String, Map<String, ParameterVariant>>());
+		Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 1000));
+		assertNull(MappedParameterStore.open(cache, source));
+	}
+
+	@Test
+	public void ignoresMissingCache() {
+		assertNull(MappedParameterStore.open(cache, source));
+	}
+}
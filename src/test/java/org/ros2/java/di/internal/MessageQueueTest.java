@@ -0,0 +1,94 @@
+package org.ros2.java.di.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MessageQueueTest {
+
+	@Test
+	public void pollOfEmptyQueueReturnsNull() {
+		MessageQueue<String> queue = new MessageQueue<>(4);
+		assertNull(queue.poll());
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	public void offerToFullQueueFails() {
+		MessageQueue<String> queue = new MessageQueue<>(2);
+		assertTrue(queue.offer("a"));
+		assertTrue(queue.offer("b"));
+		assertFalse(queue.offer("c"));
+		assertEquals(2, queue.size());
+		assertEquals("a", queue.poll());
+		assertTrue(queue.offer("c"));
+		assertEquals("b", queue.poll());
+		assertEquals("c", queue.poll());
+		assertNull(queue.poll());
+	}
+
+	@Test
+	public void keepsOrderWhenWrappingAround() {
+		MessageQueue<Integer> queue = new MessageQueue<>(3);
+		int next = 0;
+		int expected = 0;
+		for (int round = 0; round < 10; round++) {
+			// leave one item behind so the head and tail cross the end at different times
+			while (queue.offer(next)) {
+				next++;
+			}
+			assertEquals(3, queue.size());
+			for (int i = 0; i < 2; i++) {
+				assertEquals(Integer.valueOf(expected++), queue.poll());
+			}
+		}
+		assertEquals(Integer.valueOf(expected++), queue.poll());
+		assertNull(queue.poll());
+		assertEquals(next, expected);
+	}
+
+	@Test
+	public void returnsStampOfEveryItem() {
+		MessageQueue<String> queue = new MessageQueue<>(2, true);
+		long[] stamp = new long[1];
+		for (int i = 0; i < 5; i++) {
+			assertTrue(queue.offer("item" + i, 100 + i));
+			assertEquals("item" + i, queue.poll(stamp));
+			assertEquals(100 + i, stamp[0]);
+		}
+	}
+
+	@Test
+	public void deliversEveryItemOnceAcrossThreads() throws InterruptedException {
+		final MessageQueue<Integer> queue = new MessageQueue<>(16);
+		final int count = 100000;
+		Thread producer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for (int i = 0; i < count; i++) {
+					while (!queue.offer(i)) {
+						Thread.yield();
+					}
+				}
+			}
+		});
+		producer.start();
+		for (int i = 0; i < count; i++) {
+			Integer item;
+			while ((item = queue.poll()) == null) {
+				Thread.yield();
+			}
+			assertEquals(Integer.valueOf(i), item);
+		}
+		producer.join();
+		assertNull(queue.poll());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsZeroCapacity() {
+		new MessageQueue<String>(0);
+	}
+}
@@ -0,0 +1,120 @@
+package org.ros2.java.di.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.junit.Test;
+import org.ros2.rcljava.parameters.ParameterVariant;
+
+public class ParameterConversionsTest {
+
+	public enum Mode {
+		FAST, PRECISE
+	}
+
+	public static class Gains {
+		public double p;
+		public double i;
+	}
+
+	@Test
+	public void convertsNumbersBetweenParameterTypes() {
+		assertEquals(5, ParameterConversions.converterFor(int.class).fromVariant(new ParameterVariant("p", 5L)));
+		assertEquals(7, ParameterConversions.converterFor(Integer.class).fromVariant(new ParameterVariant("p", "7")));
+		assertEquals(2.0, ParameterConversions.converterFor(double.class).fromVariant(new ParameterVariant("p", 2L)));
+		assertEquals(3L, ParameterConversions.converterFor(long.class).fromVariant(new ParameterVariant("p", 3.0)));
+		assertEquals(1.5f, ParameterConversions.converterFor(float.class).fromVariant(new ParameterVariant("p", 1.5)));
+		assertEquals(true, ParameterConversions.converterFor(boolean.class).fromVariant(new ParameterVariant("p", "true")));
+		assertEquals("4", ParameterConversions.converterFor(String.class).fromVariant(new ParameterVariant("p", 4L)));
+	}
+
+	@Test
+	public void convertsEnumsIgnoringCase() {
+		ParameterConverter converter = ParameterConversions.converterFor(Mode.class);
+		assertEquals(Mode.PRECISE, converter.fromVariant(new ParameterVariant("p", "PRECISE")));
+		assertEquals(Mode.FAST, converter.fromVariant(new ParameterVariant("p", " fast ")));
+		assertEquals("PRECISE", converter.toVariant("p", Mode.PRECISE).asString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsUnknownEnumConstant() {
+		ParameterConversions.converterFor(Mode.class).fromVariant(new ParameterVariant("p", "SLOW"));
+	}
+
+	@Test
+	public void convertsArraysFromYaml() {
+		ParameterConverter converter = ParameterConversions.converterFor(int[].class);
+		assertArrayEquals(new int[] { 1, 2, 3 }, (int[]) converter.fromVariant(new ParameterVariant("p", "[1, 2, 3]")));
+		int[] empty = (int[]) converter.fromVariant(new ParameterVariant("p", ""));
+		assertEquals(0, empty.length);
+		Object[] modes = (Object[]) ParameterConversions.converterFor(Mode[].class)
+				.fromVariant(new ParameterVariant("p", "[fast, PRECISE]"));
+		assertArrayEquals(new Object[] { Mode.FAST, Mode.PRECISE }, modes);
+	}
+
+	@Test
+	public void roundTripsArrays() {
+		ParameterConverter converter = ParameterConversions.converterFor(double[].class);
+		ParameterVariant variant = converter.toVariant("p", new double[] { 0.5, 2.0 });
+		double[] values = (double[]) converter.fromVariant(variant);
+		assertEquals(2, values.length);
+		assertEquals(0.5, values[0], 0.0);
+		assertEquals(2.0, values[1], 0.0);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void convertsCollectionsToFieldType() {
+		ParameterVariant variant = new ParameterVariant("p", "[a, b, a]");
+		List<Object> list = (List<Object>) ParameterConversions.converterFor(List.class).fromVariant(variant);
+		assertEquals(Arrays.asList("a", "b", "a"), list);
+		Set<Object> set = (Set<Object>) ParameterConversions.converterFor(Set.class).fromVariant(variant);
+		assertEquals(new LinkedHashSet<Object>(Arrays.asList("a", "b")), set);
+		Object arrayList = ParameterConversions.converterFor(ArrayList.class).fromVariant(variant);
+		assertSame(ArrayList.class, arrayList.getClass());
+		Object treeMap = ParameterConversions.converterFor(TreeMap.class).fromVariant(new ParameterVariant("p", "{b: 2, a: 1}"));
+		assertSame(TreeMap.class, treeMap.getClass());
+		assertEquals("a", ((TreeMap<Object, Object>) treeMap).firstKey());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void givesEveryFieldItsOwnCopyOfCachedYaml() {
+		ParameterConverter converter = ParameterConversions.converterFor(Map.class);
+		ParameterVariant variant = new ParameterVariant("p", "{a: [1, 2]}");
+		Map<Object, Object> first = (Map<Object, Object>) converter.fromVariant(variant);
+		Map<Object, Object> second = (Map<Object, Object>) converter.fromVariant(variant);
+		assertNotSame(first, second);
+		assertNotSame(first.get("a"), second.get("a"));
+		((List<Object>) first.get("a")).add(3);
+		assertEquals(Arrays.asList(1, 2), second.get("a"));
+	}
+
+	@Test
+	public void convertsBeansFromYaml() {
+		ParameterConverter converter = ParameterConversions.converterFor(Gains.class);
+		Gains gains = (Gains) converter.fromVariant(new ParameterVariant("p", "{p: 1.5, i: 0.25}"));
+		assertEquals(1.5, gains.p, 0.0);
+		assertEquals(0.25, gains.i, 0.0);
+		Gains copy = (Gains) converter.fromVariant(converter.toVariant("p", gains));
+		assertEquals(1.5, copy.p, 0.0);
+	}
+
+	@Test
+	public void leavesUnsupportedFieldsUnchanged() {
+		assertSame(ParameterConversions.UNSUPPORTED,
+				ParameterConversions.converterFor(Runnable.class).fromVariant(new ParameterVariant("p", "x")));
+		assertTrue(ParameterConversions.converterFor(Object.class).toVariant("p", null).asString().isEmpty());
+	}
+}
@@ -0,0 +1,55 @@
+package org.ros2.java.di.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class RateLimitTableTest {
+
+	private static final long PERIOD = 1000;
+
+	@Test
+	public void letsThroughMessagesPerPeriod() {
+		RateLimitTable table = new RateLimitTable(16);
+		assertEquals(0, table.acquire("Foo", 10, 0, PERIOD, 2));
+		assertEquals(0, table.acquire("Foo", 10, 1, PERIOD, 2));
+		assertEquals(-1, table.acquire("Foo", 10, 2, PERIOD, 2));
+		assertEquals(-1, table.acquire("Foo", 10, 3, PERIOD, 2));
+	}
+
+	@Test
+	public void countsSuppressedMessagesOnceRefilled() {
+		RateLimitTable table = new RateLimitTable(16);
+		assertEquals(0, table.acquire("Foo", 10, 0, PERIOD, 1));
+		assertEquals(-1, table.acquire("Foo", 10, 100, PERIOD, 1));
+		assertEquals(-1, table.acquire("Foo", 10, 200, PERIOD, 1));
+		assertEquals(2, table.acquire("Foo", 10, 1000, PERIOD, 1));
+		assertEquals(-1, table.acquire("Foo", 10, 1100, PERIOD, 1));
+	}
+
+	@Test
+	public void limitsEveryLineSeparately() {
+		RateLimitTable table = new RateLimitTable(16);
+		assertEquals(0, table.acquire("Foo", 10, 0, PERIOD, 1));
+		assertEquals(0, table.acquire("Foo", 11, 0, PERIOD, 1));
+		assertEquals(0, table.acquire("Bar", 10, 0, PERIOD, 1));
+		assertEquals(-1, table.acquire("Foo", 10, 0, PERIOD, 1));
+		assertEquals(-1, table.acquire("Bar", 10, 0, PERIOD, 1));
+	}
+
+	@Test
+	public void evictedLineStartsWithFullBucket() {
+		RateLimitTable table = new RateLimitTable(4);
+		assertEquals(0, table.acquire("Foo", 0, 0, PERIOD, 1));
+		// more lines than the table holds push out the first one
+		for (int line = 1; line < 64; line++) {
+			table.acquire("Foo", line, 1 + line, PERIOD, 1);
+		}
+		assertEquals(0, table.acquire("Foo", 0, 100, PERIOD, 1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsCapacityNotPowerOfTwo() {
+		new RateLimitTable(12);
+	}
+}
@@ -0,0 +1,81 @@
+package org.ros2.java.di.internal;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros2.java.di.Clock;
+import org.ros2.java.di.RosJavaDi;
+import org.ros2.java.di.transport.LoopbackBus;
+import org.ros2.java.di.transport.LoopbackTransport;
+
+/**
+ * Checks which node publishes the messages of node and static loggers.
+ */
+public class RosoutPublisherTest {
+
+	public static class Camera {
+
+		public static class Frame {
+		}
+	}
+
+	public static class Detector {
+	}
+
+	private final LoopbackBus bus = new LoopbackBus();
+	private RosoutPublisher first;
+	private RosoutPublisher second;
+
+	@Before
+	public void setUp() {
+		first = new RosoutPublisher(new LoopbackTransport(bus, "first", LoopbackTransport.DEFAULT_QUEUE_DEPTH),
+				new Clock());
+		second = new RosoutPublisher(new LoopbackTransport(bus, "second", LoopbackTransport.DEFAULT_QUEUE_DEPTH),
+				new Clock());
+		RosJavaDi.ROSOUT_PUBLISHER.set(first);
+	}
+
+	@After
+	public void tearDown() {
+		first.unregister();
+		second.unregister();
+	}
+
+	@Test
+	public void routesStaticLoggersToNodeOfTheirClass() {
+		first.addComponentClass(Camera.class);
+		second.addComponentClass(Detector.class);
+		assertSame(first, RosoutPublisher.forLogger(null, Camera.class.getName()));
+		assertSame(second, RosoutPublisher.forLogger(null, Detector.class.getName()));
+		assertSame(second, RosoutPublisher.forLogger(null, Detector.class.getName() + "$1"));
+		assertSame(first, RosoutPublisher.forLogger(null, Camera.Frame.class.getName()));
+	}
+
+	@Test
+	public void routesOtherStaticLoggersToDefaultNode() {
+		second.addComponentClass(Detector.class);
+		assertSame(first, RosoutPublisher.forLogger(null, String.class.getName()));
+		assertSame(first, RosoutPublisher.forLogger(null, "unknown"));
+	}
+
+	@Test
+	public void keepsFirstNodeOfClassCreatedTwice() {
+		first.addComponentClass(Detector.class);
+		second.addComponentClass(Detector.class);
+		assertSame(first, RosoutPublisher.forLogger(null, Detector.class.getName()));
+	}
+
+	@Test
+	public void forgetsNodeThatShutDown() {
+		RosJavaDi.ROSOUT_PUBLISHER.set(second);
+		first.addComponentClass(Detector.class);
+		first.unregister();
+		assertSame(second, RosoutPublisher.forLogger(null, Detector.class.getName()));
+		assertNull(RosoutPublisher.forLogger(first, Detector.class.getName()));
+		first.addComponentClass(Detector.class);
+		assertSame(second, RosoutPublisher.forLogger(null, Detector.class.getName()));
+	}
+}
@@ -0,0 +1,162 @@
+package org.ros2.java.di.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros2.java.di.SimulatedClock;
+
+public class TimeoutWheelTest {
+
+	private static final long TICK = TimeUnit.MILLISECONDS.toNanos(1);
+	private static final long PERIOD = TimeUnit.MILLISECONDS.toNanos(10);
+	private static final long HOURS = TimeUnit.HOURS.toNanos(3);
+
+	private SimulatedClock clock;
+	private TimeoutWheel wheel;
+	private AtomicInteger expired;
+	private Runnable action;
+
+	@Before
+	public void setUp() {
+		clock = new SimulatedClock();
+		wheel = new TimeoutWheel(clock, TICK, 64);
+		expired = new AtomicInteger();
+		action = new Runnable() {
+			@Override
+			public void run() {
+				expired.incrementAndGet();
+			}
+		};
+	}
+
+	@After
+	public void tearDown() {
+		wheel.shutdown();
+	}
+
+	@Test
+	public void expiresAfterPeriod() throws InterruptedException {
+		wheel.add(PERIOD, action);
+		advanceTo(PERIOD / 2);
+		assertEquals(0, expired.get());
+		advanceTo(PERIOD + 2 * TICK);
+		awaitExpired(1);
+	}
+
+	@Test
+	public void expiresAgainEveryPeriod() throws InterruptedException {
+		wheel.add(PERIOD, action);
+		advanceTo(PERIOD + 2 * TICK);
+		awaitExpired(1);
+		advanceTo(2 * PERIOD + 4 * TICK);
+		awaitExpired(2);
+	}
+
+	@Test
+	public void postponeMovesDeadline() throws InterruptedException {
+		TimeoutWheel.Timeout timeout = wheel.add(PERIOD, action);
+		advanceTo(PERIOD - 2 * TICK);
+		timeout.postpone();
+		advanceTo(PERIOD + 4 * TICK);
+		assertEquals(0, expired.get());
+		advanceTo(2 * PERIOD);
+		awaitExpired(1);
+	}
+
+	@Test
+	public void cancelledTimeoutDoesNotExpire() throws InterruptedException {
+		TimeoutWheel.Timeout timeout = wheel.add(PERIOD, action);
+		timeout.cancel();
+		advanceTo(3 * PERIOD);
+		assertEquals(0, expired.get());
+	}
+
+	@Test
+	public void expiresOnceWhenClockJumpsAhead() throws InterruptedException {
+		wheel.add(PERIOD, action);
+		advanceTo(2 * TICK);
+		// like /clock switching from zero to the time of a recording
+		clock.setTime(1700000000L * 1000000000L);
+		awaitExpired(1);
+		// the wheel waits for the next tick instead of stepping through the ones in between
+		long cpu = wheelCpuNanos();
+		Thread.sleep(100);
+		assertTrue(wheelCpuNanos() - cpu < TimeUnit.MILLISECONDS.toNanos(50));
+		assertEquals(1, expired.get());
+		advanceTo(clock.monotonicNanos() + PERIOD + 2 * TICK);
+		awaitExpired(2);
+	}
+
+	@Test
+	public void expiresOnceWhenClockJumpsAheadByHours() throws InterruptedException {
+		wheel.add(PERIOD, action);
+		advanceTo(2 * TICK);
+		clock.advance(HOURS);
+		awaitExpired(1);
+		advanceTo(clock.monotonicNanos() + PERIOD + 2 * TICK);
+		awaitExpired(2);
+	}
+
+	@Test
+	public void keepsExpiringWhenClockJumpsBack() throws InterruptedException {
+		clock.setTime(2 * HOURS);
+		wheel.add(PERIOD, action);
+		advanceTo(clock.monotonicNanos() + 2 * TICK);
+		// like a recording played again from its start
+		clock.setTime(HOURS);
+		advanceTo(HOURS + PERIOD + 2 * TICK);
+		awaitExpired(1);
+		advanceTo(HOURS + 2 * PERIOD + 4 * TICK);
+		awaitExpired(2);
+	}
+
+	@Test
+	public void postponeAfterClockJumpsBack() throws InterruptedException {
+		clock.setTime(2 * HOURS);
+		TimeoutWheel.Timeout timeout = wheel.add(PERIOD, action);
+		advanceTo(clock.monotonicNanos() + 2 * TICK);
+		clock.setTime(HOURS);
+		timeout.postpone();
+		advanceTo(HOURS + PERIOD / 2);
+		assertEquals(0, expired.get());
+		advanceTo(HOURS + PERIOD + 2 * TICK);
+		awaitExpired(1);
+	}
+
+	/**
+	 * Moves the time in ticks, giving the wheel thread time to catch up.
+	 */
+	private void advanceTo(long time) throws InterruptedException {
+		while (clock.monotonicNanos() < time) {
+			clock.advance(TICK);
+			Thread.sleep(2);
+		}
+	}
+
+	private static long wheelCpuNanos() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		long cpu = 0;
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().equals("rosjavadi-timeouts")) {
+				cpu += threads.getThreadCpuTime(thread.getId());
+			}
+		}
+		return cpu;
+	}
+
+	private void awaitExpired(int count) throws InterruptedException {
+		long end = System.currentTimeMillis() + 5000;
+		while (expired.get() < count && System.currentTimeMillis() < end) {
+			Thread.sleep(1);
+		}
+		assertEquals(count, expired.get());
+	}
+}
@@ -0,0 +1,129 @@
+package org.ros2.java.di.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ros2.rcljava.consumers.Consumer;
+import org.ros2.rcljava.interfaces.MessageDefinition;
+import org.ros2.rcljava.publisher.Publisher;
+
+public class LoopbackTransportTest {
+
+	public static class Sample implements MessageDefinition {
+	}
+
+	public static class OtherSample implements MessageDefinition {
+	}
+
+	/**
+	 * Collects received messages.
+	 */
+	private static class Receiver implements Consumer<Sample> {
+
+		final BlockingQueue<Sample> received = new LinkedBlockingQueue<>();
+
+		@Override
+		public void accept(Sample message) {
+			received.add(message);
+		}
+	}
+
+	private LoopbackBus bus;
+	private LoopbackTransport first;
+	private LoopbackTransport second;
+
+	@Before
+	public void setUp() {
+		bus = new LoopbackBus();
+		first = new LoopbackTransport(bus, "first", LoopbackTransport.DEFAULT_QUEUE_DEPTH);
+		second = new LoopbackTransport(bus, "second", LoopbackTransport.DEFAULT_QUEUE_DEPTH);
+		first.start(1);
+		second.start(1);
+	}
+
+	@After
+	public void tearDown() {
+		first.shutdown();
+		second.shutdown();
+	}
+
+	@Test
+	public void deliversMessageToOtherTransport() throws InterruptedException {
+		Receiver receiver = new Receiver();
+		second.createSubscription(Sample.class, "samples", receiver, false);
+		Sample sample = new Sample();
+		first.createPublisher(Sample.class, "samples").publish(sample);
+		assertSame(sample, receiver.received.poll(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void skipsLocalIntraProcessPublicationsWhenAsked() throws InterruptedException {
+		Receiver local = new Receiver();
+		Receiver remote = new Receiver();
+		first.createSubscription(Sample.class, "samples", local, true);
+		second.createSubscription(Sample.class, "samples", remote, true);
+		Sample sample = new Sample();
+		first.createIntraProcessPublisher(Sample.class, "samples", false).publish(sample);
+		assertSame(sample, remote.received.poll(5, TimeUnit.SECONDS));
+		Sample other = new Sample();
+		second.createPublisher(Sample.class, "samples").publish(other);
+		// the local subscription sees the message of the other transport only
+		assertSame(other, local.received.poll(5, TimeUnit.SECONDS));
+		assertNull(local.received.poll(50, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void deliversLocalPublicationsOfOtherPublishers() throws InterruptedException {
+		Receiver local = new Receiver();
+		first.createSubscription(Sample.class, "samples", local, true);
+		Sample plain = new Sample();
+		first.createPublisher(Sample.class, "samples").publish(plain);
+		assertSame(plain, local.received.poll(5, TimeUnit.SECONDS));
+		Sample latched = new Sample();
+		first.createLatchedPublisher(Sample.class, "samples").publish(latched);
+		assertSame(latched, local.received.poll(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void countsSubscriptionsOfOtherTransports() {
+		assertEquals(0, first.getRemoteSubscriptionCount("samples"));
+		first.createSubscription(Sample.class, "samples", new Receiver(), false);
+		assertEquals(0, first.getRemoteSubscriptionCount("samples"));
+		second.createSubscription(Sample.class, "samples", new Receiver(), false);
+		assertEquals(1, first.getRemoteSubscriptionCount("samples"));
+		second.shutdown();
+		assertEquals(0, first.getRemoteSubscriptionCount("samples"));
+	}
+
+	@Test
+	public void dropsOldestMessagesOfFullSubscription() throws InterruptedException {
+		LoopbackTransport small = new LoopbackTransport(bus, "small", 2);
+		Receiver receiver = new Receiver();
+		small.createSubscription(Sample.class, "samples", receiver, false);
+		Publisher<Sample> publisher = first.createPublisher(Sample.class, "samples");
+		Sample last = new Sample();
+		publisher.publish(new Sample());
+		publisher.publish(new Sample());
+		publisher.publish(last);
+		// delivery threads start after publishing, so the queue overflowed
+		small.start(1);
+		assertEquals(1, small.getDroppedMessages());
+		receiver.received.poll(5, TimeUnit.SECONDS);
+		assertSame(last, receiver.received.poll(5, TimeUnit.SECONDS));
+		small.shutdown();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsOtherTypeOnSameTopic() {
+		first.createPublisher(Sample.class, "samples");
+		second.createPublisher(OtherSample.class, "samples");
+	}
+}